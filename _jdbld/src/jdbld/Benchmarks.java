@@ -0,0 +1,37 @@
+package jdbld;
+
+import static org.jdrupes.builder.api.Intent.*;
+import org.jdrupes.builder.core.AbstractProject;
+import org.jdrupes.builder.java.JavaExecutor;
+import org.jdrupes.builder.java.JavaProject;
+import org.jdrupes.builder.mvnrepo.MvnRepoLookup;
+
+public class Benchmarks extends AbstractProject implements JavaProject {
+
+    public Benchmarks() {
+        super(name("benchmarks"));
+        dependency(Consume, project(Core.class));
+        dependency(Consume, project(Java.class));
+        dependency(Consume, project(Distribution.class));
+        dependency(Consume, project(Startup.class));
+        dependency(Consume, new MvnRepoLookup().resolve(
+            "org.openjdk.jmh:jmh-core:1.37",
+            "org.openjdk.jmh:jmh-generator-annprocess:1.37"));
+
+        // Run all benchmarks, results are written as JSON for tracking
+        dependency(Supply, JavaExecutor::new).name("benchmarks")
+            .addFrom(providers().select(Consume, Supply))
+            .mainClass("org.openjdk.jmh.Main")
+            .args("-rf", "json", "-rff",
+                buildDirectory().resolve("jmh-result.json").toString());
+
+        // Run synthetic builds of increasing size
+        dependency(Supply, JavaExecutor::new).name("scaling")
+            .addFrom(providers().select(Consume, Supply))
+            .mainClass("org.jdrupes.builder.startup.ScalingHarness")
+            .args("--directory", buildDirectory().resolve("scaling").toString(),
+                "--output",
+                buildDirectory().resolve("scaling-result.json").toString());
+    }
+
+}
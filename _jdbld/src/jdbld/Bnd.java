@@ -7,6 +7,7 @@ import static org.jdrupes.builder.mvnrepo.MvnProperties.PublishingDestinations;
 import static org.jdrupes.builder.mvnrepo.MvnProperties.ArtifactId;
 import java.nio.file.Path;
 import java.util.Map;
+import org.jdrupes.builder.api.MergedTestProject;
 import org.jdrupes.builder.core.AbstractProject;
 import org.jdrupes.builder.java.JavaProject;
 import org.jdrupes.builder.java.Javadoc;
@@ -44,4 +45,13 @@ public class Bnd extends AbstractProject
         generator(JavadocJarBuilder::new);
         generator(MvnPublisher::new).destinations(get(PublishingDestinations));
     }
+
+    public static class BndTest extends AbstractProject
+            implements JavaProject, MergedTestProject {
+
+        public BndTest() {
+            super(parent(Bnd.class));
+            dependency(Consume, project(Bnd.class));
+        }
+    }
 }
@@ -8,6 +8,7 @@ import static org.jdrupes.builder.mvnrepo.MvnProperties.ArtifactId;
 import static org.jdrupes.builder.mvnrepo.MvnRepoTypes.*;
 import java.nio.file.Path;
 import java.util.Map;
+import org.jdrupes.builder.api.MergedTestProject;
 import org.jdrupes.builder.core.AbstractProject;
 import org.jdrupes.builder.java.JavaProject;
 import org.jdrupes.builder.java.Javadoc;
@@ -41,4 +42,12 @@ public class NodeJs extends AbstractProject
         generator(MvnPublisher::new).destinations(get(PublishingDestinations));
     }
 
+    public static class NodeJsTest extends AbstractProject
+            implements JavaProject, MergedTestProject {
+
+        public NodeJsTest() {
+            super(parent(NodeJs.class));
+            dependency(Consume, project(NodeJs.class));
+        }
+    }
 }
@@ -95,6 +95,7 @@ public class Root extends AbstractRootProject {
         dependency(Forward, project(Bnd.class));
         dependency(Forward, project(NodeJs.class));
         dependency(Forward, project(jdbld.Git.class));
+        dependency(Forward, project(Benchmarks.class));
 
         // Generate POM
         generator(PomFileGenerator::new).adaptPom(addCommonPomInfo());
@@ -187,6 +188,13 @@ public class Root extends AbstractRootProject {
             .description("Install artifacts in local maven repository")
             .projects("**").resources(
                 of(MvnInstallationType).using(Supply));
+        commandAlias("benchmarks").description("Run the JMH benchmarks")
+            .projects("benchmarks").resources(
+                of(ExecResultType).withName("benchmarks").using(Supply));
+        commandAlias("scaling")
+            .description("Measure the scaling with synthetic builds")
+            .projects("benchmarks").resources(
+                of(ExecResultType).withName("scaling").using(Supply));
         commandAlias("releaseTag").description("Create a release tag")
             .projects("**").resources(of(GitVersionTagType).using(Supply));
     }
@@ -241,9 +249,14 @@ public class Root extends AbstractRootProject {
     private static void setupCommonGenerators(Project project) {
         if (project instanceof JavaProject) {
             if (!(project instanceof MergedTestProject)) {
-                project.generator(JavaCompiler::new)
-                    .addSources(Path.of("src"), "**/*.java")
-                    .options("--release", "25");
+                var compiler = project.generator(JavaCompiler::new)
+                    .addSources(Path.of("src"), "**/*.java");
+                compiler.options("--release", "25");
+                if (project instanceof Benchmarks) {
+                    // JMH generates the benchmark code by annotation
+                    // processing, which must be enabled explicitly
+                    compiler.options("-proc:full");
+                }
                 project.generator(JavaResourceCollector::new)
                     .add(Path.of("resources"), "**/*");
             } else {
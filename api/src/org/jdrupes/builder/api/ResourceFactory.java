@@ -35,6 +35,11 @@ public interface ResourceFactory {
     Map<ClassLoader, List<ResourceFactory>> FACTORIES
         = new ConcurrentHashMap<>();
 
+    /// The factories that handle a given type (see [#handles]) in the
+    /// order provided by the [ServiceLoader], by class loader.
+    Map<ClassLoader, Map<ResourceType<?>, List<ResourceFactory>>> DISPATCH
+        = new ConcurrentHashMap<>();
+
     /// Returns a new resource with the given type, passing the given
     /// arguments to the constructor of the resource. The implementation
     /// uses [ServiceLoader] to find a [ResourceFactory] that creates the
@@ -45,6 +50,12 @@ public interface ResourceFactory {
     /// with the class loader of the [Project] if provided, or the
     /// class loader of the current thread otherwise.
     ///
+    /// Only the factories that handle the type (see [#handles]) are
+    /// asked, in the order provided by the [ServiceLoader]. These
+    /// factories are determined once for each type. As the selection
+    /// depends on the type only, the result does not depend on the
+    /// resources created before.
+    ///
     /// @param <T> the generic resource type
     /// @param type the resource type
     /// @param project the project
@@ -56,13 +67,20 @@ public interface ResourceFactory {
         var clsLdr = Optional.ofNullable(project).map(Project::context)
             .map(BuildContext::classLoader)
             .orElseGet(() -> Thread.currentThread().getContextClassLoader());
-        return FACTORIES.computeIfAbsent(clsLdr,
+        var factories = FACTORIES.computeIfAbsent(clsLdr,
             cl -> StreamSupport.stream(ServiceLoader.load(
-                ResourceFactory.class, cl).spliterator(), false).toList())
-            .stream().map(f -> f.newResource(type, project, args))
-            .filter(Optional::isPresent).map(Optional::get).findFirst()
-            .orElseThrow(() -> new ConfigurationException()
-                .message("No resource factory for %s", type));
+                ResourceFactory.class, cl).spliterator(), false).toList());
+        var candidates = DISPATCH.computeIfAbsent(clsLdr,
+            cl -> new ConcurrentHashMap<>()).computeIfAbsent(type,
+                t -> factories.stream().filter(f -> f.handles(t)).toList());
+        for (var factory : candidates) {
+            var resource = factory.newResource(type, project, args);
+            if (resource.isPresent()) {
+                return resource.get();
+            }
+        }
+        throw new ConfigurationException()
+            .message("No resource factory for %s", type);
     }
 
     /// Short for `create(type, null, args)`.
@@ -90,4 +108,18 @@ public interface ResourceFactory {
     <T extends Resource> Optional<T> newResource(ResourceType<T> type,
             Project project, Object... args);
 
+    /// Checks if the factory instance may create resources of the given
+    /// type. Factories that return `false` are not asked to create
+    /// resources of the type. The result must depend on the type only.
+    ///
+    /// The default implementation returns `true`. Factories should
+    /// override this method if they create only specific types.
+    ///
+    /// @param type the resource type
+    /// @return true, if resources of the type may be created
+    ///
+    default boolean handles(ResourceType<?> type) {
+        return true;
+    }
+
 }
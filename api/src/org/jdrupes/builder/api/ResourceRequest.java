@@ -84,8 +84,10 @@ public interface ResourceRequest<T extends Resource> extends Cloneable {
     }
 
     /// Returns the intents to be used for selecting providers.
+    /// The returned set is unmodifiable. Use [#using] to obtain
+    /// a request with different intents.
     ///
-    /// @return the intents
+    /// @return the intents, an unmodifiable set
     ///
     Set<Intent> uses();
 
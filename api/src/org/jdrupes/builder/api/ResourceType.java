@@ -25,8 +25,10 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /// A special kind of type token for representing a resource type.
@@ -41,11 +43,54 @@ import java.util.stream.Stream;
 /// is to statically import the `resourceType` methods. Using these
 /// typically also results in clear code that is sometimes easier to read.   
 ///
+/// Equal resource types share a canonical instance. Type tokens created
+/// with an anonymous class derive the type information only once per
+/// anonymous class, the factory methods return canonical instances.
+/// [#equals] compares the canonical instances and the results of
+/// [#isAssignableFrom] are remembered, so matching types is cheap
+/// even if it is done for every request.
+///
+/// The canonical instances and the remembered results are attached
+/// to the class that is defined by the most specific class loader
+/// among the raw type and the contained types (usually the innermost
+/// type). They are therefore only reachable from classes that cannot
+/// be unloaded before the types that they refer to, and types defined
+/// by the class loader of e.g. an extension do not prevent the class
+/// loader from being unloaded.
+///
 /// @param <T> the resource type
 ///
 public class ResourceType<T extends Resource> {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    /// The canonical instances, by the class that they are attached to
+    /// (see [#owner]).
+    @SuppressWarnings("PMD.FieldNamingConventions")
+    private static final ClassValue<Map<Key, ResourceType<?>>> canonicals
+        = new ClassValue<>() {
+            @Override
+            protected Map<Key, ResourceType<?>> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+    /// The types derived from the type tokens' classes.
+    @SuppressWarnings("PMD.FieldNamingConventions")
+    private static final ClassValue<ResourceType<?>> derived
+        = new ClassValue<>() {
+            @Override
+            @SuppressWarnings("PMD.AvoidCatchingGenericException")
+            protected ResourceType<?> computeValue(Class<?> tokenClass) {
+                Type resourceType = tokenClass.getGenericSuperclass();
+                try {
+                    return fromType(((ParameterizedType) resourceType)
+                        .getActualTypeArguments()[0]);
+                } catch (Exception e) {
+                    throw new UnsupportedOperationException(
+                        "Could not derive resource type for " + resourceType,
+                        e);
+                }
+            }
+        };
 
     /// The resource type for [ExecResult].
     @SuppressWarnings({ "PMD.FieldNamingConventions",
@@ -120,6 +165,16 @@ public class ResourceType<T extends Resource> {
 
     private final Class<T> type;
     private final ResourceType<?> containedType;
+    private final Class<?> owner;
+    private ResourceType<?> canonical;
+    private int hash;
+    private volatile Map<ResourceType<?>, Boolean> assignableFrom;
+    private volatile Map<ResourceType<?>, Boolean> assignableTo;
+
+    /// The key of a canonical instance.
+    ///
+    private record Key(Class<?> type, ResourceType<?> containedType) {
+    }
 
     /// Creates a new resource type from the given type. The common
     /// usage pattern is to import this method statically.
@@ -134,7 +189,9 @@ public class ResourceType<T extends Resource> {
             throw new IllegalArgumentException("Method resourceType may"
                 + " not be called with container type " + type);
         }
-        return new ResourceType<>(type);
+        @SuppressWarnings("unchecked")
+        var result = (ResourceType<T>) fromType(type);
+        return result;
     }
 
     /// Creates a new [Resources] type from the given values. The common
@@ -148,7 +205,10 @@ public class ResourceType<T extends Resource> {
     public static <T extends Resource> ResourceType<T> resourceType(
             @SuppressWarnings("rawtypes") Class<? extends Resources> type,
             ResourceType<?> containedType) {
-        return new ResourceType<>(type, containedType);
+        @SuppressWarnings("unchecked")
+        var result = (ResourceType<T>) new ResourceType<>(type, containedType)
+            .canonical();
+        return result;
     }
 
     @SuppressWarnings({ "unchecked", "PMD.AvoidDuplicateLiterals" })
@@ -160,7 +220,30 @@ public class ResourceType<T extends Resource> {
                 type);
         }
         this.type = (Class<T>) type;
-        this.containedType = containedType;
+        this.containedType
+            = containedType == null ? null : containedType.canonical();
+        owner = this.containedType == null ? type
+            : outlives(type, this.containedType.owner)
+                ? this.containedType.owner
+                : type;
+    }
+
+    /// Checks if the given class cannot be unloaded before the other
+    /// class, i.e. if its class loader is the same as or an ancestor
+    /// of the other class' class loader.
+    ///
+    private static boolean outlives(Class<?> type, Class<?> other) {
+        var loader = type.getClassLoader();
+        if (loader == null) {
+            return true;
+        }
+        for (var cur = other.getClassLoader(); cur != null;
+                cur = cur.getParent()) {
+            if (cur == loader) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /// Creates a new resource type from the given container type
@@ -175,11 +258,19 @@ public class ResourceType<T extends Resource> {
     ///
     public static <C extends Resources<E>, E extends Resource> ResourceType<C>
             create(Class<C> type, Class<E> elementType) {
-        return new ResourceType<>(type, resourceType(elementType));
+        @SuppressWarnings("unchecked")
+        var result = (ResourceType<C>) new ResourceType<>(type,
+            resourceType(elementType)).canonical();
+        return result;
     }
 
-    @SuppressWarnings({ "unchecked", "PMD.AvoidDeeplyNestedIfStmts" })
-    private ResourceType(Type type) {
+    /// Returns the canonical resource type for the given type.
+    ///
+    /// @param type the type
+    /// @return the resource type
+    ///
+    @SuppressWarnings("unchecked")
+    private static ResourceType<?> fromType(Type type) {
         if (type instanceof WildcardType wType) {
             type = wType.getUpperBounds()[0];
             if (Object.class.equals(type)) {
@@ -188,21 +279,15 @@ public class ResourceType<T extends Resource> {
         }
         if (type instanceof ParameterizedType pType && Resources.class
             .isAssignableFrom((Class<?>) pType.getRawType())) {
-            this.type = (Class<T>) pType.getRawType();
+            var rawType = (Class<? extends Resource>) pType.getRawType();
             var argType = pType.getActualTypeArguments()[0];
-            if (argType instanceof ParameterizedType pArgType) {
-                containedType = new ResourceType<>(pArgType);
-            } else {
-                var subType = pType.getActualTypeArguments()[0];
-                if (subType instanceof TypeVariable) {
-                    logger.atWarning().withStackTrace(MEDIUM).log(
-                        "Type contained in %s is unknown", type);
-                    containedType = BaseResourceType;
-                    return;
-                }
-                containedType = new ResourceType<>(subType);
+            if (argType instanceof TypeVariable) {
+                logger.atWarning().withStackTrace(MEDIUM).log(
+                    "Type contained in %s is unknown", type);
+                return new ResourceType<>(rawType, BaseResourceType)
+                    .canonical();
             }
-            return;
+            return new ResourceType<>(rawType, fromType(argType)).canonical();
         }
 
         // If this is a parameterized type, but not resources,
@@ -211,26 +296,23 @@ public class ResourceType<T extends Resource> {
             type = pType.getRawType();
         }
 
-        this.type = (Class<T>) type;
-        if (!Resources.class.isAssignableFrom(this.type)) {
-            this.containedType = null;
-            return;
+        var rawType = (Class<? extends Resource>) type;
+        if (!Resources.class.isAssignableFrom(rawType)) {
+            return new ResourceType<>(rawType, null).canonical();
         }
 
         // If type is not a parameterized type, its super or one of its
         // interfaces may be.
-        @SuppressWarnings("rawtypes")
-        final var rawBaseResourceType = (ResourceType) BaseResourceType;
-        this.containedType = Stream.concat(
-            Optional.ofNullable(((Class<?>) type).getGenericSuperclass())
-                .stream(),
-            getAllInterfaces((Class<?>) type).map(Class::getGenericInterfaces)
+        var containedType = Stream.concat(
+            Optional.ofNullable(rawType.getGenericSuperclass()).stream(),
+            getAllInterfaces(rawType).map(Class::getGenericInterfaces)
                 .map(Arrays::stream).flatMap(s -> s))
             .filter(t -> t instanceof ParameterizedType pType && Resources.class
                 .isAssignableFrom((Class<?>) pType.getRawType()))
             .map(t -> (ParameterizedType) t).findFirst()
-            .map(t -> new ResourceType<>(t).containedType())
-            .orElse(rawBaseResourceType);
+            .<ResourceType<?>> map(t -> fromType(t).containedType())
+            .orElse(BaseResourceType);
+        return new ResourceType<>(rawType, containedType).canonical();
     }
 
     /// Gets all interfaces that the given class implements,
@@ -248,20 +330,31 @@ public class ResourceType<T extends Resource> {
     /// Instantiates a new resource type, using the information from a
     /// derived class.
     ///
-    @SuppressWarnings({ "unchecked", "PMD.AvoidCatchingGenericException",
-        "rawtypes" })
+    /// The type information is derived only once for each derived class.
+    ///
+    @SuppressWarnings("unchecked")
     protected ResourceType() {
-        Type resourceType = getClass().getGenericSuperclass();
-        try {
-            Type theResource = ((ParameterizedType) resourceType)
-                .getActualTypeArguments()[0];
-            var tempType = new ResourceType(theResource);
-            type = tempType.rawType();
-            containedType = tempType.containedType();
-        } catch (Exception e) {
-            throw new UnsupportedOperationException(
-                "Could not derive resource type for " + resourceType, e);
+        var known = derived.get(getClass());
+        type = (Class<T>) known.rawType();
+        containedType = known.containedType();
+        owner = known.owner;
+        canonical = known;
+    }
+
+    /// Returns the canonical instance for this type.
+    ///
+    /// @return the canonical instance
+    ///
+    private ResourceType<?> canonical() {
+        var result = canonical;
+        if (result == null) {
+            // All instances agree on the instance that was put first
+            result = canonicals.get(owner).computeIfAbsent(
+                new Key(type, containedType), _ -> this);
+            result.canonical = result;
+            canonical = result;
         }
+        return result;
     }
 
     /// Return the type.
@@ -286,8 +379,31 @@ public class ResourceType<T extends Resource> {
     /// @param other the other
     /// @return true, if is assignable from
     ///
-    @SuppressWarnings("PMD.SimplifyBooleanReturns")
     public boolean isAssignableFrom(ResourceType<?> other) {
+        var self = canonical();
+        var that = other.canonical();
+        if (self == that) {
+            return true;
+        }
+        // Remember the result in the type that is unloaded first
+        if (outlives(that.owner, self.owner)) {
+            var known = self.assignableFrom;
+            if (known == null) {
+                known = new ConcurrentHashMap<>();
+                self.assignableFrom = known;
+            }
+            return known.computeIfAbsent(that, self::checkAssignableFrom);
+        }
+        var known = that.assignableTo;
+        if (known == null) {
+            known = new ConcurrentHashMap<>();
+            that.assignableTo = known;
+        }
+        return known.computeIfAbsent(self, t -> t.checkAssignableFrom(that));
+    }
+
+    @SuppressWarnings("PMD.SimplifyBooleanReturns")
+    private boolean checkAssignableFrom(ResourceType<?> other) {
         if (!type.isAssignableFrom(other.type)) {
             return false;
         }
@@ -333,7 +449,10 @@ public class ResourceType<T extends Resource> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(containedType, type);
+        if (hash == 0) {
+            hash = Objects.hash(containedType, type);
+        }
+        return hash;
     }
 
     @Override
@@ -341,15 +460,8 @@ public class ResourceType<T extends Resource> {
         if (this == obj) {
             return true;
         }
-        if (obj == null) {
-            return false;
-        }
-        if (!ResourceType.class.isAssignableFrom(obj.getClass())) {
-            return false;
-        }
-        ResourceType<?> other = (ResourceType<?>) obj;
-        return Objects.equals(containedType, other.containedType)
-            && Objects.equals(type, other.type);
+        return obj instanceof ResourceType<?> other
+            && canonical() == other.canonical();
     }
 
     @Override
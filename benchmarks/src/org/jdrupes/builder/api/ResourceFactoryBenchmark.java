@@ -0,0 +1,63 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.api;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import static org.jdrupes.builder.api.ResourceType.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/// Measures the creation of resources with [ResourceFactory#create].
+///
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceFactoryBenchmark {
+
+    private final Path path = Path.of("/tmp/file.txt");
+
+    /// Creates a file resource.
+    ///
+    /// @return the resource
+    ///
+    @Benchmark
+    public FileResource fileResource() {
+        return ResourceFactory.create(FileResourceType, path);
+    }
+
+    /// Creates a resources container.
+    ///
+    /// @return the container
+    ///
+    @Benchmark
+    public Resources<FileResource> resources() {
+        return Resources.with(FileResourceType);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.api;
+
+import java.util.concurrent.TimeUnit;
+import static org.jdrupes.builder.api.ResourceType.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/// Measures the operations on [ResourceType]s that are used when
+/// matching requests and resources.
+///
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceTypeBenchmark {
+
+    private final ResourceType<?> files = FileResourceType;
+    private final ResourceType<?> tree = BaseFileTreeType;
+    private final ResourceType<?> resources
+        = resourceType(Resources.class, FileResourceType);
+
+    /// Checks a type against a super type.
+    ///
+    /// @return the result
+    ///
+    @Benchmark
+    public boolean isAssignableFrom() {
+        return BaseResourceType.isAssignableFrom(files);
+    }
+
+    /// Checks a container type against an unrelated type.
+    ///
+    /// @return the result
+    ///
+    @Benchmark
+    public boolean isNotAssignableFrom() {
+        return resources.isAssignableFrom(tree);
+    }
+
+    /// Compares two types.
+    ///
+    /// @return the result
+    ///
+    @Benchmark
+    public boolean equality() {
+        return tree.equals(resources);
+    }
+
+    /// Creates a type from a type token, as done e.g. by
+    /// `FileTree.of`.
+    ///
+    /// @return the type
+    ///
+    @Benchmark
+    public ResourceType<?> fromTypeToken() {
+        return new ResourceType<FileTree<FileResource>>() {};
+    }
+}
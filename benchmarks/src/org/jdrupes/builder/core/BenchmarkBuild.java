@@ -0,0 +1,159 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ScopedValue.CallableOp;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+import org.jdrupes.builder.api.Project;
+
+/// Provides a minimal build for the benchmarks, i.e. a build context
+/// with a root project that has no sub projects and no providers. The
+/// build root is a temporary directory that is deleted when the build
+/// is closed.
+///
+/// Code that uses the build context (e.g. invokes providers) must be
+/// run with [#call] or [#run].
+///
+public class BenchmarkBuild extends LauncherBase implements AutoCloseable {
+
+    private final Path directory;
+    private final AbstractRootProject root;
+
+    /// The root project of the benchmark build.
+    ///
+    public static class BenchmarkRoot extends AbstractRootProject {
+
+        /// Initializes a new benchmark root.
+        ///
+        public BenchmarkRoot() {
+            super(name("benchmark"));
+        }
+    }
+
+    /// Initializes a new benchmark build.
+    ///
+    public BenchmarkBuild() {
+        try {
+            directory = Files.createTempDirectory("jdbld-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        root = createProjects(directory, BenchmarkRoot.class, List.of(),
+            new Properties(), null);
+    }
+
+    /// Returns the build root.
+    ///
+    /// @return the path
+    ///
+    public Path directory() {
+        return directory;
+    }
+
+    /// Returns the root project.
+    ///
+    /// @return the project
+    ///
+    public Project project() {
+        return root;
+    }
+
+    /// Returns the build context.
+    ///
+    /// @return the context
+    ///
+    public DefaultBuildContext buildContext() {
+        return root.context();
+    }
+
+    /// Invokes the operation with the build context bound.
+    ///
+    /// @param <R> the result type
+    /// @param <X> the exception type
+    /// @param op the operation
+    /// @return the result
+    /// @throws X the exception
+    ///
+    public <R, X extends Throwable> R call(CallableOp<? extends R, X> op)
+            throws X {
+        return ScopedValue.where(scopedBuildContext, root.context())
+            .call(op);
+    }
+
+    /// Runs the task with the build context bound.
+    ///
+    /// @param task the task
+    ///
+    public void run(Runnable task) {
+        ScopedValue.where(scopedBuildContext, root.context()).run(task);
+    }
+
+    @Override
+    public void close() {
+        run(root::close);
+        delete(directory);
+    }
+
+    /// Creates `count` files with the given content in a tree below
+    /// `directory`. Each directory holds up to 100 files or 100
+    /// sub directories.
+    ///
+    /// @param directory the directory
+    /// @param count the number of files
+    /// @param suffix the suffix of the file names
+    /// @param content the content
+    ///
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public static void createFiles(Path directory, int count, String suffix,
+            byte[] content) {
+        try {
+            for (int i = 0; i < count; i++) {
+                var file = directory.resolve(String.format(
+                    "d%02d/e%02d/f%07d%s", i / 10_000 % 100, i / 100 % 100, i,
+                    suffix));
+                if (i % 100 == 0) {
+                    Files.createDirectories(file.getParent());
+                }
+                Files.write(file, content);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /// Deletes the given directory with all its content.
+    ///
+    /// @param directory the directory
+    ///
+    public static void delete(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder())
+                .forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
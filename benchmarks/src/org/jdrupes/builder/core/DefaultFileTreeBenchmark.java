@@ -0,0 +1,95 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.jdrupes.builder.api.FileTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/// Measures scanning synthetic file trees with a [DefaultFileTree],
+/// both without any information from previous scans and as a rescan
+/// of an unchanged tree during the same build, which reuses the result
+/// of the previous scan.
+///
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DefaultFileTreeBenchmark {
+
+    /// The number of files in the tree.
+    @Param({ "10000", "100000", "1000000" })
+    public int files;
+    private BenchmarkBuild build;
+    private Path tree;
+
+    /// Creates the tree.
+    ///
+    @Setup
+    public void setup() {
+        build = new BenchmarkBuild();
+        tree = build.directory().resolve("tree");
+        BenchmarkBuild.createFiles(tree, files, ".java", new byte[0]);
+    }
+
+    /// Closes the build.
+    ///
+    @TearDown
+    public void tearDown() {
+        build.close();
+    }
+
+    private long scan() {
+        return build.call(() -> FileTree.of(build.project(), tree,
+            "**/*.java").stream().count());
+    }
+
+    /// Scans the tree without information from previous scans.
+    ///
+    /// @return the number of files found
+    ///
+    @Benchmark
+    public long coldScan() {
+        build.run(FileMetadataCache::invalidateAll);
+        return scan();
+    }
+
+    /// Scans the unchanged tree again.
+    ///
+    /// @return the number of files found
+    ///
+    @Benchmark
+    public long rescan() {
+        return scan();
+    }
+}
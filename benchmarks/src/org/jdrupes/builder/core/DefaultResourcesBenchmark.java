@@ -0,0 +1,108 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SequencedSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.jdrupes.builder.api.FileResource;
+import org.jdrupes.builder.api.Resources;
+import static org.jdrupes.builder.api.ResourceType.FileResourceType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/// Measures adding resources to and retrieving them from
+/// [DefaultResources].
+///
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultResourcesBenchmark {
+
+    /// The number of resources.
+    @Param({ "100", "10000" })
+    public int size;
+    private List<FileResource> resources;
+    private Resources<FileResource> filled;
+
+    /// Creates the resources.
+    ///
+    @Setup
+    public void setup() {
+        resources = IntStream.range(0, size)
+            .mapToObj(i -> FileResource.of(Path.of("/tmp/file" + i)))
+            .toList();
+        filled = Resources.with(FileResourceType);
+        resources.forEach(filled::add);
+    }
+
+    /// Adds all resources to a new container.
+    ///
+    /// @return the container
+    ///
+    @Benchmark
+    public Resources<FileResource> add() {
+        var result = Resources.with(FileResourceType);
+        resources.forEach(result::add);
+        return result;
+    }
+
+    /// Adds all resources to a new container from several threads.
+    ///
+    /// @return the container
+    ///
+    @Benchmark
+    public Resources<FileResource> addConcurrently() {
+        var result = Resources.with(FileResourceType);
+        resources.parallelStream().forEach(result::add);
+        return result;
+    }
+
+    /// Retrieves the content.
+    ///
+    /// @return the content
+    ///
+    @Benchmark
+    public SequencedSet<FileResource> get() {
+        return filled.get();
+    }
+
+    /// Streams the content.
+    ///
+    /// @return the number of resources
+    ///
+    @Benchmark
+    public long stream() {
+        return filled.stream().count();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.jdrupes.builder.api.FileResource;
+import static org.jdrupes.builder.api.ResourceType.FileResourceType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/// Measures the lookup of already started evaluations in the
+/// [FutureStreamCache] by many threads, i.e. the common case when
+/// several projects request the same resources from a provider.
+///
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class FutureStreamCacheBenchmark {
+
+    /// The number of distinct invocations in the cache.
+    @Param({ "16", "4096" })
+    public int keys;
+    private BenchmarkBuild build;
+    private FutureStreamCache cache;
+    private List<ProviderInvocation<FileResource>> invocations;
+
+    /// The position of a thread in the list of invocations.
+    ///
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    /// Starts the evaluations.
+    ///
+    @Setup
+    public void setup() {
+        build = new BenchmarkBuild();
+        cache = new FutureStreamCache();
+        var collector = build.call(() -> new ResourceCollector<>(
+            build.project(), FileResourceType));
+        invocations = IntStream.range(0, keys)
+            .mapToObj(i -> new ProviderInvocation<FileResource>(collector,
+                collector.<FileResource> of(FileResourceType)
+                    .withName("r" + i)))
+            .toList();
+        build.run(() -> invocations
+            .forEach(i -> cache.computeIfAbsent(i, FutureStream::new)));
+    }
+
+    /// Closes the build.
+    ///
+    @TearDown
+    public void tearDown() {
+        build.close();
+    }
+
+    /// Looks up an invocation.
+    ///
+    /// @param cursor the cursor
+    /// @return the future stream
+    ///
+    @Benchmark
+    public FutureStream<FileResource> computeIfAbsentHit(Cursor cursor) {
+        var invocation = invocations.get(cursor.next);
+        cursor.next = (cursor.next + 1) % keys;
+        return cache.computeIfAbsent(invocation, FutureStream::new);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.jdrupes.builder.api.FileResource;
+import org.jdrupes.builder.api.ResourceRequest;
+import static org.jdrupes.builder.api.ResourceType.FileResourceType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/// Measures the overhead of invoking providers through the build
+/// context, i.e. the costs that are independent of the work done
+/// by the providers.
+///
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvocationBenchmark {
+
+    private BenchmarkBuild build;
+    private DefaultBuildContext context;
+    private ResourceCollector<FileResource> collector;
+    private ResourceRequest<FileResource> request;
+
+    /// Creates the build and a provider.
+    ///
+    @Setup
+    public void setup() {
+        build = new BenchmarkBuild();
+        context = build.buildContext();
+        collector = build.call(() -> new ResourceCollector<>(
+            build.project(), FileResourceType));
+        request = collector.of(FileResourceType);
+        // Start evaluation
+        build.call(() -> context.resources(collector, request).toList());
+    }
+
+    /// Closes the build.
+    ///
+    @TearDown
+    public void tearDown() {
+        build.close();
+    }
+
+    /// Requests the (already evaluated) resources from a generator.
+    ///
+    /// @return the stream
+    ///
+    @Benchmark
+    public Stream<FileResource> generator() {
+        return context.resources(collector, request);
+    }
+
+    /// Requests resources from a project. As the project has no
+    /// providers, this measures the overhead of the request chain
+    /// and the provider selection.
+    ///
+    /// @return the number of resources
+    ///
+    @Benchmark
+    public long project() {
+        return build.call(() -> context
+            .startRequestChain(context.inScopeForProviderCall())
+            .call(() -> context.resources(build.project(),
+                build.project().of(FileResourceType).usingAll()).count()));
+    }
+}
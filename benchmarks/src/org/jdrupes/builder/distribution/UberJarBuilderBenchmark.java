@@ -0,0 +1,136 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.distribution;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.jdrupes.builder.core.BenchmarkBuild;
+import org.jdrupes.builder.core.ResourceCollector;
+import org.jdrupes.builder.java.AppJarFile;
+import org.jdrupes.builder.java.ClasspathElement;
+import org.jdrupes.builder.java.LibraryJarFile;
+import static org.jdrupes.builder.java.JavaTypes.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/// Measures merging synthetic library JARs into an application JAR
+/// with an [UberJarBuilder]. Every library contains 100 classes and
+/// a service declaration that has to be merged with the declarations
+/// from the other libraries.
+///
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UberJarBuilderBenchmark {
+
+    /// The number of libraries to merge.
+    @Param({ "10", "100" })
+    public int libraries;
+    private BenchmarkBuild build;
+    private Path destination;
+    private ResourceCollector<ClasspathElement> jars;
+    private UberJarBuilder builder;
+
+    /// Creates the libraries.
+    ///
+    @Setup
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void setup() {
+        build = new BenchmarkBuild();
+        destination = build.directory().resolve("app");
+        jars = build.call(() -> new ResourceCollector<>(build.project(),
+            ClasspathElementType));
+        var libDir = build.directory().resolve("libs");
+        try {
+            Files.createDirectories(libDir);
+            for (int lib = 0; lib < libraries; lib++) {
+                var jar = libDir.resolve("lib" + lib + ".jar");
+                writeLibrary(jar, lib);
+                jars.add(LibraryJarFile.of(jar));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeLibrary(Path jar, int lib) throws IOException {
+        try (var out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (int cls = 0; cls < 100; cls++) {
+                out.putNextEntry(new JarEntry(String.format(
+                    "org/example/lib%d/Class%d.class", lib, cls)));
+                out.write(new byte[1024]);
+                out.closeEntry();
+            }
+            out.putNextEntry(new JarEntry(
+                "META-INF/services/org.example.Service"));
+            out.write(("org.example.lib" + lib + ".Class0\n")
+                .getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+    }
+
+    /// Creates a new builder, so the result isn't taken from the cache
+    /// and the JAR is written.
+    ///
+    @Setup(Level.Invocation)
+    public void newBuilder() {
+        builder = build.call(() -> new UberJarBuilder(build.project()));
+        builder.mainClass("org.example.Main").addFrom(jars);
+        builder.destination(destination).jarName("app.jar");
+        destination.resolve("app.jar").toFile().delete();
+    }
+
+    /// Closes the build.
+    ///
+    @TearDown
+    public void tearDown() {
+        build.close();
+    }
+
+    /// Builds the application JAR.
+    ///
+    /// @return the result
+    ///
+    @Benchmark
+    public List<AppJarFile> merge() {
+        return build.call(() -> build.buildContext()
+            .resources(builder, builder.of(AppJarFileType)).toList());
+    }
+}
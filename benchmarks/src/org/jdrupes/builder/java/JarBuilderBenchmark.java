@@ -0,0 +1,98 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.java;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jdrupes.builder.api.FileTree;
+import org.jdrupes.builder.core.BenchmarkBuild;
+import static org.jdrupes.builder.java.JavaTypes.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/// Measures building a library JAR from a synthetic class tree with
+/// a [JarBuilder].
+///
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JarBuilderBenchmark {
+
+    /// The number of entries in the JAR.
+    @Param({ "100", "10000" })
+    public int entries;
+    private BenchmarkBuild build;
+    private Path classes;
+    private Path destination;
+    private JarBuilder builder;
+
+    /// Creates the class tree.
+    ///
+    @Setup
+    public void setup() {
+        build = new BenchmarkBuild();
+        classes = build.directory().resolve("classes");
+        destination = build.directory().resolve("jars");
+        BenchmarkBuild.createFiles(classes, entries, ".class",
+            new byte[1024]);
+    }
+
+    /// Creates a new builder, so the result isn't taken from the cache
+    /// and the JAR is written.
+    ///
+    @Setup(Level.Invocation)
+    public void newBuilder() {
+        builder = build.call(() -> new JarBuilder(build.project(),
+            LibraryJarFileType).destination(destination).jarName("lib.jar")
+                .add(FileTree.of(build.project(), classes, "**/*.class")));
+        destination.resolve("lib.jar").toFile().delete();
+    }
+
+    /// Closes the build.
+    ///
+    @TearDown
+    public void tearDown() {
+        build.close();
+    }
+
+    /// Builds the JAR.
+    ///
+    /// @return the result
+    ///
+    @Benchmark
+    public List<LibraryJarFile> writeJar() {
+        return build.call(() -> build.buildContext()
+            .resources(builder, builder.of(LibraryJarFileType)).toList());
+    }
+}
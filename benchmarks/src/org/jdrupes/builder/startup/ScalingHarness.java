@@ -0,0 +1,258 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.startup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.ToolProvider;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.jdrupes.builder.core.BenchmarkBuild;
+
+/// Measures how the builder scales with the size of the build. For
+/// each of the requested numbers of projects, a [SyntheticBuild] is
+/// generated and its configuration is compiled. The build is then
+/// run repeatedly, each time with the [BuildProjectLauncher] in a new
+/// JVM (see [ScalingProbe]). The first run builds everything from
+/// scratch, subsequent runs find everything up to date and therefore
+/// mainly measure the overhead of the builder itself, i.e. creating
+/// the projects, selecting the providers and evaluating the requests.
+///
+/// For each run, the wall time, the CPU time, the peak heap usage and
+/// the thread counts are recorded. The results are printed as a table
+/// and written to a file in JSON format.
+///
+/// Usage: `ScalingHarness [options] [command ...]`. The commands are
+/// passed to the launcher and default to `build`. Use `--help` for the
+/// available options.
+///
+@SuppressWarnings({ "PMD.SystemPrintln", "PMD.AvoidDuplicateLiterals" })
+public final class ScalingHarness {
+
+    private static final List<String> METRICS = List.of("success",
+        "setupMillis", "commandsMillis", "wallMillis", "cpuMillis", "gcCount",
+        "gcMillis", "peakHeapBytes", "peakThreads", "startedThreads",
+        "peakCarrierThreads", "peakMountedVirtualThreads",
+        "peakQueuedVirtualThreads");
+    private final Path directory;
+    private final List<String> jvmArgs;
+    private final List<String> commands;
+
+    private ScalingHarness(Path directory, List<String> jvmArgs,
+            List<String> commands) {
+        this.directory = directory;
+        this.jvmArgs = jvmArgs;
+        this.commands = commands;
+    }
+
+    private static Options options() {
+        Options options = new Options();
+        options.addOption(Option.builder().longOpt("projects").hasArg()
+            .desc("Comma separated numbers of projects"
+                + " (default: 10,100,500,2000)")
+            .get());
+        options.addOption(Option.builder().longOpt("fan-out").hasArg()
+            .desc("Dependencies per project (default: 2)").get());
+        options.addOption(Option.builder().longOpt("fan-in").hasArg()
+            .desc("Dependents per project (default: 2)").get());
+        options.addOption(Option.builder().longOpt("sources").hasArg()
+            .desc("Source files per project (default: 5)").get());
+        options.addOption(Option.builder().longOpt("libraries").hasArg()
+            .desc("Artifacts in the Maven repository (default: 20)").get());
+        options.addOption(Option.builder().longOpt("maven-dependencies")
+            .hasArg().desc("Maven dependencies per project (default: 2)")
+            .get());
+        options.addOption(Option.builder().longOpt("runs").hasArg()
+            .desc("Runs per build (default: 2)").get());
+        options.addOption(Option.builder().longOpt("directory").hasArg()
+            .desc("Directory for the generated builds"
+                + " (default: build/scaling)")
+            .get());
+        options.addOption(Option.builder().longOpt("output").hasArg()
+            .desc("Result file (default: build/scaling-result.json)").get());
+        options.addOption(Option.builder().longOpt("jvm-arg").hasArg()
+            .desc("Argument for the JVMs that run the builds, may be"
+                + " repeated")
+            .get());
+        options.addOption(Option.builder("h").longOpt("help")
+            .desc("Show usage").get());
+        return options;
+    }
+
+    /// Runs the measurements.
+    ///
+    /// @param args the arguments
+    /// @throws ParseException if the arguments are invalid
+    /// @throws IOException Signals that an I/O exception has occurred.
+    /// @throws InterruptedException if interrupted
+    ///
+    public static void main(String[] args)
+            throws ParseException, IOException, InterruptedException {
+        var cmdLine = new DefaultParser().parse(options(), args);
+        if (cmdLine.hasOption("help")) {
+            System.out.println("Usage: ScalingHarness [options] [command ...]");
+            options().getOptions().forEach(o -> System.out.println(
+                String.format("  --%-20s %s", o.getLongOpt(),
+                    o.getDescription())));
+            return;
+        }
+        var harness = new ScalingHarness(
+            Path.of(cmdLine.getOptionValue("directory", "build/scaling"))
+                .toAbsolutePath(),
+            Optional.ofNullable(cmdLine.getOptionValues("jvm-arg"))
+                .map(List::of).orElse(List.of()),
+            cmdLine.getArgList().isEmpty() ? List.of("build")
+                : cmdLine.getArgList());
+        int runs = Integer.parseInt(cmdLine.getOptionValue("runs", "2"));
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (var size : cmdLine.getOptionValue("projects", "10,100,500,2000")
+            .split(",")) {
+            var build = new SyntheticBuild(
+                harness.directory.resolve("projects-" + size.trim()))
+                    .projects(Integer.parseInt(size.trim()));
+            intOption(cmdLine.getOptionValue("fan-out"), build::fanOut);
+            intOption(cmdLine.getOptionValue("fan-in"), build::fanIn);
+            intOption(cmdLine.getOptionValue("sources"), build::sources);
+            intOption(cmdLine.getOptionValue("libraries"), build::libraries);
+            intOption(cmdLine.getOptionValue("maven-dependencies"),
+                build::mavenDependencies);
+            results.addAll(harness.measure(build, runs));
+        }
+        var output = Path.of(cmdLine.getOptionValue("output",
+            "build/scaling-result.json"));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Files.writeString(output, toJson(results));
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    private static void intOption(String value, IntConsumer setter) {
+        if (value != null) {
+            setter.accept(Integer.parseInt(value));
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private List<Map<String, Object>> measure(SyntheticBuild build, int runs)
+            throws IOException, InterruptedException {
+        if (Files.exists(build.directory())) {
+            BenchmarkBuild.delete(build.directory());
+        }
+        System.out.println("Generating " + build);
+        build.generate();
+        var configuration = build.directory().resolve("_jdbld/build/classes");
+        compile(build.configurationSources(), configuration);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            var metricsFile = build.directory().resolve("run-" + run
+                + ".properties");
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java")
+                .toString());
+            command.addAll(jvmArgs);
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                ScalingProbe.class.getName(), build.directory().toString(),
+                configuration.toString(), metricsFile.toString()));
+            command.addAll(commands);
+            var process = new ProcessBuilder(command)
+                .directory(build.directory().toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(build.directory().resolve("run-" + run + ".log")
+                    .toFile())
+                .start();
+            int exitCode = process.waitFor();
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("projects", build.projects());
+            result.put("fanOut", build.fanOut());
+            result.put("fanIn", build.fanIn());
+            result.put("sources", build.sources());
+            result.put("libraries", build.libraries());
+            result.put("mavenDependencies", build.mavenDependencies());
+            result.put("commands", String.join(" ", commands));
+            result.put("run", run);
+            result.put("exitCode", exitCode);
+            var metrics = new Properties();
+            if (Files.exists(metricsFile)) {
+                try (var input = Files.newBufferedReader(metricsFile)) {
+                    metrics.load(input);
+                }
+            }
+            for (var key : METRICS) {
+                Optional.ofNullable(metrics.getProperty(key))
+                    .ifPresent(v -> result.put(key, "true".equals(v)
+                        || "false".equals(v) ? Boolean.valueOf(v)
+                            : Long.valueOf(v)));
+            }
+            results.add(result);
+            System.out.println(String.format(
+                "%5d projects, run %d: %s, wall %s ms, cpu %s ms,"
+                    + " peak heap %s MiB, peak threads %s, carriers %s",
+                build.projects(), run, exitCode == 0 ? "ok" : "failed",
+                result.get("wallMillis"), result.get("cpuMillis"),
+                Optional.ofNullable((Long) result.get("peakHeapBytes"))
+                    .map(b -> b / (1024 * 1024)).orElse(null),
+                result.get("peakThreads"), result.get("peakCarrierThreads")));
+        }
+        return results;
+    }
+
+    private static void compile(Path sources, Path classes)
+            throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(sources)) {
+            files = paths.filter(p -> p.toString().endsWith(".java")).toList();
+        }
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        try (var fileManager
+            = compiler.getStandardFileManager(null, null, null)) {
+            if (!compiler.getTask(null, fileManager, null,
+                List.of("-d", classes.toString(), "-cp",
+                    System.getProperty("java.class.path")),
+                null, fileManager.getJavaFileObjectsFromPaths(files)).call()) {
+                throw new IllegalStateException(
+                    "Cannot compile configuration in " + sources);
+            }
+        }
+    }
+
+    private static String toJson(List<Map<String, Object>> results) {
+        return results.stream().map(r -> r.entrySet().stream()
+            .map(e -> "\"" + e.getKey() + "\": "
+                + (e.getValue() instanceof String
+                    ? "\"" + e.getValue() + "\""
+                    : e.getValue()))
+            .collect(Collectors.joining(", ", "  { ", " }")))
+            .collect(Collectors.joining(",\n", "[\n", "\n]\n"));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.startup;
+
+import com.sun.management.OperatingSystemMXBean;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import jdk.management.VirtualThreadSchedulerMXBean;
+
+/// Runs a [BuildProjectLauncher] in a JVM of its own, started by the
+/// [ScalingHarness], and records the resources that the run uses.
+///
+/// The launcher is loaded with a class loader of its own that provides
+/// the compiled build configuration and the class path of the JVM,
+/// except for the class path entry of the harness. The latter contains
+/// the benchmarks' root project, which would otherwise be detected
+/// as a second root project when the launcher scans the class path.
+///
+/// The results are written to the metrics file as properties.
+///
+/* default */ final class ScalingProbe {
+
+    private static final long SAMPLING_INTERVAL = 10;
+
+    private ScalingProbe() {
+    }
+
+    /// Samples the virtual thread scheduler while the build runs.
+    ///
+    private static final class Sampler extends Thread {
+        private final VirtualThreadSchedulerMXBean scheduler
+            = ManagementFactory
+                .getPlatformMXBean(VirtualThreadSchedulerMXBean.class);
+        private volatile boolean stopped;
+        private int peakPoolSize;
+        private int peakMounted;
+        private long peakQueued;
+
+        private Sampler() {
+            setDaemon(true);
+            setName("scaling-probe-sampler");
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                peakPoolSize = Math.max(peakPoolSize, scheduler.getPoolSize());
+                peakMounted = Math.max(peakMounted,
+                    scheduler.getMountedVirtualThreadCount());
+                peakQueued = Math.max(peakQueued,
+                    scheduler.getQueuedVirtualThreadCount());
+                try {
+                    Thread.sleep(SAMPLING_INTERVAL);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private void finish() throws InterruptedException {
+            stopped = true;
+            interrupt();
+            join();
+        }
+    }
+
+    /// Runs the build. The arguments are the build root, the directory
+    /// with the compiled build configuration, the metrics file and the
+    /// arguments for the [BuildProjectLauncher].
+    ///
+    /// @param args the arguments
+    /// @throws Exception if the build cannot be run
+    ///
+    @SuppressWarnings({ "PMD.SignatureDeclareThrowsException",
+        "PMD.AvoidCatchingGenericException", "PMD.SystemPrintln" })
+    public static void main(String[] args) throws Exception {
+        var buildRoot = Path.of(args[0]).toAbsolutePath();
+        var configuration = Path.of(args[1]).toAbsolutePath();
+        var metricsFile = Path.of(args[2]);
+        var launcherArgs = Arrays.copyOfRange(args, 3, args.length);
+
+        var threads = ManagementFactory.getThreadMXBean();
+        var system = (OperatingSystemMXBean) ManagementFactory
+            .getOperatingSystemMXBean();
+        var heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(p -> p.getType() == MemoryType.HEAP).toList();
+        var collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        threads.resetPeakThreadCount();
+        long startedBefore = threads.getTotalStartedThreadCount();
+        long gcCountBefore = sum(collectors,
+            GarbageCollectorMXBean::getCollectionCount);
+        long gcTimeBefore = sum(collectors,
+            GarbageCollectorMXBean::getCollectionTime);
+        long cpuBefore = system.getProcessCpuTime();
+        var sampler = new Sampler();
+        sampler.start();
+
+        boolean success = false;
+        long start = System.nanoTime();
+        long setupDone = start;
+        try (var loader = new URLClassLoader(classPath(configuration),
+            ClassLoader.getPlatformClassLoader())) {
+            Thread.currentThread().setContextClassLoader(loader);
+            var launcherClass = loader.loadClass(
+                "org.jdrupes.builder.startup.BuildProjectLauncher");
+            try (var launcher = (AutoCloseable) launcherClass
+                .getConstructor(ClassLoader.class, Path.class, String[].class)
+                .newInstance(loader, buildRoot, launcherArgs)) {
+                setupDone = System.nanoTime();
+                success = (Boolean) launcherClass.getMethod("runCommands")
+                    .invoke(launcher);
+            }
+        } catch (Exception e) {
+            // Details are in the log written by the harness
+            e.printStackTrace();
+        }
+        long end = System.nanoTime();
+        long cpuAfter = system.getProcessCpuTime();
+        sampler.finish();
+
+        var metrics = new Properties();
+        metrics.setProperty("success", Boolean.toString(success));
+        metrics.setProperty("setupMillis", Long.toString(
+            TimeUnit.NANOSECONDS.toMillis(setupDone - start)));
+        metrics.setProperty("commandsMillis", Long.toString(
+            TimeUnit.NANOSECONDS.toMillis(end - setupDone)));
+        metrics.setProperty("wallMillis",
+            Long.toString(TimeUnit.NANOSECONDS.toMillis(end - start)));
+        metrics.setProperty("cpuMillis", Long.toString(
+            TimeUnit.NANOSECONDS.toMillis(cpuAfter - cpuBefore)));
+        metrics.setProperty("gcCount", Long.toString(sum(collectors,
+            GarbageCollectorMXBean::getCollectionCount) - gcCountBefore));
+        metrics.setProperty("gcMillis", Long.toString(sum(collectors,
+            GarbageCollectorMXBean::getCollectionTime) - gcTimeBefore));
+        // The sum of the peaks of the pools is an upper bound
+        metrics.setProperty("peakHeapBytes", Long.toString(
+            sum(heapPools, p -> p.getPeakUsage().getUsed())));
+        metrics.setProperty("peakThreads",
+            Integer.toString(threads.getPeakThreadCount()));
+        metrics.setProperty("startedThreads", Long.toString(
+            threads.getTotalStartedThreadCount() - startedBefore));
+        metrics.setProperty("peakCarrierThreads",
+            Integer.toString(sampler.peakPoolSize));
+        metrics.setProperty("peakMountedVirtualThreads",
+            Integer.toString(sampler.peakMounted));
+        metrics.setProperty("peakQueuedVirtualThreads",
+            Long.toString(sampler.peakQueued));
+        try (var out = Files.newBufferedWriter(metricsFile)) {
+            metrics.store(out, null);
+        }
+        System.exit(success ? 0 : 1);
+    }
+
+    private static <T> long sum(List<T> items, ToLongFunction<T> value) {
+        return items.stream().mapToLong(value).sum();
+    }
+
+    private static URL[] classPath(Path configuration)
+            throws IOException, URISyntaxException {
+        var own = Path.of(ScalingProbe.class.getProtectionDomain()
+            .getCodeSource().getLocation().toURI());
+        List<URL> urls = new ArrayList<>();
+        urls.add(configuration.toUri().toURL());
+        for (var entry : System.getProperty("java.class.path")
+            .split(File.pathSeparator)) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            var path = Path.of(entry).toAbsolutePath();
+            if (!path.equals(own)) {
+                urls.add(path.toUri().toURL());
+            }
+        }
+        return urls.toArray(URL[]::new);
+    }
+}
@@ -0,0 +1,479 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.startup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/// Generates a synthetic multi-project build in the style of the
+/// builds in `test-projects`. The shape of the build is configurable:
+///
+///   * The number of projects. Each project is a `JavaProject` with
+///     a configuration class `jdbld.Pnnnn` and its sources in the
+///     sub directory `pnnnn`.
+///
+///   * The fan-out, i.e. the number of projects that a project
+///     depends on, and the fan-in, i.e. the number of projects that
+///     depend on a project. The projects are arranged in levels.
+///     The projects of the first level have no project dependencies.
+///     Every project of a subsequent level depends on `fanOut`
+///     projects of the previous level. The widths of the levels are
+///     chosen such that every project is used by approximately
+///     `fanIn` projects of the next level, i.e. the build becomes
+///     wider with every level if the fan-in is greater than the
+///     fan-out. Else, all levels have `fanOut` projects, every
+///     project is used by `fanOut` projects and the build becomes
+///     deep and narrow.
+///
+///   * The number of source files per project. The first class of a
+///     project uses the first class of every project that it depends
+///     on, so compiling a project requires the class path provided
+///     by its dependencies.
+///
+///   * The number of Maven dependencies per project. The artifacts are
+///     provided by a repository in the sub directory `repository`
+///     that is accessed as remote repository with a `file:` URI. The
+///     artifacts depend on each other, so resolving them involves
+///     resolving transitive dependencies. Note that the resolved
+///     artifacts are copied to the local Maven repository as usual.
+///
+/// The configuration classes are generated in `_jdbld/src`. They must
+/// be compiled before the build can be run, see [ScalingHarness].
+///
+@SuppressWarnings({ "PMD.AvoidDuplicateLiterals", "PMD.TooManyMethods" })
+public class SyntheticBuild {
+
+    /// The group id of the generated Maven artifacts.
+    public static final String GROUP_ID = "org.jdrupes.builder.synthetic";
+    /// The version of the generated Maven artifacts.
+    public static final String VERSION = "1.0.0";
+    private final Path directory;
+    private int projects = 100;
+    private int fanOut = 2;
+    private int fanIn = 2;
+    private int sources = 5;
+    private int libraries = 20;
+    private int mavenDependencies = 2;
+
+    /// Initializes a new synthetic build that is generated in the
+    /// given directory.
+    ///
+    /// @param directory the directory
+    ///
+    public SyntheticBuild(Path directory) {
+        this.directory = directory;
+    }
+
+    /// Returns the build root.
+    ///
+    /// @return the path
+    ///
+    public Path directory() {
+        return directory;
+    }
+
+    /// Sets the number of projects. Defaults to 100.
+    ///
+    /// @param projects the number of projects
+    /// @return the synthetic build
+    ///
+    public SyntheticBuild projects(int projects) {
+        this.projects = projects;
+        return this;
+    }
+
+    /// Returns the number of projects.
+    ///
+    /// @return the number of projects
+    ///
+    public int projects() {
+        return projects;
+    }
+
+    /// Sets the number of projects that a project depends on.
+    /// Defaults to 2.
+    ///
+    /// @param fanOut the fan-out
+    /// @return the synthetic build
+    ///
+    public SyntheticBuild fanOut(int fanOut) {
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    /// Returns the fan-out.
+    ///
+    /// @return the fan-out
+    ///
+    public int fanOut() {
+        return fanOut;
+    }
+
+    /// Sets the number of projects that depend on a project.
+    /// Defaults to 2.
+    ///
+    /// @param fanIn the fan-in
+    /// @return the synthetic build
+    ///
+    public SyntheticBuild fanIn(int fanIn) {
+        this.fanIn = fanIn;
+        return this;
+    }
+
+    /// Returns the fan-in.
+    ///
+    /// @return the fan-in
+    ///
+    public int fanIn() {
+        return fanIn;
+    }
+
+    /// Sets the number of source files per project. Defaults to 5.
+    ///
+    /// @param sources the number of source files
+    /// @return the synthetic build
+    ///
+    public SyntheticBuild sources(int sources) {
+        this.sources = sources;
+        return this;
+    }
+
+    /// Returns the number of source files per project.
+    ///
+    /// @return the number of source files
+    ///
+    public int sources() {
+        return sources;
+    }
+
+    /// Sets the number of artifacts in the Maven repository.
+    /// Defaults to 20. The value is increased to the number of
+    /// Maven dependencies per project if it is smaller.
+    ///
+    /// @param libraries the number of artifacts
+    /// @return the synthetic build
+    ///
+    public SyntheticBuild libraries(int libraries) {
+        this.libraries = libraries;
+        return this;
+    }
+
+    /// Returns the number of artifacts in the Maven repository.
+    ///
+    /// @return the number of artifacts
+    ///
+    public int libraries() {
+        return Math.max(libraries, mavenDependencies);
+    }
+
+    /// Sets the number of Maven dependencies per project. Defaults to 2.
+    ///
+    /// @param mavenDependencies the number of Maven dependencies
+    /// @return the synthetic build
+    ///
+    public SyntheticBuild mavenDependencies(int mavenDependencies) {
+        this.mavenDependencies = mavenDependencies;
+        return this;
+    }
+
+    /// Returns the number of Maven dependencies per project.
+    ///
+    /// @return the number of Maven dependencies
+    ///
+    public int mavenDependencies() {
+        return mavenDependencies;
+    }
+
+    /// Returns the directory with the generated configuration sources.
+    ///
+    /// @return the path
+    ///
+    public Path configurationSources() {
+        return directory.resolve("_jdbld/src");
+    }
+
+    /// Generates the build.
+    ///
+    /// @return the synthetic build
+    ///
+    public SyntheticBuild generate() {
+        if (projects < 1 || fanOut < 0 || fanIn < 1 || sources < 1
+            || libraries < 0 || mavenDependencies < 0) {
+            throw new IllegalArgumentException("Invalid shape: " + this);
+        }
+        write(directory.resolve(".jdbld.properties"),
+            "jdbldDirectory = _jdbld\n");
+        write(configurationSources().resolve("jdbld/Root.java"), rootSource());
+        var dependencies = projectDependencies();
+        for (int i = 0; i < projects; i++) {
+            generateProject(i, dependencies.get(i));
+        }
+        for (int i = 0; i < libraries(); i++) {
+            generateLibrary(i);
+        }
+        return this;
+    }
+
+    /// Returns the dependencies of each project, see the class
+    /// description for details.
+    ///
+    /// @return the indices of the projects that each project
+    /// depends on
+    ///
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    /* default */ List<List<Integer>> projectDependencies() {
+        List<List<Integer>> result = new ArrayList<>(projects);
+        int width = fanOut == 0 ? projects : Math.min(projects, fanOut);
+        int previousStart = 0;
+        int previousWidth = 0;
+        int start = 0;
+        while (start < projects) {
+            for (int k = 0; k < width && start + k < projects; k++) {
+                List<Integer> targets = new ArrayList<>();
+                for (int m = 0; m < Math.min(fanOut, previousWidth); m++) {
+                    targets.add(
+                        previousStart + (k * fanOut + m) % previousWidth);
+                }
+                result.add(targets);
+            }
+            previousStart = start;
+            previousWidth = width;
+            start += width;
+            if (fanOut > 0) {
+                width = Math.max(fanOut,
+                    (int) Math.round((double) width * fanIn / fanOut));
+            }
+        }
+        return result;
+    }
+
+    private static String projectName(int index) {
+        return String.format("p%04d", index);
+    }
+
+    private static String projectClass(int index) {
+        return String.format("P%04d", index);
+    }
+
+    private static String libraryName(int index) {
+        return String.format("lib%04d", index);
+    }
+
+    private static String className(int index) {
+        return String.format("C%03d", index);
+    }
+
+    private String rootSource() {
+        return """
+            package jdbld;
+
+            import static org.jdrupes.builder.api.Intent.*;
+            import static org.jdrupes.builder.java.JavaTypes.*;
+            import static org.jdrupes.builder.mvnrepo.MvnProperties.*;
+            import java.net.URI;
+            import java.nio.file.Path;
+            import org.eclipse.aether.repository.RemoteRepository;
+            import org.jdrupes.builder.api.Project;
+            import org.jdrupes.builder.core.AbstractRootProject;
+            import org.jdrupes.builder.java.JavaCompiler;
+            import org.jdrupes.builder.java.JavaProject;
+            import org.jdrupes.builder.java.LibraryBuilder;
+            import org.jdrupes.builder.mvnrepo.MavenContext;
+            import org.jdrupes.builder.mvnrepo.MvnVersionType;
+
+            public class Root extends AbstractRootProject {
+
+                @Override
+                public void prepareProject(Project project) {
+                    if (project instanceof JavaProject) {
+                        project.dependency(Consume, JavaCompiler::new)
+                            .addSources(Path.of("src"), "**/*.java");
+                        project.generator(LibraryBuilder::new)
+                            .addFrom(project.providers().select(Consume));
+                    }
+                }
+
+                public Root() {
+                    super(name("synthetic"));
+                    set(LookupRepositories, new RemoteRepository[] {
+                        MavenContext.createRepository("synthetic",
+                            URI.create("%s"), MvnVersionType.RELEASE)
+                    });
+                    commandAlias("build").projects("**")
+                        .resources(of(JarFileType));
+                }
+            }
+            """.formatted(directory.resolve("repository").toUri());
+    }
+
+    private void generateProject(int index, List<Integer> dependencies) {
+        var deps = new StringBuilder();
+        for (var target : dependencies) {
+            deps.append(String.format(
+                "        dependency(Expose, project(%s.class));%n",
+                projectClass(target)));
+        }
+        int count = Math.min(mavenDependencies, libraries());
+        if (count > 0) {
+            deps.append("""
+                        dependency(Expose, new MvnRepoLookup()
+                            .addRepositories(get(LookupRepositories))
+                            .downloadSources(false).downloadJavadoc(false)
+                            .resolve(%s));
+                """.formatted(IntStream.range(0, count)
+                .mapToObj(m -> "\"" + GROUP_ID + ":"
+                    + libraryName((index * count + m) % libraries()) + ":"
+                    + VERSION + "\"")
+                .collect(Collectors.joining(",\n                "))));
+        }
+        write(configurationSources().resolve(
+            "jdbld/" + projectClass(index) + ".java"), """
+                package jdbld;
+
+                import static org.jdrupes.builder.api.Intent.*;
+                import static org.jdrupes.builder.mvnrepo.MvnProperties.*;
+                import org.jdrupes.builder.core.AbstractProject;
+                import org.jdrupes.builder.java.JavaProject;
+                import org.jdrupes.builder.mvnrepo.MvnRepoLookup;
+
+                public class %s extends AbstractProject implements JavaProject {
+
+                    public %s() {
+                        super(name("%s"));
+                %s    }
+                }
+                """.formatted(projectClass(index), projectClass(index),
+                projectName(index), deps));
+
+        // Sources
+        var pkg = "synthetic." + projectName(index);
+        var pkgDir = directory.resolve(projectName(index))
+            .resolve("src/synthetic").resolve(projectName(index));
+        for (int k = 0; k < sources; k++) {
+            String value;
+            if (k == 0) {
+                value = dependencies.stream()
+                    .map(t -> " + new synthetic." + projectName(t) + "."
+                        + className(0) + "().value()")
+                    .collect(Collectors.joining());
+            } else {
+                value = " + new " + className(k - 1) + "().value()";
+            }
+            write(pkgDir.resolve(className(k) + ".java"), """
+                package %s;
+
+                public class %s {
+
+                    public int value() {
+                        return %d%s;
+                    }
+                }
+                """.formatted(pkg, className(k), k, value));
+        }
+    }
+
+    private void generateLibrary(int index) {
+        var name = libraryName(index);
+        var dependency = "";
+        if (index > 0) {
+            dependency = """
+                  <dependencies>
+                    <dependency>
+                      <groupId>%s</groupId>
+                      <artifactId>%s</artifactId>
+                      <version>%s</version>
+                    </dependency>
+                  </dependencies>
+                """.formatted(GROUP_ID, libraryName((index - 1) / 2), VERSION);
+        }
+        var pom = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <project xmlns="http://maven.apache.org/POM/4.0.0">
+              <modelVersion>4.0.0</modelVersion>
+              <groupId>%s</groupId>
+              <artifactId>%s</artifactId>
+              <version>%s</version>
+            %s</project>
+            """.formatted(GROUP_ID, name, VERSION, dependency);
+        var artifactDir = directory.resolve("repository")
+            .resolve(GROUP_ID.replace('.', '/')).resolve(name)
+            .resolve(VERSION);
+        var baseName = name + "-" + VERSION;
+        writeArtifact(artifactDir.resolve(baseName + ".pom"),
+            pom.getBytes(StandardCharsets.UTF_8));
+        writeArtifact(artifactDir.resolve(baseName + ".jar"), emptyJar());
+    }
+
+    private static byte[] emptyJar() {
+        var manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION,
+            "1.0");
+        var bytes = new ByteArrayOutputStream();
+        try (var _ = new JarOutputStream(bytes, manifest)) {
+            // Only the manifest
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeArtifact(Path path, byte[] content) {
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(path, content);
+            Files.writeString(path.resolveSibling(path.getFileName() + ".sha1"),
+                HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-1").digest(content)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void write(Path path, String content) {
+        try {
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SyntheticBuild [projects=" + projects + ", fanOut=" + fanOut
+            + ", fanIn=" + fanIn + ", sources=" + sources + ", libraries="
+            + libraries() + ", mavenDependencies=" + mavenDependencies + "]";
+    }
+}
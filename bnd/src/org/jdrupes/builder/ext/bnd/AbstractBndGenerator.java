@@ -91,4 +91,22 @@ public abstract class AbstractBndGenerator extends AbstractGenerator {
     protected void applyInstructions(Processor processor) {
         instructions.forEach(t -> processor.setProperty(t._1, t._2));
     }
+
+    /// Add the collected instructions to the given fingerprint.
+    ///
+    /// @param fingerprint the fingerprint
+    ///
+    /* default */ void addInstructions(Fingerprint fingerprint) {
+        instructions.forEach(t -> fingerprint.add(t._1).add(t._2));
+    }
+
+    /// Returns the file used to persist the result of a previous
+    /// invocation.
+    ///
+    /// @param name the name of the file
+    /// @return the path
+    ///
+    /* default */ Path cacheFile(String name) {
+        return project().buildDirectory().resolve("bnd").resolve(name);
+    }
 }
@@ -71,7 +71,12 @@ import org.jdrupes.builder.java.ManifestAttributes;
 /// dependencies.
 ///
 /// The collected class tree and library resources are analyzed by `bndlib`
-/// to produce the manifest attributes requested.
+/// to produce the manifest attributes requested. The result is persisted
+/// as manifest file named after the analyzer (see [#name]) in the
+/// project's build directory together with a fingerprint of the
+/// class trees, the libraries and the instructions. As long as the
+/// fingerprint doesn't change, the persisted result is used and `bndlib`
+/// isn't invoked.
 ///
 /// Contrary to most [ResourceProvider]s, the [BndAnalyzer] needs project
 /// specific informations (supplied as instructions). This can be handled
@@ -135,17 +140,49 @@ public class BndAnalyzer extends AbstractBndGenerator {
     }
 
     @Override
-    @SuppressWarnings("PMD.AvoidCatchingGenericException")
     protected <T extends Resource> Collection<T>
             doProvide(ResourceRequest<T> requested) {
         if (!requested.accepts(ManifestAttributesType)) {
             return Collections.emptyList();
         }
+        // Assemble bundle content
+        var content = Resources.of(ClassTreesType).addAll(project()
+            .providers().resources(of(ClassTreeType).using(Supply)));
+        var bundleDeps = Resources.of(
+            new ResourceType<Resources<LibraryJarFile>>() {}).addAll(
+                project().providers(Consume, Reveal, Expose)
+                    .resources(project().of(LibraryJarFileType)));
+
+        // Reuse the manifest from the previous invocation if unchanged
+        var fingerprint = new Fingerprint();
+        content.stream().forEach(fingerprint::add);
+        bundleDeps.stream().forEach(dep -> fingerprint.add(dep.path()));
+        addInstructions(fingerprint);
+        var key = fingerprint.value();
+        var cacheFile = cacheFile(name().replaceAll("[^\\w.-]", "_")
+            + ".MF");
+        var cached = Fingerprint.loadManifest(cacheFile, key);
+        Manifest manifest;
+        if (cached.isPresent()) {
+            logger.atFine().log("Manifest for %s is up to date", project());
+            manifest = cached.get();
+        } else {
+            manifest = analyze(content, bundleDeps);
+            verifyManifest(manifest);
+            Fingerprint.storeManifest(cacheFile, key, manifest);
+        }
+        var asResource = ManifestAttributes.create();
+        asResource.putAll(manifest.getMainAttributes());
+        @SuppressWarnings("unchecked")
+        var result = (T) asResource;
+        return List.of(result);
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private Manifest analyze(Resources<ClassTree> content,
+            Resources<LibraryJarFile> bundleDeps) {
         try (var analyzer = new Analyzer();
                 var jar = new aQute.bnd.osgi.Jar("dot")) {
-            // Assemble bundle content
-            var content = Resources.of(ClassTreesType).addAll(project()
-                .providers().resources(of(ClassTreeType).using(Supply)));
             // A bnd ("better never document") Jar can actually be a
             // classfile tree, and several such "Jar"s can be merged.
             // IOException will be thrown (.get()) and handled in the outer try
@@ -155,10 +192,6 @@ public class BndAnalyzer extends AbstractBndGenerator {
             applyInstructions(analyzer);
 
             // Add classpath dependencies
-            var bundleDeps = Resources.of(
-                new ResourceType<Resources<LibraryJarFile>>() {}).addAll(
-                    project().providers(Consume, Reveal, Expose)
-                        .resources(project().of(LibraryJarFileType)));
             logger.atFiner().log("BndAnalyzer in"
                 + " %s uses dependencies %s", project(),
                 lazy(() -> bundleDeps.stream().map(e -> e.path().toString())
@@ -167,14 +200,8 @@ public class BndAnalyzer extends AbstractBndGenerator {
             vavrStream(bundleDeps).forEach(dep -> Try
                 .run(() -> analyzer.addClasspath(dep.path().toFile())).get());
 
-            // Evaluate and convert to result type
-            var manifest = analyzer.calcManifest();
-            verifyManifest(manifest);
-            var asResource = ManifestAttributes.create();
-            asResource.putAll(manifest.getMainAttributes());
-            @SuppressWarnings("unchecked")
-            var result = (T) asResource;
-            return List.of(result);
+            // Evaluate
+            return analyzer.calcManifest();
         } catch (Exception e) {
             throw new BuildException().from(this).cause(e);
         }
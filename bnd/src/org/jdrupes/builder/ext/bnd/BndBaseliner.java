@@ -39,6 +39,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Properties;
 import org.jdrupes.builder.api.BuildException;
 import static org.jdrupes.builder.api.CoreProperties.*;
 import org.jdrupes.builder.api.Generator;
@@ -48,6 +49,7 @@ import org.jdrupes.builder.api.Resource;
 import org.jdrupes.builder.api.ResourceRequest;
 import org.jdrupes.builder.api.ResourceType;
 import org.jdrupes.builder.api.Resources;
+import org.jdrupes.builder.core.FileMetadataCache;
 import static org.jdrupes.builder.ext.bnd.BndTypes.*;
 import static org.jdrupes.builder.java.JavaTypes.*;
 import org.jdrupes.builder.java.LibraryJarFile;
@@ -70,6 +72,12 @@ import org.jdrupes.builder.mvnrepo.PomFileGenerator;
 /// `-diffignore` and `-diffpackages` are supported and forwarded to
 /// `bndlib`.
 /// 
+/// The result of the evaluation is persisted in the project's build
+/// directory together with a fingerprint of the current bundle, the
+/// baseline bundle and the instructions. As long as the fingerprint
+/// doesn't change, the persisted result is used and `bndlib` isn't
+/// invoked.
+/// 
 /// This provider is made available as an extension.
 /// [![org.jdrupes:jdbld-ext-bnd:](
 /// https://img.shields.io/maven-metadata/v?metadataUrl=https%3A%2F%2Fcodeberg.org%2Fapi%2Fpackages%2FJDrupes%2Fmaven%2Forg%2Fjdrupes%2Fjdbld-ext-bnd%2Fmaven-metadata.xml&strategy=releaseProperty)
@@ -78,6 +86,9 @@ import org.jdrupes.builder.mvnrepo.PomFileGenerator;
 public class BndBaseliner extends AbstractBndGenerator {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final String BSN = "bsn";
+    private static final String REPORT = "report";
+    private static final String REASON = "reason";
     private boolean ignoreMismatched;
 
     /// Initializes a new bnd baseliner.
@@ -184,11 +195,42 @@ public class BndBaseliner extends AbstractBndGenerator {
         }
         logger.atFinest().log("Baselining against %s", baselineJar);
 
-        return Optional.of(bndBaseline(baselineJar.get(), lib));
+        // Reuse the evaluation from the previous invocation if unchanged
+        var fingerprint = new Fingerprint().add(lib.path())
+            .add(baselineJar.get().path())
+            .add(Boolean.toString(ignoreMismatched));
+        addInstructions(fingerprint);
+        var key = fingerprint.value();
+        var cacheFile = cacheFile(lib.path().getFileName() + "-baseline"
+            + ".properties");
+        var cached = Fingerprint.load(cacheFile, key)
+            .filter(p -> Files.exists(Path.of(p.getProperty(REPORT))));
+        if (cached.isPresent()) {
+            logger.atFine().log("Baseline evaluation of %s is up to date",
+                lib);
+            var props = cached.get();
+            var result = new DefaultBndBaselineEvaluation(
+                BndBaselineEvaluationType, project(),
+                baselineJar.get().path()).name(props.getProperty(BSN))
+                    .withReportLocation(Path.of(props.getProperty(REPORT)));
+            if (props.containsKey(REASON)) {
+                result.setFaulty().withReason(props.getProperty(REASON));
+            }
+            return Optional.of(result);
+        }
+        var result = bndBaseline(baselineJar.get(), lib);
+        var props = new Properties();
+        props.setProperty(BSN, result.name().orElse(""));
+        props.setProperty(REPORT, result.reportLocation().toString());
+        if (result.isFaulty()) {
+            props.setProperty(REASON, result.reason().orElse(""));
+        }
+        Fingerprint.store(cacheFile, key, props);
+        return Optional.of(result);
     }
 
     @SuppressWarnings("PMD.AvoidCatchingGenericException")
-    private BndBaselineEvaluation bndBaseline(LibraryJarFile baseline,
+    private DefaultBndBaselineEvaluation bndBaseline(LibraryJarFile baseline,
             LibraryJarFile current) {
         try (Processor processor = new Processor();
                 Jar baselineJar = new Jar(baseline.path().toFile());
@@ -280,6 +322,8 @@ public class BndBaseliner extends AbstractBndGenerator {
             fmt.flush();
         } catch (Exception e) {
             throw new BuildException().from(this).cause(e);
+        } finally {
+            FileMetadataCache.invalidate(reportLocation);
         }
         return reportLocation;
     }
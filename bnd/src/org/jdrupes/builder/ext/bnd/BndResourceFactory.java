@@ -39,6 +39,11 @@ public class BndResourceFactory implements ResourceFactory {
         // Make javadoc happy
     }
 
+    @Override
+    public boolean handles(ResourceType<?> type) {
+        return BndBaselineEvaluationType.isAssignableFrom(type);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <T extends Resource> Optional<T> newResource(ResourceType<T> type,
@@ -0,0 +1,208 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.ext.bnd;
+
+import com.google.common.flogger.FluentLogger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import org.jdrupes.builder.api.FileTree;
+
+/// Computes a fingerprint of the inputs of a bnd operation. Files
+/// contribute their path, size and modification time, which is
+/// sufficient to detect changes made by a build and avoids reading
+/// the content.
+///
+/// The class also provides the methods for persisting results
+/// together with the fingerprint of the inputs that they were
+/// derived from.
+///
+final class Fingerprint {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    /// The key under which the fingerprint is stored.
+    /* default */ static final String KEY = "fingerprint";
+    /// The main attribute under which the fingerprint is stored in
+    /// a manifest.
+    /* default */ static final Attributes.Name ATTRIBUTE
+        = new Attributes.Name("Jdbld-Fingerprint");
+    private final MessageDigest digest;
+
+    /// Initializes a new fingerprint.
+    ///
+    /* default */ Fingerprint() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /// Adds the given string.
+    ///
+    /// @param value the value
+    /// @return the fingerprint
+    ///
+    /* default */ Fingerprint add(String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return this;
+    }
+
+    /// Adds the path, size and modification time of the given file.
+    ///
+    /// @param file the file
+    /// @return the fingerprint
+    ///
+    /* default */ Fingerprint add(Path file) {
+        add(file.toString());
+        try {
+            var attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            add(Long.toString(attrs.size()));
+            add(attrs.lastModifiedTime().toString());
+        } catch (IOException e) {
+            add("missing");
+        }
+        return this;
+    }
+
+    /// Adds all files from the given tree in a stable order.
+    ///
+    /// @param tree the tree
+    /// @return the fingerprint
+    ///
+    /* default */ Fingerprint add(FileTree<?> tree) {
+        var root = tree.root();
+        add(root.toString());
+        tree.paths().map(Path::toString).sorted()
+            .forEach(p -> add(root.resolve(p)));
+        return this;
+    }
+
+    /// Returns the fingerprint as hex string.
+    ///
+    /// @return the string
+    ///
+    /* default */ String value() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /// Loads the properties stored in `file` if they have been stored
+    /// with the given fingerprint.
+    ///
+    /// @param file the file
+    /// @param fingerprint the fingerprint
+    /// @return the properties
+    ///
+    /* default */ static Optional<Properties> load(Path file,
+            String fingerprint) {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        var props = new Properties();
+        try (var input = Files.newInputStream(file)) {
+            props.load(input);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        if (!fingerprint.equals(props.getProperty(KEY))) {
+            return Optional.empty();
+        }
+        props.remove(KEY);
+        return Optional.of(props);
+    }
+
+    /// Stores the given properties together with the fingerprint.
+    /// Failures are logged only, the result will simply be recomputed.
+    ///
+    /// @param file the file
+    /// @param fingerprint the fingerprint
+    /// @param props the properties
+    ///
+    /* default */ static void store(Path file, String fingerprint,
+            Properties props) {
+        var toStore = new Properties();
+        toStore.putAll(props);
+        toStore.setProperty(KEY, fingerprint);
+        try {
+            Files.createDirectories(file.getParent());
+            try (var output = Files.newOutputStream(file)) {
+                toStore.store(output, null);
+            }
+        } catch (IOException e) {
+            logger.atWarning().withCause(e).log("Cannot store %s", file);
+        }
+    }
+
+    /// Loads the manifest stored in `file` if it has been stored
+    /// with the given fingerprint. Contrary to properties, this
+    /// preserves the order of the attributes.
+    ///
+    /// @param file the file
+    /// @param fingerprint the fingerprint
+    /// @return the manifest
+    ///
+    /* default */ static Optional<Manifest> loadManifest(Path file,
+            String fingerprint) {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        Manifest manifest;
+        try (var input = Files.newInputStream(file)) {
+            manifest = new Manifest(input);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        if (!fingerprint.equals(manifest.getMainAttributes().remove(
+            ATTRIBUTE))) {
+            return Optional.empty();
+        }
+        return Optional.of(manifest);
+    }
+
+    /// Stores the given manifest together with the fingerprint.
+    /// Failures are logged only, the result will simply be recomputed.
+    ///
+    /// @param file the file
+    /// @param fingerprint the fingerprint
+    /// @param manifest the manifest
+    ///
+    /* default */ static void storeManifest(Path file, String fingerprint,
+            Manifest manifest) {
+        var toStore = new Manifest(manifest);
+        toStore.getMainAttributes().put(ATTRIBUTE, fingerprint);
+        try {
+            Files.createDirectories(file.getParent());
+            try (var output = Files.newOutputStream(file)) {
+                toStore.write(output);
+            }
+        } catch (IOException e) {
+            logger.atWarning().withCause(e).log("Cannot store %s", file);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.jdrupes.builder.ext.bnd;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FingerprintTests {
+
+    @TempDir
+    Path tempDir;
+
+    private static Manifest manifest() {
+        var manifest = new Manifest();
+        var attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Bundle-SymbolicName", "test.bundle");
+        attributes.putValue("Bundle-Version", "1.2.3");
+        attributes.putValue("Export-Package", "test.bundle.api;version=\""
+            + "1.2.3\";uses:=\"test.bundle.spi,test.bundle.util\","
+            + "test.bundle.spi;version=\"1.0.0\"");
+        attributes.putValue("Import-Package", "java.lang");
+        attributes.putValue("Bnd-LastModified", "1700000000000");
+        return manifest;
+    }
+
+    private static List<String> names(Manifest manifest) {
+        return manifest.getMainAttributes().keySet().stream()
+            .map(Object::toString).toList();
+    }
+
+    @Test
+    void testManifestHit() {
+        var file = tempDir.resolve("bnd/BndAnalyzer.MF");
+        var manifest = manifest();
+        Fingerprint.storeManifest(file, "key1", manifest);
+        var loaded = Fingerprint.loadManifest(file, "key1");
+        assertTrue(loaded.isPresent());
+        // Same attributes in the same order, without the fingerprint
+        assertEquals(manifest.getMainAttributes(),
+            loaded.get().getMainAttributes());
+        assertEquals(names(manifest), names(loaded.get()));
+        // The stored manifest is not modified
+        assertNull(manifest.getMainAttributes().get(Fingerprint.ATTRIBUTE));
+    }
+
+    @Test
+    void testManifestMiss() throws IOException {
+        var file = tempDir.resolve("bnd/BndAnalyzer.MF");
+        assertTrue(Fingerprint.loadManifest(file, "key1").isEmpty());
+        Fingerprint.storeManifest(file, "key1", manifest());
+        assertTrue(Fingerprint.loadManifest(file, "key2").isEmpty());
+
+        // A manifest without fingerprint doesn't match
+        try (var output = Files.newOutputStream(file)) {
+            manifest().write(output);
+        }
+        assertTrue(Fingerprint.loadManifest(file, "key1").isEmpty());
+    }
+
+    @Test
+    void testSeparateAnalyzers() {
+        var first = tempDir.resolve("bnd/first.MF");
+        var second = tempDir.resolve("bnd/second.MF");
+        var other = manifest();
+        other.getMainAttributes().putValue("Bundle-SymbolicName", "other");
+        Fingerprint.storeManifest(first, "key1", manifest());
+        Fingerprint.storeManifest(second, "key2", other);
+        assertEquals("test.bundle", Fingerprint.loadManifest(first, "key1")
+            .get().getMainAttributes().getValue("Bundle-SymbolicName"));
+        assertEquals("other", Fingerprint.loadManifest(second, "key2")
+            .get().getMainAttributes().getValue("Bundle-SymbolicName"));
+    }
+
+    @Test
+    void testInvalidation() throws IOException {
+        var input = tempDir.resolve("classes/Test.class");
+        Files.createDirectories(input.getParent());
+        Files.writeString(input, "content");
+        var key = new Fingerprint().add(input).add("-exportcontents")
+            .add("*").value();
+        assertEquals(key, new Fingerprint().add(input)
+            .add("-exportcontents").add("*").value());
+
+        var file = tempDir.resolve("bnd/BndAnalyzer.MF");
+        Fingerprint.storeManifest(file, key, manifest());
+        assertTrue(Fingerprint.loadManifest(file, key).isPresent());
+
+        // Changed instructions
+        var changed = new Fingerprint().add(input).add("-exportcontents")
+            .add("test.*").value();
+        assertNotEquals(key, changed);
+        assertTrue(Fingerprint.loadManifest(file, changed).isEmpty());
+
+        // Changed modification time
+        Files.setLastModifiedTime(input, FileTime.fromMillis(
+            Files.getLastModifiedTime(input).toMillis() + 1000));
+        changed = new Fingerprint().add(input).add("-exportcontents")
+            .add("*").value();
+        assertNotEquals(key, changed);
+        assertTrue(Fingerprint.loadManifest(file, changed).isEmpty());
+
+        // Removed input
+        Files.delete(input);
+        assertNotEquals(changed, new Fingerprint().add(input)
+            .add("-exportcontents").add("*").value());
+    }
+
+    @Test
+    void testProperties() {
+        var file = tempDir.resolve("bnd/lib.jar-baseline.properties");
+        var props = new Properties();
+        props.setProperty("bsn", "test.bundle");
+        Fingerprint.store(file, "key1", props);
+        assertEquals(props, Fingerprint.load(file, "key1").get());
+        assertTrue(Fingerprint.load(file, "key2").isEmpty());
+    }
+}
@@ -72,6 +72,8 @@ public abstract class AbstractGenerator extends AbstractProvider
                 Files.deleteIfExists(file);
             } catch (IOException e) {
                 logger.atWarning().log("%s cannot be deleted.", file);
+            } finally {
+                FileMetadataCache.invalidate(file);
             }
         }
         return true;
@@ -1,6 +1,6 @@
 /*
  * JDrupes Builder
- * Copyright (C) 2025 Michael N. Lipp
+ * Copyright (C) 2025, 2026 Michael N. Lipp
  * 
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU Affero General Public License as
@@ -25,7 +25,9 @@ import java.lang.reflect.Proxy;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import static java.util.function.Predicate.not;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -51,6 +53,17 @@ import org.jdrupes.builder.api.ZipFile;
 ///
 public class CoreResourceFactory implements ResourceFactory {
 
+    /// The results of checking if a wanted type (the class value's key)
+    /// can be created from an implemented type (the map's key).
+    @SuppressWarnings("PMD.FieldNamingConventions")
+    private static final ClassValue<Map<Class<?>, Boolean>> narrowable
+        = new ClassValue<>() {
+            @Override
+            protected Map<Class<?>, Boolean> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
     /// Instantiates a new core resource factory.
     ///
     public CoreResourceFactory() {
@@ -72,11 +85,16 @@ public class CoreResourceFactory implements ResourceFactory {
     ///  3. The wanted type does not add any methods to the
     ///     implemented type.
     /// 
-    /// The implementation uses a dynamic proxy to wrap the
-    /// implemented instance together with a [ForwardingHandler],
-    /// that simply forwards all invocations to the proxied object
-    /// (hence the requirement that the wanted type does not add
-    /// any methods to the implemented type).
+    /// The result of checking these conditions is remembered for each
+    /// combination of wanted and implemented type.
+    ///
+    /// If the supplied instance implements the wanted type already
+    /// (usually because the wanted type is the implemented type), it
+    /// is returned as is. Else, the implementation uses a dynamic proxy
+    /// to wrap the implemented instance together with a
+    /// [ForwardingHandler], that simply forwards all invocations to
+    /// the proxied object (hence the requirement that the wanted type
+    /// does not add any methods to the implemented type).
     ///
     /// @param <T> the wanted type
     /// @param <I> the implemented (available) type
@@ -89,11 +107,12 @@ public class CoreResourceFactory implements ResourceFactory {
     public static <T extends Resource, I extends Resource> Optional<T>
             createNarrowed(ResourceType<T> wanted, Class<I> implemented,
                     Supplier<? extends I> supplier) {
-        if (implemented.isAssignableFrom(wanted.rawType())
-            // we now know that T extends I
-            && wanted.rawType().getSuperclass() == null
-            && !addsMethod(implemented,
-                (Class<? extends I>) wanted.rawType())) {
+        if (narrowable.get(wanted.rawType()).computeIfAbsent(implemented,
+            _ -> implemented.isAssignableFrom(wanted.rawType())
+                // we now know that T extends I
+                && wanted.rawType().getSuperclass() == null
+                && !addsMethod(implemented,
+                    (Class<? extends I>) wanted.rawType()))) {
             return Optional.of(narrow(wanted, supplier.get()));
         }
         return Optional.empty();
@@ -123,6 +142,9 @@ public class CoreResourceFactory implements ResourceFactory {
     @SuppressWarnings({ "unchecked" })
     private static <T extends Resource> T narrow(ResourceType<T> type,
             Resource instance) {
+        if (type.rawType().isInstance(instance)) {
+            return (T) instance;
+        }
         return (T) Proxy.newProxyInstance(type.rawType().getClassLoader(),
             new Class<?>[] { type.rawType(), Proxyable.class },
             new ForwardingHandler(instance));
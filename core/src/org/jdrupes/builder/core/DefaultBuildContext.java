@@ -23,21 +23,23 @@ import static com.google.common.flogger.LazyArgs.lazy;
 import java.io.PrintStream;
 import java.nio.file.Path;
 import java.util.Collection;
-import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.cli.CommandLine;
 import org.jdrupes.builder.api.BuildContext;
 import org.jdrupes.builder.api.BuildException;
 import org.jdrupes.builder.api.ConfigurationException;
-import org.jdrupes.builder.api.Intent;
 import org.jdrupes.builder.api.Project;
 import org.jdrupes.builder.api.Resource;
 import org.jdrupes.builder.api.ResourceProvider;
@@ -48,9 +50,21 @@ import org.jdrupes.builder.core.console.SplitConsole;
 
 /// A context for building.
 ///
+/// By default, the build fails fast. When a [FutureStream] fails, all
+/// other future streams are cancelled, because the build cannot succeed
+/// anyway. Future streams created afterwards are cancelled immediately.
+/// Consumers of a cancelled stream get a [BuildException] with the
+/// first failure as cause. If the command line has the option
+/// `--keep-going` (see [#KEEP_GOING]), the remaining future streams
+/// continue, so independent projects can complete. In that case, only
+/// the consumers of the failed results fail.
+///
 public class DefaultBuildContext implements BuildContext {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    /// The long name of the command line option that disables
+    /// cancelling the build after the first failure.
+    public static final String KEEP_GOING = "keep-going";
     @SuppressWarnings("PMD.FieldNamingConventions")
     private static final ScopedValue<AtomicBoolean> providerInvocationAllowed
         = ScopedValue.newInstance();
@@ -66,6 +80,14 @@ public class DefaultBuildContext implements BuildContext {
     private final SplitConsole console;
     private final CompletableFuture<AbstractRootProject> buildProject
         = new CompletableFuture<>();
+    private final List<Runnable> closeActions = new CopyOnWriteArrayList<>();
+    private final boolean keepGoing;
+    private final AtomicReference<Throwable> firstFailure
+        = new AtomicReference<>();
+    private volatile boolean succeeded;
+    private final InvocationHistory history;
+    private final PriorityGate gate = new PriorityGate();
+    private final FileMetadataCache fileMetadata = new FileMetadataCache();
     @SuppressWarnings("PMD.FieldNamingConventions")
     private static final ScopedValue<RequestChainLink> requestChainEnd
         = ScopedValue.newInstance();
@@ -74,13 +96,91 @@ public class DefaultBuildContext implements BuildContext {
         ScopedValueContext.add(requestChainEnd);
     }
 
-    /// A link in the call chain.
+    /// A link in the call chain. Every link has a (bloom) filter with
+    /// the hash codes of all invocations in the chain up to and including
+    /// the link. It is used to avoid walking the chain when checking
+    /// for loops.
     ///
-    /// @param previous the previous
-    /// @param invocation the invocation
+    /// The link also owns the bindings made while it is the end of
+    /// the chain. It therefore caches the last snapshot taken in its
+    /// scope (see [ScopedValueContext#snapshot]).
     ///
-    public record RequestChainLink(RequestChainLink previous,
-            ProviderInvocation<?> invocation) {
+    public static final class RequestChainLink
+            implements ScopedValueContext.SnapshotOwner {
+        private final RequestChainLink previous;
+        private final ProviderInvocation<?> invocation;
+        private final long filter;
+        private volatile ScopedValueContext.Snapshot lastSnapshot;
+
+        /// Creates a new link, deriving the filter from the previous
+        /// link and the invocation.
+        ///
+        /// @param previous the previous
+        /// @param invocation the invocation
+        ///
+        public RequestChainLink(RequestChainLink previous,
+                ProviderInvocation<?> invocation) {
+            this.previous = previous;
+            this.invocation = invocation;
+            filter = (previous == null ? 0 : previous.filter)
+                | bits(invocation);
+        }
+
+        /// Returns the previous link.
+        ///
+        /// @return the previous link or `null`
+        ///
+        public RequestChainLink previous() {
+            return previous;
+        }
+
+        /// Returns the invocation.
+        ///
+        /// @return the invocation
+        ///
+        public ProviderInvocation<?> invocation() {
+            return invocation;
+        }
+
+        /// Returns the filter.
+        ///
+        /// @return the filter
+        ///
+        public long filter() {
+            return filter;
+        }
+
+        @Override
+        public ScopedValueContext.Snapshot lastSnapshot() {
+            return lastSnapshot;
+        }
+
+        @Override
+        public void lastSnapshot(ScopedValueContext.Snapshot snapshot) {
+            lastSnapshot = snapshot;
+        }
+
+        private static long bits(ProviderInvocation<?> invocation) {
+            int hash = invocation.hashCode();
+            return (1L << (hash & 63)) | (1L << ((hash >>> 6) & 63));
+        }
+
+        /// Checks if the chain up to and including this link contains
+        /// the given invocation.
+        ///
+        /// @param invocation the invocation
+        /// @return true, if successful
+        ///
+        public boolean contains(ProviderInvocation<?> invocation) {
+            long bits = bits(invocation);
+            for (var link = this; link != null && (link.filter & bits) == bits;
+                    link = link.previous) {
+                if (invocation.equals(link.invocation)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     /// Initializes a new default build context. By default, the build
@@ -97,7 +197,9 @@ public class DefaultBuildContext implements BuildContext {
         this.buildRoot = buildRoot;
         this.jdbldProperties = jdbldProperties;
         this.commandLine = commandLine;
+        keepGoing = commandLine != null && commandLine.hasOption(KEEP_GOING);
         cache = new FutureStreamCache();
+        history = new InvocationHistory(this);
         console = SplitConsole.open();
     }
 
@@ -117,6 +219,85 @@ public class DefaultBuildContext implements BuildContext {
         this.executor = executor;
     }
 
+    /// Checks if the build continues after a failure.
+    ///
+    /// @return true, if the option `--keep-going` has been specified
+    ///
+    public boolean keepGoing() {
+        return keepGoing;
+    }
+
+    /// Records the failure of a [FutureStream]'s evaluation. Unless
+    /// [#keepGoing] is set, the first failure cancels all future
+    /// streams.
+    ///
+    /// @param stream the failed stream
+    /// @param cause the cause
+    ///
+    /* default */ void failed(FutureStream<?> stream, Throwable cause) {
+        if (!firstFailure.compareAndSet(null, cause) || keepGoing) {
+            return;
+        }
+        logger.atFine().log("%s failed, cancelling build", stream);
+        cache.cancelAll();
+    }
+
+    /// Returns the first failure recorded with [#failed].
+    ///
+    /// @return the failure
+    ///
+    /* default */ Optional<Throwable> firstFailure() {
+        return Optional.ofNullable(firstFailure.get());
+    }
+
+    /// Marks the build as successful. The [InvocationHistory] is only
+    /// stored when the context is closed after a successful build.
+    /// Otherwise, the history of the previous execution is kept,
+    /// because the invocations recorded by a failed build are
+    /// incomplete.
+    ///
+    public void succeeded() {
+        succeeded = true;
+    }
+
+    /// Checks if the build is being cancelled because of a failure.
+    ///
+    /// @return true, if cancelling
+    ///
+    /* default */ boolean isCancelling() {
+        return !keepGoing && firstFailure.get() != null;
+    }
+
+    /// Returns the gate that limits the number of concurrently
+    /// evaluated invocations.
+    ///
+    /// @return the gate
+    ///
+    /* default */ PriorityGate gate() {
+        return gate;
+    }
+
+    /// Returns the priority of the invocation derived from the
+    /// previous execution of the command (see [InvocationHistory]).
+    ///
+    /// @param invocation the invocation
+    /// @return the priority
+    ///
+    /* default */ long priority(ProviderInvocation<?> invocation) {
+        return Optional.ofNullable(buildProject.getNow(null))
+            .map(root -> history.priority(root, invocation)).orElse(0L);
+    }
+
+    /// Records the time that the evaluation of an invocation took.
+    ///
+    /// @param invocation the invocation
+    /// @param millis the duration in milliseconds
+    ///
+    /* default */ void finished(ProviderInvocation<?> invocation,
+            long millis) {
+        history.finished(invocation, millis);
+    }
+
     /// Executing future streams.
     ///
     /// @return the awaitable counter
@@ -199,7 +380,7 @@ public class DefaultBuildContext implements BuildContext {
         // Normalize request, non-project providers don't get intends
         var invocation = new ProviderInvocation<>(provider,
             provider instanceof Project || request.uses().isEmpty() ? request
-                : request.using(EnumSet.noneOf(Intent.class)));
+                : request.using(Set.of()));
         return inScopeForProviderCall()
             .call(() -> inResourcesContext(invocation));
     }
@@ -217,6 +398,8 @@ public class DefaultBuildContext implements BuildContext {
                     new AtomicBoolean(true)).call(() -> invokeSpi(invocation)));
         }
         if (!invocation.request().type().equals(CleanlinessType)) {
+            history.invoked(FutureStream.currentInvocation.orElse(null),
+                invocation);
             return cache.computeIfAbsent(invocation,
                 k -> new FutureStream<T>(k)).stream();
         }
@@ -236,7 +419,6 @@ public class DefaultBuildContext implements BuildContext {
         return result;
     }
 
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     private <T extends Resource> Collection<T>
             invokeSpi(ProviderInvocation<T> invocation) {
         return ScopedValue.where(requestChainEnd, new RequestChainLink(
@@ -249,20 +431,52 @@ public class DefaultBuildContext implements BuildContext {
                         .stream().map(ProviderInvocation::toString)
                         .collect(Collectors.joining(" ≪ "))));
                 var prev = requestChainEnd.get().previous;
-                while (prev != null) {
-                    if (invocation.equals(prev.invocation())) {
-                        throw new BuildException().message("Request loop: %s",
-                            requestChain().stream()
-                                .map(ProviderInvocation::toString)
-                                .collect(Collectors.joining(" ≪ ")));
-                    }
-                    prev = prev.previous;
+                if (prev != null && prev.contains(invocation)) {
+                    throw new BuildException().message("Request loop: %s",
+                        requestChain().stream()
+                            .map(ProviderInvocation::toString)
+                            .collect(Collectors.joining(" ≪ ")));
                 }
                 return ((AbstractProvider) invocation.provider()).toSpi()
                     .provide(invocation.request());
             });
     }
 
+    /// Loads the history of the previous execution of the command
+    /// and starts the invocations predicted from it (see
+    /// [InvocationHistory]). If the property [PriorityGate#SLOTS]
+    /// is set, the number of concurrently evaluated invocations is
+    /// limited (see [PriorityGate]) and the invocations on the critical
+    /// path, as derived from the history, are evaluated first.
+    ///
+    /// @param root the root project
+    ///
+    /* default */ void prefetch(AbstractRootProject root) {
+        history.load(root);
+        var slots = property(PriorityGate.SLOTS, null);
+        if (slots != null) {
+            try {
+                gate.limit(Integer.parseInt(slots.trim()));
+            } catch (NumberFormatException e) {
+                throw new ConfigurationException().cause(e)
+                    .message("Invalid value for %s", PriorityGate.SLOTS);
+            }
+        }
+        startRequestChain(inScopeForProviderCall())
+            .run(() -> history.prefetch(root));
+    }
+
+    /// Starts the evaluation of the given invocation unless it has
+    /// been started already.
+    ///
+    /// @param <T> the generic type
+    /// @param invocation the invocation
+    ///
+    /* default */ <T extends Resource> void
+            prefetch(ProviderInvocation<T> invocation) {
+        cache.computeIfAbsent(invocation, k -> new FutureStream<>(k, true));
+    }
+
     /* default */ List<ProviderInvocation<?>> requestChain() {
         var cur = requestChainEnd.isBound() ? requestChainEnd.get() : null;
         List<ProviderInvocation<?>> result = new LinkedList<>();
@@ -283,10 +497,53 @@ public class DefaultBuildContext implements BuildContext {
             && providerInvocationAllowed.get().getAndSet(false);
     }
 
+    /// Registers an action that is run when the context is closed, i.e.
+    /// at the end of the build. The actions are run in the order in which
+    /// they have been registered and before the executor is shut down.
+    /// They may therefore still wait for tasks that they have submitted
+    /// to the [#executor] and use the console.
+    ///
+    /// If an action throws a [BuildException], the remaining actions are
+    /// run nevertheless and the (first) exception is rethrown by [#close]
+    /// after the context has been closed.
+    ///
+    /// @param action the action
+    ///
+    public void onClose(Runnable action) {
+        closeActions.add(action);
+    }
+
     @Override
     public void close() {
+        BuildException failure = null;
+        for (var action : closeActions) {
+            try {
+                action.run();
+            } catch (BuildException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (succeeded && failure == null && firstFailure.get() == null) {
+            Optional.ofNullable(buildProject.getNow(null))
+                .ifPresent(history::store);
+        }
         executor.shutdownNow();
         console.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /// Returns the cache for file metadata used during this build.
+    ///
+    /// @return the cache
+    ///
+    /* default */ FileMetadataCache fileMetadata() {
+        return fileMetadata;
     }
 
     /* default */ CompletableFuture<AbstractRootProject> buildProject() {
@@ -18,6 +18,7 @@
 
 package org.jdrupes.builder.core;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -33,6 +34,10 @@ import org.jdrupes.builder.api.ResourceType;
 
 /// A resource that represents a file.
 ///
+/// The name of the resource is the path relative to the current
+/// working directory. It is derived from the path when requested,
+/// the instance only stores the type and the path.
+///
 public class DefaultFileResource extends ResourceObject
         implements FileResource {
 
@@ -43,7 +48,6 @@ public class DefaultFileResource extends ResourceObject
     /// @param type the type
     /// @param path the absolute path of the file
     ///
-    @SuppressWarnings("PMD.ConstructorCallsOverridableMethod")
     protected DefaultFileResource(ResourceType<? extends FileResource> type,
             Path path) {
         super(type);
@@ -51,8 +55,6 @@ public class DefaultFileResource extends ResourceObject
             throw new ConfigurationException().message(
                 "Path must be absolute, is %s", path);
         }
-        var relPath = Path.of("").toAbsolutePath().relativize(path);
-        name(relPath.equals(Path.of("")) ? "." : relPath.toString());
         this.path = path;
     }
 
@@ -65,12 +67,37 @@ public class DefaultFileResource extends ResourceObject
         return path;
     }
 
+    /// Returns the path relative to the current working directory.
+    ///
+    /// @return the name
+    ///
+    @Override
+    public Optional<String> name() {
+        var relPath = Path.of("").toAbsolutePath().relativize(path);
+        return Optional.of(relPath.toString().isEmpty() ? "."
+            : relPath.toString());
+    }
+
+    /// The name of a file resource is derived from its path and
+    /// cannot be set.
+    ///
+    /// @param name the name
+    /// @return the resource object
+    ///
+    @Override
+    public ResourceObject name(String name) {
+        throw new IllegalStateException(
+            "The name of a file resource is derived from its path.");
+    }
+
+    @Override
+    public boolean isLocked() {
+        return true;
+    }
+
     @Override
     public Optional<Instant> asOf() {
-        if (!path.toFile().exists()) {
-            return Optional.empty();
-        }
-        return Optional.of(Instant.ofEpochMilli(path.toFile().lastModified()));
+        return FileMetadataCache.lastModified(path);
     }
 
     @Override
@@ -84,19 +111,39 @@ public class DefaultFileResource extends ResourceObject
 
     @Override
     public OutputStream outputStream() {
+        FileMetadataCache.invalidate(path);
         try {
-            return Files.newOutputStream(path);
+            return new FilterOutputStream(Files.newOutputStream(path)) {
+                @Override
+                public void write(byte[] data, int offset, int length)
+                        throws IOException {
+                    out.write(data, offset, length);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        // Reads while writing may have cached stale data
+                        FileMetadataCache.invalidate(path);
+                    }
+                }
+            };
         } catch (IOException e) {
             throw new BuildException().cause(e);
         }
     }
 
+    @Override
+    public void cleanup() {
+        FileResource.super.cleanup();
+        FileMetadataCache.invalidate(path);
+    }
+
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = super.hashCode();
-        result = prime * result + Objects.hash(path);
-        return result;
+        return Objects.hash(type(), path);
     }
 
     @Override
@@ -104,10 +151,10 @@ public class DefaultFileResource extends ResourceObject
         if (this == obj) {
             return true;
         }
-        if (!super.equals(obj)) {
-            return false;
-        }
-        return (obj instanceof FileResource other)
-            && Objects.equals(path, other.path());
+        // The name is derived from the path, no need to compare it
+        return (obj instanceof ResourceObject other)
+            && (obj instanceof FileResource file)
+            && Objects.equals(type(), other.type())
+            && Objects.equals(path, file.path());
     }
 }
@@ -19,23 +19,25 @@
 package org.jdrupes.builder.core;
 
 import com.google.common.flogger.FluentLogger;
-import io.github.azagniotov.matcher.AntPathMatcher;
 import java.io.IOException;
-import java.nio.file.AccessDeniedException;
-import java.nio.file.FileVisitResult;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.SequencedSet;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import org.jdrupes.builder.api.BuildException;
+import org.jdrupes.builder.api.ConfigurationException;
 import org.jdrupes.builder.api.FileResource;
 import org.jdrupes.builder.api.FileTree;
 import org.jdrupes.builder.api.Project;
@@ -44,21 +46,61 @@ import org.jdrupes.builder.api.ResourceType;
 
 /// The default implementation of a [FileTree].
 ///
+/// Trees are walked sequentially by default. Once a walk has visited
+/// many paths (see [#PARALLEL_THRESHOLD]), the remaining directories
+/// are listed in parallel. This applies to filling the tree as well as
+/// to [#cleanup].
+///
+/// During a build, the result of a scan is shared by all trees with the
+/// same root, patterns, excludes and [#withDirectories] setting. A tree
+/// being filled reuses the shared result without accessing the file
+/// system. The result is discarded when files below the root are
+/// invalidated in the [FileMetadataCache], which includes invoking
+/// [#clear] or [#cleanup] for a tree with an overlapping root.
+///
+/// A filled tree refers to the scan result only. The [FileResource]s
+/// for the files found are created when the tree is streamed and are
+/// not retained by the tree, so large trees do not hold one resource
+/// object per file. Resources added explicitly with [#add] are kept
+/// as usual.
+///
+/// The identity of a file tree (see [#hashCode] and [#equals]) is
+/// defined by its type, root, patterns, excludes and [#withDirectories]
+/// setting. It does not depend on the content, so file trees can be
+/// used as elements of sets and keys of maps without being filled.
+///
 /// @param <T> the type of the [FileResource]s in the tree.
 ///
 public class DefaultFileTree<T extends FileResource> extends DefaultResources<T>
         implements FileTree<T> {
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-    @SuppressWarnings("PMD.FieldNamingConventions")
-    private static final AntPathMatcher pathMatcher
-        = new AntPathMatcher.Builder().build();
-    private Instant latestChange;
+    /// The property that defines the number of paths that a walk must
+    /// have visited before it continues in parallel, e.g.
+    /// `jdbld -Pjdbld.fileTree.parallelThreshold=1000`.
+    public static final String PARALLEL_THRESHOLD
+        = "jdbld.fileTree.parallelThreshold";
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 5000;
     private final Project project;
     private final Path root;
     private final String[] patterns;
     private final List<String> excludes = new ArrayList<>();
     private boolean withDirs;
-    private boolean filled;
+    private Path snapshotFile;
+    private volatile ScanState scanState;
+
+    /// The result of filling the tree. It is published as a whole and
+    /// read once by each operation, so that a concurrent [#clear]
+    /// merely causes the tree to be filled again.
+    ///
+    private record ScanState(Path root, FileTreeSnapshot snapshot,
+            Instant latestChange, FileTreeSnapshot.Delta delta) {
+    }
+
+    /// The properties that determine the result of a scan.
+    ///
+    /* default */ record ScanKey(Path root, List<String> patterns,
+            List<String> excludes, boolean withDirs) {
+    }
 
     /// Returns a new file tree. The file tree includes all files
     /// matching `pattern` in the tree starting at `root`. `root`
@@ -92,6 +134,48 @@ public class DefaultFileTree<T extends FileResource> extends DefaultResources<T>
         return this;
     }
 
+    /// Makes the tree maintain a persistent [FileTreeSnapshot] in the
+    /// given file. When the tree is filled, directories that haven't
+    /// changed since the snapshot was taken are not listed again
+    /// and the differences to the previous snapshot become available
+    /// from [#delta]. The file should be unique for the combination
+    /// of root, patterns, excludes and [#withDirectories].
+    ///
+    /// The snapshot is not updated when the tree is filled. Consumers
+    /// invoke [#commitSnapshot] after they have successfully processed
+    /// the content.
+    ///
+    /// @param file the file
+    /// @return the file tree
+    ///
+    public DefaultFileTree<T> persistentSnapshot(Path file) {
+        snapshotFile = file;
+        return this;
+    }
+
+    /// Returns the differences between the content found when the
+    /// tree was last filled and the content recorded in the persistent
+    /// snapshot before. The result is empty if no persistent snapshot
+    /// is used or if no previous snapshot existed.
+    ///
+    /// @return the delta
+    ///
+    public Optional<FileTreeSnapshot.Delta> delta() {
+        return Optional.ofNullable(fill().delta());
+    }
+
+    /// Stores the snapshot taken when the tree was last filled in the
+    /// file set with [#persistentSnapshot]. If a consumer fails before
+    /// invoking this method, the previous snapshot is kept and the
+    /// next [#delta] includes the changes again.
+    ///
+    public void commitSnapshot() {
+        var state = scanState;
+        if (snapshotFile != null && state != null) {
+            state.snapshot().store(snapshotFile);
+        }
+    }
+
     @Override
     public FileTree<T> exclude(String pattern) {
         excludes.add(pattern);
@@ -115,108 +199,147 @@ public class DefaultFileTree<T extends FileResource> extends DefaultResources<T>
         return root(false);
     }
 
-    private void fill() {
-        if (filled) {
-            return;
+    private ScanState fill() {
+        var state = scanState;
+        if (state != null) {
+            return state;
         }
         try {
-            find(root(), patterns);
+            state = find(root(), patterns);
         } catch (IOException e) {
             logger.atSevere().withCause(e).log("Problem scanning files");
             throw new BuildException().from(project).cause(e);
         }
-        filled = true;
+        scanState = state;
+        return state;
     }
 
     @Override
     public Optional<Instant> asOf() {
-        fill();
-        return Optional.ofNullable(latestChange);
+        return Optional.ofNullable(fill().latestChange());
     }
 
-    @SuppressWarnings({ "PMD.CognitiveComplexity", "PMD.UseVarargs" })
-    private void find(Path root, String[] patterns) throws IOException {
-        if (!root.toFile().exists()) {
-            return;
+    @SuppressWarnings("PMD.UseVarargs")
+    private ScanState find(Path root, String[] patterns) throws IOException {
+        var key = new ScanKey(root, List.of(patterns), List.copyOf(excludes),
+            withDirs);
+        var filter = filter(root, patterns);
+        var persisted = Optional.ofNullable(snapshotFile)
+            .flatMap(FileTreeSnapshot::load);
+        var current = FileMetadataCache.scan(key).orElse(null);
+        if (current == null) {
+            var pending = FileMetadataCache.startScan(key);
+            if (persisted.isPresent()) {
+                current = FileTreeSnapshot.scan(root, filter, persisted.get());
+            } else if (root.toFile().exists()) {
+                long started = System.currentTimeMillis();
+                current = FileTreeSnapshot.of(root, started,
+                    TreeWalker.walk(root, filter, parallelThreshold()));
+            } else {
+                current = FileTreeSnapshot.scan(root, filter, null);
+            }
+            pending.done(current);
         }
-        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+        var delta = snapshotFile == null ? null
+            : persisted.map(current::deltaFrom).orElse(null);
 
-            @Override
-            public FileVisitResult visitFile(Path path,
-                    BasicFileAttributes attrs) throws IOException {
-                return testAndAdd(path);
-            }
+        // Keep the result, resources are created when streamed
+        var modified = current.files().values().stream()
+            .mapToLong(FileTreeSnapshot.FileState::modified);
+        if (withDirs) {
+            // Directories (and their modification time) included
+            modified = LongStream.concat(modified, current.directories()
+                .values().stream().mapToLong(Long::longValue));
+        }
+        var latest = modified.max();
+        return new ScanState(root, current, latest.isPresent()
+            ? Instant.ofEpochMilli(latest.getAsLong())
+            : null, delta);
+    }
 
-            private FileVisitResult testAndAdd(Path path) {
-                Path pathInTree = root.relativize(path);
-                if (excludes.stream().anyMatch(ex -> pathMatcher
-                    .isMatch(ex, pathInTree.toString()))) {
-                    if (path.toFile().isDirectory()) {
-                        return FileVisitResult.SKIP_SUBTREE;
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-                if (Arrays.stream(patterns).anyMatch(pattern -> pathMatcher
-                    .isMatch(pattern, pathInTree.toString()))) {
-                    @SuppressWarnings("unchecked")
-                    T resource = (T) ResourceFactory
-                        .create(type().containedType(), path);
-                    DefaultFileTree.this.add(resource);
-                    if (resource.asOf().isPresent() && (latestChange == null
-                        || resource.asOf().get().isAfter(latestChange))) {
-                        latestChange = resource.asOf().get();
-                    }
-                }
-                return FileVisitResult.CONTINUE;
-            }
+    /// Creates the resource for a file found by the scan.
+    ///
+    private T found(Path root, String relPath,
+            FileTreeSnapshot.FileState state) {
+        var file = root.resolve(relPath);
+        FileMetadataCache.record(file, Instant.ofEpochMilli(state.modified()));
+        @SuppressWarnings("unchecked")
+        T resource = (T) ResourceFactory.create(type().containedType(), file);
+        return resource;
+    }
 
+    @SuppressWarnings("PMD.UseVarargs")
+    private TreeWalker.Filter filter(Path root, String[] patterns) {
+        var includes = new PathPatterns(Arrays.asList(patterns));
+        var excluded = new PathPatterns(excludes);
+        return new TreeWalker.Filter() {
             @Override
-            public FileVisitResult preVisitDirectory(Path dir,
-                    BasicFileAttributes attrs) throws IOException {
-                if (withDirs) {
-                    return testAndAdd(dir);
-                }
-                return FileVisitResult.CONTINUE;
+            public boolean includeFile(Path file, BasicFileAttributes attrs) {
+                String pathInTree = root.relativize(file).toString();
+                return !excluded.matches(pathInTree)
+                    && includes.matches(pathInTree);
             }
 
             @Override
-            public FileVisitResult postVisitDirectory(Path dir, IOException exc)
-                    throws IOException {
-                if (!withDirs) {
-                    return FileVisitResult.CONTINUE;
-                }
-
-                // Directories (and their modification time) included
-                var dirMod = Instant.ofEpochMilli(dir.toFile().lastModified());
-                if (latestChange == null || dirMod.isAfter(latestChange)) {
-                    latestChange = dirMod;
-                }
-                return FileVisitResult.CONTINUE;
+            public boolean includeDirectory(Path dir,
+                    BasicFileAttributes attrs) {
+                return withDirs && includeFile(dir, attrs);
             }
 
             @Override
-            public FileVisitResult visitFileFailed(Path file, IOException exc)
-                    throws IOException {
-                if (exc instanceof AccessDeniedException) {
-                    return FileVisitResult.SKIP_SUBTREE;
+            public boolean descend(Path dir, BasicFileAttributes attrs) {
+                String pathInTree = root.relativize(dir).toString();
+                if (withDirs && excluded.matches(pathInTree)) {
+                    return false;
                 }
-                return FileVisitResult.CONTINUE;
+                return includes.mayMatchBelow(pathInTree);
             }
-        });
+        };
+    }
+
+    /// Returns the number of visited paths after which a walk
+    /// continues in parallel as configured with [#PARALLEL_THRESHOLD].
+    ///
+    private static int parallelThreshold() {
+        int threshold = DEFAULT_PARALLEL_THRESHOLD;
+        if (LauncherBase.scopedBuildContext.isBound()) {
+            try {
+                threshold = Integer.parseInt(LauncherBase.context()
+                    .property(PARALLEL_THRESHOLD,
+                        Integer.toString(DEFAULT_PARALLEL_THRESHOLD)));
+            } catch (NumberFormatException e) {
+                throw new ConfigurationException().message(
+                    "Property %s must be an integer", PARALLEL_THRESHOLD);
+            }
+        }
+        return threshold;
     }
 
     @Override
     public Stream<T> stream() {
-        return LazyCollectionStream.of(() -> {
-            fill();
-            return get();
+        return Stream.of(this).flatMap(_ -> {
+            var state = fill();
+            return Stream.concat(state.snapshot().files().entrySet().stream()
+                .map(e -> found(state.root(), e.getKey(), e.getValue())),
+                super.stream());
         });
     }
 
+    @Override
+    public SequencedSet<T> get() {
+        return stream().collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return fill().snapshot().files().isEmpty() && super.isEmpty();
+    }
+
     @Override
     public FileTree<T> clear() {
         super.clear();
-        filled = false;
+        scanState = null;
+        FileMetadataCache.invalidateTree(root());
         return this;
     }
 
@@ -224,79 +347,76 @@ public class DefaultFileTree<T extends FileResource> extends DefaultResources<T>
     public void cleanup() {
         try {
             deleteFiles(root());
+            FileMetadataCache.invalidateTree(root());
+        } catch (UncheckedIOException e) {
+            logger.atSevere().withCause(e).log("Problem deleting files");
+            throw new BuildException().from(project).cause(e.getCause());
         } catch (IOException e) {
             logger.atSevere().withCause(e).log("Problem scanning files");
             throw new BuildException().from(project).cause(e);
         }
-        filled = false;
+        scanState = null;
     }
 
-    @SuppressWarnings("PMD.CognitiveComplexity")
     private void deleteFiles(Path root) throws IOException {
         if (!root.toFile().exists()) {
             return;
         }
-        Files.walkFileTree(root, new SimpleFileVisitor<>() {
-
+        var includes = new PathPatterns(Arrays.asList(patterns));
+        var excluded = new PathPatterns(excludes);
+        int threshold = parallelThreshold();
+        var visited = TreeWalker.walk(root, new TreeWalker.Filter() {
             @Override
-            public FileVisitResult visitFile(Path path,
-                    BasicFileAttributes attrs) throws IOException {
-                return testAndDelete(path);
+            public boolean includeFile(Path file, BasicFileAttributes attrs) {
+                String pathInTree = root.relativize(file).toString();
+                return !excluded.matches(pathInTree)
+                    && includes.matches(pathInTree);
             }
 
-            private FileVisitResult testAndDelete(Path path)
-                    throws IOException {
-                Path pathInTree = root.relativize(path);
-                if (excludes.stream().anyMatch(ex -> pathMatcher
-                    .isMatch(ex, pathInTree.toString()))) {
-                    if (path.toFile().isDirectory()) {
-                        return FileVisitResult.SKIP_SUBTREE;
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-                if (Arrays.stream(patterns).anyMatch(pattern -> pathMatcher
-                    .isMatch(pattern, pathInTree.toString()))) {
-                    try {
-                        Files.delete(path);
-                    } catch (NoSuchFileException e) { // NOPMD
-                        // We can have concurrent cleanups
-                    }
-                }
-                return FileVisitResult.CONTINUE;
+            @Override
+            public boolean includeDirectory(Path dir,
+                    BasicFileAttributes attrs) {
+                return false;
             }
 
             @Override
-            public FileVisitResult postVisitDirectory(Path dir,
-                    IOException exc) throws IOException {
-                if (exc != null) {
-                    return FileVisitResult.CONTINUE;
-                }
-                if (dir.toFile().exists()) {
-                    try {
-                        if (Files.list(dir).findFirst().isEmpty()) {
-                            Files.delete(dir);
-                        }
-                    } catch (NoSuchFileException e) { // NOPMD
-                        // We can have concurrent cleanups
-                    }
-                }
-                return FileVisitResult.CONTINUE;
+            public boolean descend(Path dir, BasicFileAttributes attrs) {
+                return includes.mayMatchBelow(root.relativize(dir).toString());
             }
+        }, threshold);
 
-            @Override
-            public FileVisitResult visitFileFailed(Path file,
-                    IOException exc) throws IOException {
-                if (exc instanceof AccessDeniedException) {
-                    return FileVisitResult.SKIP_SUBTREE;
-                }
-                return FileVisitResult.CONTINUE;
+        // Delete matching files
+        var files = visited.stream().filter(TreeWalker.Visited::included);
+        (visited.size() >= threshold ? files.parallel() : files).forEach(v -> {
+            try {
+                Files.delete(v.path());
+            } catch (NoSuchFileException e) { // NOPMD
+                // We can have concurrent cleanups
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         });
+
+        // Delete directories that have become empty, children first
+        for (var v : visited.reversed()) {
+            if (v.included() || !v.path().toFile().exists()) {
+                continue;
+            }
+            try (var content = Files.list(v.path())) {
+                if (content.findFirst().isEmpty()) {
+                    Files.delete(v.path());
+                }
+            } catch (NoSuchFileException e) { // NOPMD
+                // We can have concurrent cleanups
+            }
+        }
     }
 
     @Override
     public Stream<Path> paths() {
-        return stream().map(fr -> root().relativize(fr.path()));
+        return Stream.of(this).flatMap(_ -> Stream.concat(
+            fill().snapshot().files().keySet().stream().map(Path::of),
+            super.stream().map(fr -> root().relativize(fr.path()))));
     }
 
     @SuppressWarnings("unchecked")
@@ -307,40 +427,48 @@ public class DefaultFileTree<T extends FileResource> extends DefaultResources<T>
                 root().resolve(path))));
     }
 
+    /// Returns a hash code derived from the type, the root, the patterns,
+    /// the excludes and the [#withDirectories] setting. Does not fill
+    /// the tree.
+    ///
+    /// @return the hash code
+    ///
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = super.hashCode();
-        result
-            = prime * result + Objects.hash(excludes, patterns, root, withDirs);
-        return result;
+        return Objects.hash(type(), root(), Arrays.hashCode(patterns),
+            excludes, withDirs);
     }
 
+    /// Checks if the other object is a file tree with the same type,
+    /// root, patterns, excludes and [#withDirectories] setting. Does
+    /// not fill the tree.
+    ///
+    /// @param obj the other object
+    /// @return true, if equal
+    ///
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
             return true;
         }
-        if (!super.equals(obj)) {
-            return false;
-        }
-        return (obj instanceof DefaultFileTree other)
+        return (obj instanceof DefaultFileTree<?> other)
+            && Objects.equals(type(), other.type())
+            && Objects.equals(root(), other.root())
+            && Arrays.equals(patterns, other.patterns)
             && Objects.equals(excludes, other.excludes)
-            && Objects.equals(patterns, other.patterns)
-            && Objects.equals(root, other.root) && withDirs == other.withDirs;
+            && withDirs == other.withDirs;
     }
 
     @Override
     public String toString() {
-        var wasFilled = filled;
-        fill();
+        var wasFilled = scanState != null;
         String str = type().toString() + " (" + asOfLocalized()
             + ") from " + Path.of("").toAbsolutePath().relativize(root())
             + " with " + stream().count() + " elements";
         if (!wasFilled) {
-            clear();
+            // Don't keep the result, the tree may change until used
+            scanState = null;
         }
-        filled = wasFilled;
         return str;
     }
 }
@@ -18,6 +18,7 @@
 
 package org.jdrupes.builder.core;
 
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Objects;
 import java.util.Optional;
@@ -30,22 +31,36 @@ import org.jdrupes.builder.api.ResourceType;
 
 /// An implementation of [ResourceRequest]. 
 ///
+/// Instances are immutable. As requests are used as (part of) the key
+/// when looking up cached results, the hash code is computed once
+/// when the instance is created.
+///
 /// @param <T> the resource type
 ///
 public class DefaultResourceRequest<T extends Resource>
         implements ResourceRequest<T> {
 
+    private static final Set<Intent> NO_INTENTS
+        = Collections.unmodifiableSet(EnumSet.noneOf(Intent.class));
     private final ResourceType<? extends T> type;
-    private Set<Intent> uses;
-    private String name;
+    private final Set<Intent> uses;
+    private final String name;
+    private final int hash;
 
     /// Instantiates a new resource request without any intents.
     ///
     /// @param type the requested type
     ///
     /* default */ DefaultResourceRequest(ResourceType<? extends T> type) {
-        this.type = Objects.requireNonNull(type);
-        uses = EnumSet.noneOf(Intent.class);
+        this(Objects.requireNonNull(type), null, NO_INTENTS);
+    }
+
+    private DefaultResourceRequest(ResourceType<? extends T> type,
+            String name, Set<Intent> uses) {
+        this.type = type;
+        this.name = name;
+        this.uses = uses;
+        hash = Objects.hash(type, name, uses);
     }
 
     @Override
@@ -66,9 +81,10 @@ public class DefaultResourceRequest<T extends Resource>
 
     @Override
     public ResourceRequest<T> withName(String name) {
-        var result = clone();
-        result.name = name;
-        return result;
+        if (Objects.equals(this.name, name)) {
+            return this;
+        }
+        return new DefaultResourceRequest<>(type, name, uses);
     }
 
     @Override
@@ -78,14 +94,21 @@ public class DefaultResourceRequest<T extends Resource>
 
     @Override
     public ResourceRequest<T> using(Set<Intent> intents) {
-        var result = clone();
-        result.uses = Objects.requireNonNull(intents);
-        return result;
+        if (uses.equals(Objects.requireNonNull(intents))) {
+            return this;
+        }
+        return new DefaultResourceRequest<>(type, name, intents.isEmpty()
+            ? NO_INTENTS
+            : Collections.unmodifiableSet(EnumSet.copyOf(intents)));
     }
 
+    /// Returns the intents. The returned set is unmodifiable.
+    ///
+    /// @return the intents
+    ///
     @Override
     public Set<Intent> uses() {
-        return EnumSet.copyOf(uses);
+        return uses;
     }
 
     @Override
@@ -100,7 +123,7 @@ public class DefaultResourceRequest<T extends Resource>
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, name, uses);
+        return hash;
     }
 
     @Override
@@ -115,7 +138,7 @@ public class DefaultResourceRequest<T extends Resource>
             return false;
         }
         DefaultResourceRequest<?> other = (DefaultResourceRequest<?>) obj;
-        return Objects.equals(type, other.type)
+        return hash == other.hash && Objects.equals(type, other.type)
             && Objects.equals(name, other.name)
             && Objects.equals(uses, other.uses);
     }
@@ -18,11 +18,14 @@
 
 package org.jdrupes.builder.core;
 
-import java.util.Collections;
 import java.util.LinkedHashSet;
-import java.util.Objects;
 import java.util.SequencedSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.jdrupes.builder.api.Resource;
 import org.jdrupes.builder.api.ResourceType;
 import org.jdrupes.builder.api.Resources;
@@ -32,12 +35,52 @@ import org.jdrupes.builder.api.Resources;
 /// The [stream] method preserves the order in which the resources
 /// were added.
 ///
+/// Resources are added without locking. The added resources are
+/// appended to an array that is only ever extended, so the state
+/// at a given point in time is fully described by the array and the
+/// number of elements. [#stream] works on such a snapshot and does
+/// not copy the content. Invoking [#clear] concurrently with [#add]
+/// may lose the added resources.
+///
+/// The hash code of the content is maintained incrementally when
+/// resources are added, so [#hashCode] does not have to iterate over
+/// the content and [#equals] can reject most unequal instances without
+/// comparing the content.
+///
 /// @param <T> the type of the contained resources
 ///
 public class DefaultResources<T extends Resource> extends ResourceObject
         implements Resources<T> {
 
-    private final Set<T> content;
+    private static final Snapshot EMPTY
+        = new Snapshot(new AtomicReferenceArray<>(0), 0, 0);
+    private final Set<T> members = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Snapshot> content
+        = new AtomicReference<>(EMPTY);
+
+    /// The content at a point in time. The elements with an index
+    /// below `size` are never changed.
+    ///
+    /// @param items the items
+    /// @param size the number of valid items
+    /// @param hash the sum of the items' hash codes
+    ///
+    private record Snapshot(AtomicReferenceArray<Object> items, int size,
+            int hash) {
+
+        private Snapshot grown() {
+            var larger = new AtomicReferenceArray<>(Math.max(8, size * 2));
+            for (int i = 0; i < size; i++) {
+                larger.set(i, items.get(i));
+            }
+            return new Snapshot(larger, size, hash);
+        }
+
+        private Snapshot appended() {
+            return new Snapshot(items, size + 1,
+                hash + items.get(size).hashCode());
+        }
+    }
 
     /// Initializes a new resource set.
     ///
@@ -45,39 +88,69 @@ public class DefaultResources<T extends Resource> extends ResourceObject
     ///
     protected DefaultResources(ResourceType<?> type) {
         super(type);
-        content = Collections.synchronizedSet(new LinkedHashSet<>());
     }
 
     @Override
     public Resources<T> add(T resource) {
-        content.add(resource);
-        return this;
+        if (!members.add(resource)) {
+            return this;
+        }
+        while (true) {
+            var current = content.get();
+            if (current.size() == current.items().length()) {
+                content.compareAndSet(current, current.grown());
+                continue;
+            }
+            // Claim the next slot, then publish it. If the slot has
+            // been claimed by another thread, help it to publish.
+            boolean claimed = current.items().compareAndSet(current.size(),
+                null, resource);
+            content.compareAndSet(current, current.appended());
+            if (claimed) {
+                return this;
+            }
+        }
     }
 
     @Override
     public boolean isEmpty() {
-        return content.isEmpty();
+        return content.get().size() == 0;
     }
 
     @Override
-    @SuppressWarnings({ "PMD.AvoidSynchronizedStatement" })
     public SequencedSet<T> get() {
-        synchronized (content) {
-            return new LinkedHashSet<>(content);
-        }
+        return stream().collect(LinkedHashSet::new, Set::add, Set::addAll);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<T> stream() {
+        var snapshot = content.get();
+        return IntStream.range(0, snapshot.size())
+            .mapToObj(i -> (T) snapshot.items().get(i));
     }
 
     @Override
     public Resources<T> clear() {
-        content.clear();
+        content.set(EMPTY);
+        members.clear();
         return this;
     }
 
+    /// Returns the hash code of the content, i.e. the sum of the
+    /// hash codes of the contained resources, like [Set#hashCode].
+    ///
+    /// @return the hash code
+    ///
+    protected int contentHash() {
+        return content.get().hash();
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = super.hashCode();
-        result = prime * result + Objects.hash(content);
+        result = prime * result + contentHash();
         return result;
     }
 
@@ -90,13 +163,14 @@ public class DefaultResources<T extends Resource> extends ResourceObject
             return false;
         }
         return (obj instanceof DefaultResources<?> other)
-            && Objects.equals(content, other.content);
+            && contentHash() == other.contentHash()
+            && get().equals(other.get());
     }
 
     @Override
     public String toString() {
         return type().toString() + " (" + asOfLocalized()
-            + ") with " + content.size() + " elements";
+            + ") with " + content.get().size() + " elements";
     }
 
 }
@@ -0,0 +1,274 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/// A cache for the modification times of files. During a build, the
+/// same files are checked many times by different providers (and often
+/// several times by the same provider). The cache avoids the repeated
+/// file system accesses.
+///
+/// The cache is build-scoped, every [DefaultBuildContext] has its own
+/// instance. The static methods use the instance of the build context
+/// that is bound to the current thread. If no build context is bound,
+/// the file system is accessed directly.
+///
+/// The cache also holds the results of the scans of file trees made
+/// by [DefaultFileTree]s. A tree that is filled again during the build
+/// reuses the result without accessing the file system. The result
+/// is discarded when a path below the tree's root is invalidated.
+///
+/// Providers that write files must invalidate the entries for the
+/// files with [#invalidate] or [#invalidateTree] after writing. This is
+/// done already for writes through [DefaultFileResource#outputStream],
+/// for [DefaultFileTree#clear] and [DefaultFileTree#cleanup] and for
+/// the files deleted by [AbstractGenerator#cleanup]. Providers that
+/// run external processes, which may write any file, use
+/// [#invalidateAll] when the process has terminated. Lookups of files
+/// that don't exist are not cached, so a file that is created later
+/// is noticed even if its writer doesn't invalidate the entry (this
+/// does not apply to the scans of file trees).
+///
+public final class FileMetadataCache {
+
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Map<DefaultFileTree.ScanKey, FileTreeSnapshot> scans
+        = new ConcurrentHashMap<>();
+    private final Set<PendingScan> pendingScans
+        = ConcurrentHashMap.newKeySet();
+
+    /// A cache entry. `modified` is `null` if the file does not exist,
+    /// such entries are never put in the map.
+    ///
+    private record Entry(Instant modified) {
+    }
+
+    /// A scan of a file tree that is in progress. The result of the
+    /// scan is recorded with [#done] unless a path below the tree's
+    /// root has been invalidated while scanning.
+    ///
+    /* default */ static final class PendingScan {
+        private final FileMetadataCache cache;
+        private final DefaultFileTree.ScanKey key;
+        private volatile boolean stale;
+
+        private PendingScan(FileMetadataCache cache,
+                DefaultFileTree.ScanKey key) {
+            this.cache = cache;
+            this.key = key;
+        }
+
+        /// Records the result of the scan.
+        ///
+        /// @param result the result
+        ///
+        /* default */ void done(FileTreeSnapshot result) {
+            if (cache == null) {
+                return;
+            }
+            // Remains pending until recorded, see invalidateScans
+            if (!stale) {
+                cache.scans.put(key, result);
+                if (stale) {
+                    // Invalidated concurrently
+                    cache.scans.remove(key, result);
+                }
+            }
+            cache.pendingScans.remove(this);
+        }
+    }
+
+    /// Initializes a new cache.
+    ///
+    /* default */ FileMetadataCache() {
+        // Created by the build context
+    }
+
+    private static FileMetadataCache current() {
+        return LauncherBase.scopedBuildContext.isBound()
+            ? LauncherBase.scopedBuildContext.get().fileMetadata()
+            : null;
+    }
+
+    /// Returns the modification time of the file with the given path
+    /// or an empty optional if the file does not exist.
+    ///
+    /// @param path the path
+    /// @return the modification time
+    ///
+    public static Optional<Instant> lastModified(Path path) {
+        var cache = current();
+        if (cache == null) {
+            return Optional.ofNullable(read(path)).map(Entry::modified);
+        }
+        return Optional.ofNullable(cache.get(path));
+    }
+
+    private Instant get(Path path) {
+        var entry = entries.get(path);
+        if (entry != null) {
+            return entry.modified();
+        }
+        long before = invalidations.get();
+        entry = read(path);
+        if (entry == null || entry.modified() == null) {
+            // Don't cache, there may be a transient problem or the
+            // file may be created later
+            return null;
+        }
+        entries.put(path, entry);
+        if (invalidations.get() != before) {
+            // The file may have been written while reading the
+            // attributes, the entry cannot be trusted
+            entries.remove(path, entry);
+        }
+        return entry.modified();
+    }
+
+    /// Returns the result of an earlier scan of the file tree with the
+    /// given key, if available.
+    ///
+    /// @param key the key
+    /// @return the result
+    ///
+    /* default */ static Optional<FileTreeSnapshot>
+            scan(DefaultFileTree.ScanKey key) {
+        return Optional.ofNullable(current())
+            .map(cache -> cache.scans.get(key));
+    }
+
+    /// Starts a scan of the file tree with the given key.
+    ///
+    /// @param key the key
+    /// @return the pending scan
+    ///
+    /* default */ static PendingScan startScan(DefaultFileTree.ScanKey key) {
+        var cache = current();
+        var scan = new PendingScan(cache, key);
+        if (cache != null) {
+            cache.pendingScans.add(scan);
+        }
+        return scan;
+    }
+
+    /// Discards the scans of trees with a root that the predicate
+    /// matches. Pending scans are marked as stale before the recorded
+    /// results are removed (see [PendingScan#done]).
+    ///
+    private void invalidateScans(Predicate<Path> affected) {
+        pendingScans.stream().filter(s -> affected.test(s.key.root()))
+            .forEach(s -> s.stale = true);
+        scans.keySet().removeIf(k -> affected.test(k.root()));
+    }
+
+    private static Entry read(Path path) {
+        try {
+            return new Entry(toInstant(
+                Files.readAttributes(path, BasicFileAttributes.class)));
+        } catch (NoSuchFileException e) {
+            return new Entry(null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /// Records the attributes of a file that have been obtained
+    /// otherwise, e.g. while walking a file tree.
+    ///
+    /// @param path the path
+    /// @param attrs the attributes
+    ///
+    public static void record(Path path, BasicFileAttributes attrs) {
+        record(path, toInstant(attrs));
+    }
+
+    /// Records the modification time of a file that has been obtained
+    /// otherwise.
+    ///
+    /// @param path the path
+    /// @param modified the modification time
+    ///
+    public static void record(Path path, Instant modified) {
+        var cache = current();
+        if (cache != null) {
+            cache.entries.put(path, new Entry(modified));
+        }
+    }
+
+    /// Returns the modification time from the given attributes with
+    /// the precision used for resources (milliseconds).
+    ///
+    /// @param attrs the attributes
+    /// @return the instant
+    ///
+    public static Instant toInstant(BasicFileAttributes attrs) {
+        return Instant.ofEpochMilli(attrs.lastModifiedTime().toMillis());
+    }
+
+    /// Invalidates the entry for the given path.
+    ///
+    /// @param path the path
+    ///
+    public static void invalidate(Path path) {
+        var cache = current();
+        if (cache != null) {
+            cache.invalidations.incrementAndGet();
+            cache.entries.remove(path);
+            cache.invalidateScans(path::startsWith);
+        }
+    }
+
+    /// Invalidates the entries for all paths starting with the given path.
+    ///
+    /// @param root the root of the tree
+    ///
+    public static void invalidateTree(Path root) {
+        var cache = current();
+        if (cache != null) {
+            cache.invalidations.incrementAndGet();
+            cache.entries.keySet().removeIf(p -> p.startsWith(root));
+            cache.invalidateScans(
+                r -> r.startsWith(root) || root.startsWith(r));
+        }
+    }
+
+    /// Invalidates all entries.
+    ///
+    public static void invalidateAll() {
+        var cache = current();
+        if (cache != null) {
+            cache.invalidations.incrementAndGet();
+            cache.entries.clear();
+            cache.invalidateScans(_ -> true);
+        }
+    }
+}
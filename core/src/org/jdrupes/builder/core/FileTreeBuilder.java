@@ -34,6 +34,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -66,6 +67,12 @@ import static org.jdrupes.builder.api.ResourceType.CleanlinessType;
 /// A request for [Cleanliness] deletes the directory specified with
 /// [#into].
 ///
+/// For sources added with one of the `source`-methods, the builder
+/// maintains a persistent snapshot of the source tree (see
+/// [DefaultFileTree#persistentSnapshot]). Files that have been removed
+/// from such a source tree since the last successful run are removed
+/// from the destination as well.
+///
 public class FileTreeBuilder extends AbstractGenerator {
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
     private final StreamCollector<Source> sources = new StreamCollector<>(true);
@@ -81,6 +88,7 @@ public class FileTreeBuilder extends AbstractGenerator {
         private BiConsumer<InputStream, OutputStream> filter;
         private BiConsumer<BufferedReader, PrintStream> textFilter;
         private Charset charset;
+        private String snapshotKey;
 
         private Source(InputTree<?> tree) {
             this.tree = tree;
@@ -189,8 +197,9 @@ public class FileTreeBuilder extends AbstractGenerator {
     /// @return the file tree builder
     ///
     public FileTreeBuilder source(Path root, String pattern) {
-        sources.add(Stream.of(Source.of(FileTree.of(
-            project(), root, pattern))));
+        var source = Source.of(FileTree.of(project(), root, pattern));
+        source.snapshotKey = root + " " + pattern;
+        sources.add(Stream.of(source));
         return this;
     }
 
@@ -208,6 +217,7 @@ public class FileTreeBuilder extends AbstractGenerator {
             Function<Path, Path> renamer,
             BiConsumer<InputStream, OutputStream> filter) {
         var source = Source.of(FileTree.of(project(), root, pattern));
+        source.snapshotKey = root + " " + pattern;
         if (renamer != null) {
             source.rename(renamer);
         }
@@ -294,17 +304,64 @@ public class FileTreeBuilder extends AbstractGenerator {
     private boolean createInDestination(List<Source> required) {
         // Handle sources in parallel, but each source in sequentially.
         return required.parallelStream().map(source -> {
+            var snapshotTree = snapshotTree(source);
             var srcTree = source.tree;
-            return srcTree.entries().map(entry -> {
+            boolean changed = srcTree.entries().map(entry -> {
                 try {
                     return createTarget(source, entry);
                 } catch (IOException e) {
                     throw new BuildException().from(this).cause(e);
                 }
             }).reduce(false, (a, b) -> a || b);
+            if (snapshotTree.isEmpty()) {
+                return changed;
+            }
+            try {
+                changed |= removeObsolete(source, snapshotTree.get());
+            } catch (IOException e) {
+                throw new BuildException().from(this).cause(e);
+            }
+            snapshotTree.get().commitSnapshot();
+            return changed;
         }).reduce(false, (a, b) -> a || b);
     }
 
+    /// Returns the source's tree with a persistent snapshot if the
+    /// source has been added with one of the `source`-methods.
+    ///
+    private Optional<DefaultFileTree<?>> snapshotTree(Source source) {
+        if (source.snapshotKey == null
+            || !(source.tree instanceof DefaultFileTree<?> tree)) {
+            return Optional.empty();
+        }
+        var key = destination + " " + source.snapshotKey;
+        tree.persistentSnapshot(project().buildDirectory().resolve("jdbld")
+            .resolve("snapshot-" + Integer.toHexString(key.hashCode())
+                + ".txt"));
+        return Optional.of(tree);
+    }
+
+    private boolean removeObsolete(Source source, DefaultFileTree<?> tree)
+            throws IOException {
+        var removed = tree.delta().map(FileTreeSnapshot.Delta::removed)
+            .orElse(Collections.emptySortedSet());
+        boolean changed = false;
+        for (var path : removed) {
+            var dest = destination.resolve(
+                source.rename == null ? path : source.rename.apply(path))
+                .normalize();
+            if (!dest.startsWith(destination)) {
+                continue;
+            }
+            try {
+                changed |= Files.deleteIfExists(dest);
+            } finally {
+                FileMetadataCache.invalidate(dest);
+            }
+        }
+        return changed;
+    }
+
     private boolean createTarget(Source source, InputTree.Entry<?> entry)
             throws IOException {
         var dest = destination.resolve(entry.path());
@@ -323,12 +380,22 @@ public class FileTreeBuilder extends AbstractGenerator {
             .lastModified() >= entry.resource().asOf().get().toEpochMilli()) {
             return false;
         }
+        try {
+            writeTarget(source, entry, dest);
+        } finally {
+            FileMetadataCache.invalidate(dest);
+        }
+        return true;
+    }
+
+    private void writeTarget(Source source, InputTree.Entry<?> entry,
+            Path dest) throws IOException {
         if (source.filter != null) {
             try (var srcStream = entry.resource().inputStream();
                     var destStream = Files.newOutputStream(dest)) {
                 source.filter.accept(srcStream, destStream);
             }
-            return true;
+            return;
         }
         if (source.textFilter != null) {
             try (var reader = new BufferedReader(new InputStreamReader(
@@ -337,11 +404,10 @@ public class FileTreeBuilder extends AbstractGenerator {
                         = new PrintStream(dest.toFile(), source.charset)) {
                 source.textFilter.accept(reader, out);
             }
-            return true;
+            return;
         }
         Files.copy(entry.resource().inputStream(), dest,
             StandardCopyOption.REPLACE_EXISTING);
-        return true;
     }
 
 }
@@ -0,0 +1,400 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import com.google.common.flogger.FluentLogger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/// A snapshot of the paths in a file tree that can be persisted
+/// between builds.
+///
+/// The snapshot records the size, modification time and file key
+/// (e.g. the inode) of every included path and the modification time
+/// of every directory that has been descended into. When a tree is
+/// scanned with a previous snapshot, directories whose modification
+/// time has not changed are not listed again. Their (known) content
+/// is only checked for modifications. Because adding, removing or
+/// renaming entries changes the modification time of the containing
+/// directory, this yields the same result as a full scan.
+///
+/// Directories modified shortly before the previous snapshot was taken
+/// are listed again nevertheless, see [#RACY_MARGIN].
+///
+/// Comparing the new snapshot with the previous one yields a [Delta].
+///
+public final class FileTreeSnapshot {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final String FORMAT = "jdbld-file-tree-snapshot 1";
+    /// Directories modified less than this number of milliseconds
+    /// before the snapshot was taken are always listed again,
+    /// because a subsequent modification may not change the
+    /// modification time on file systems with coarse timestamps.
+    private static final long RACY_MARGIN = 2000;
+    private final long taken;
+    private final SortedMap<String, Long> directories;
+    private final SortedMap<String, FileState> files;
+
+    /// The recorded state of a path.
+    ///
+    /// @param size the size
+    /// @param modified the modification time in milliseconds
+    /// @param key the file key as string, empty if not supported
+    /// @param directory whether the path is a directory
+    ///
+    public record FileState(long size, long modified, String key,
+            boolean directory) {
+
+        /* default */ static FileState of(BasicFileAttributes attrs) {
+            return new FileState(attrs.isDirectory() ? 0 : attrs.size(),
+                attrs.lastModifiedTime().toMillis(),
+                Objects.toString(attrs.fileKey(), ""), attrs.isDirectory());
+        }
+    }
+
+    /// The difference between two snapshots. All paths are relative
+    /// to the root of the tree.
+    ///
+    /// @param added the added paths
+    /// @param changed the changed paths
+    /// @param removed the removed paths
+    ///
+    public record Delta(SortedSet<Path> added, SortedSet<Path> changed,
+            SortedSet<Path> removed) {
+
+        /// Checks if there are no differences.
+        ///
+        /// @return true, if successful
+        ///
+        public boolean isEmpty() {
+            return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    private FileTreeSnapshot(long taken, SortedMap<String, Long> directories,
+            SortedMap<String, FileState> files) {
+        this.taken = taken;
+        this.directories = directories;
+        this.files = files;
+    }
+
+    /// Creates a snapshot from the result of a [TreeWalker] walk.
+    ///
+    /// @param root the root
+    /// @param taken the time when the walk was started
+    /// @param visited the visited paths
+    /// @return the file tree snapshot
+    ///
+    /* default */ static FileTreeSnapshot of(Path root, long taken,
+            List<TreeWalker.Visited> visited) {
+        SortedMap<String, Long> directories = new TreeMap<>();
+        SortedMap<String, FileState> files = new TreeMap<>();
+        for (var entry : visited) {
+            var relPath = root.relativize(entry.path()).toString();
+            if (entry.included()) {
+                files.put(relPath, FileState.of(entry.attrs()));
+            }
+            if (entry.descended()) {
+                directories.put(relPath,
+                    entry.attrs().lastModifiedTime().toMillis());
+            }
+        }
+        return new FileTreeSnapshot(taken, directories, files);
+    }
+
+    /// Returns the number of recorded paths.
+    ///
+    /// @return the size
+    ///
+    public int size() {
+        return directories.size() + files.size();
+    }
+
+    private boolean unchanged(String relDir, long modified) {
+        return Objects.equals(directories.get(relDir), modified)
+            && modified < taken - RACY_MARGIN;
+    }
+
+    /// Returns the included paths (relative to the root) with their
+    /// recorded state.
+    ///
+    /// @return the files
+    ///
+    public SortedMap<String, FileState> files() {
+        return Collections.unmodifiableSortedMap(files);
+    }
+
+    /// Returns the directories descended into (relative to the root)
+    /// with their modification times.
+    ///
+    /// @return the directories
+    ///
+    public SortedMap<String, Long> directories() {
+        return Collections.unmodifiableSortedMap(directories);
+    }
+
+    /// Scans the tree at `root`, using the filter to decide about
+    /// the included paths and the directories to descend into. If
+    /// `previous` is given, directories unchanged since the previous
+    /// scan are not listed again.
+    ///
+    /// @param root the root
+    /// @param filter the filter
+    /// @param previous the previous snapshot, may be `null`
+    /// @return the snapshot
+    /// @throws IOException Signals that an I/O exception has occurred.
+    ///
+    @SuppressWarnings({ "PMD.CognitiveComplexity",
+        "PMD.AvoidInstantiatingObjectsInLoops" })
+    /* default */ static FileTreeSnapshot scan(Path root,
+            TreeWalker.Filter filter, FileTreeSnapshot previous)
+            throws IOException {
+        var knownChildren = previous == null ? Map.<String, List<String>> of()
+            : previous.childIndex();
+        long taken = System.currentTimeMillis();
+        SortedMap<String, Long> directories = new TreeMap<>();
+        SortedMap<String, FileState> files = new TreeMap<>();
+        var pending = new ArrayDeque<String>();
+        pending.add("");
+        while (!pending.isEmpty()) {
+            var relDir = pending.poll();
+            var dir = root.resolve(relDir);
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(dir, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            } catch (NoSuchFileException | AccessDeniedException e) {
+                continue;
+            }
+            if (!attrs.isDirectory()) {
+                // Was a directory, has become something else
+                addIfIncluded(root, relDir, attrs, filter, files);
+                continue;
+            }
+            if (filter.includeDirectory(dir, attrs)) {
+                files.put(relDir, FileState.of(attrs));
+            }
+            if (!filter.descend(dir, attrs)) {
+                continue;
+            }
+            long modified = attrs.lastModifiedTime().toMillis();
+            directories.put(relDir, modified);
+            if (previous != null && previous.unchanged(relDir, modified)) {
+                // Same entries as before, check known entries only
+                for (var child : knownChildren.getOrDefault(relDir,
+                    List.of())) {
+                    if (previous.directories.containsKey(child)
+                        || isDirectory(previous.files.get(child))) {
+                        pending.add(child);
+                        continue;
+                    }
+                    try {
+                        addIfIncluded(root, child, Files.readAttributes(
+                            root.resolve(child), BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS), filter, files);
+                    } catch (NoSuchFileException e) { // NOPMD
+                        // Removed concurrently
+                    }
+                }
+                continue;
+            }
+
+            // Changed or new directory, list it
+            try (var entries = Files.newDirectoryStream(dir)) {
+                for (var entry : entries) {
+                    var relPath = root.relativize(entry).toString();
+                    BasicFileAttributes entryAttrs;
+                    try {
+                        entryAttrs = Files.readAttributes(entry,
+                            BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) { // NOPMD
+                        continue;
+                    }
+                    if (entryAttrs.isDirectory()) {
+                        pending.add(relPath);
+                    } else {
+                        addIfIncluded(root, relPath, entryAttrs, filter,
+                            files);
+                    }
+                }
+            } catch (AccessDeniedException e) { // NOPMD
+                // Handled like walkFileTree does
+            }
+        }
+        return new FileTreeSnapshot(taken, directories, files);
+    }
+
+    private static boolean isDirectory(FileState state) {
+        return state != null && state.directory();
+    }
+
+    private static void addIfIncluded(Path root, String relPath,
+            BasicFileAttributes attrs, TreeWalker.Filter filter,
+            Map<String, FileState> files) {
+        if (filter.includeFile(root.resolve(relPath), attrs)) {
+            files.put(relPath, FileState.of(attrs));
+        }
+    }
+
+    /// Builds an index from each directory to the known entries in it.
+    ///
+    private Map<String, List<String>> childIndex() {
+        Map<String, List<String>> index = new HashMap<>();
+        for (var path : directories.keySet()) {
+            if (!path.isEmpty()) {
+                index.computeIfAbsent(parent(path), _ -> new ArrayList<>())
+                    .add(path);
+            }
+        }
+        for (var path : files.keySet()) {
+            if (!path.isEmpty() && !directories.containsKey(path)) {
+                index.computeIfAbsent(parent(path), _ -> new ArrayList<>())
+                    .add(path);
+            }
+        }
+        return index;
+    }
+
+    private static String parent(String path) {
+        var parent = Path.of(path).getParent();
+        return parent == null ? "" : parent.toString();
+    }
+
+    /// Returns the differences between the given (previous) snapshot
+    /// and this snapshot.
+    ///
+    /// @param previous the previous snapshot
+    /// @return the delta
+    ///
+    public Delta deltaFrom(FileTreeSnapshot previous) {
+        SortedSet<Path> added = new TreeSet<>();
+        SortedSet<Path> changed = new TreeSet<>();
+        SortedSet<Path> removed = new TreeSet<>();
+        files.forEach((path, state) -> {
+            var before = previous.files.get(path);
+            if (before == null) {
+                added.add(Path.of(path));
+            } else if (!before.equals(state)) {
+                changed.add(Path.of(path));
+            }
+        });
+        previous.files.keySet().stream().filter(p -> !files.containsKey(p))
+            .forEach(p -> removed.add(Path.of(p)));
+        return new Delta(added, changed, removed);
+    }
+
+    /// Loads a snapshot from the given file. Returns an empty optional
+    /// if the file does not exist or cannot be read.
+    ///
+    /// @param file the file
+    /// @return the optional snapshot
+    ///
+    @SuppressWarnings("PMD.AvoidLiteralsInIfCondition")
+    public static Optional<FileTreeSnapshot> load(Path file) {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            SortedMap<String, Long> directories = new TreeMap<>();
+            SortedMap<String, FileState> files = new TreeMap<>();
+            var iter = lines.iterator();
+            if (!iter.hasNext() || !FORMAT.equals(iter.next())) {
+                return Optional.empty();
+            }
+            long taken = 0;
+            while (iter.hasNext()) {
+                var fields = iter.next().split("\t", -1);
+                if ("T".equals(fields[0]) && fields.length == 2) {
+                    taken = Long.parseLong(fields[1]);
+                } else if ("D".equals(fields[0]) && fields.length == 3) {
+                    directories.put(fields[2], Long.parseLong(fields[1]));
+                } else if ("F".equals(fields[0]) && fields.length == 6) {
+                    files.put(fields[5], new FileState(
+                        Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                        fields[3], "d".equals(fields[4])));
+                } else {
+                    return Optional.empty();
+                }
+            }
+            return Optional
+                .of(new FileTreeSnapshot(taken, directories, files));
+        } catch (IOException | RuntimeException e) {
+            logger.atFine().withCause(e).log("Cannot load %s", file);
+            return Optional.empty();
+        }
+    }
+
+    /// Stores the snapshot in the given file. The file is replaced
+    /// atomically. Failures are logged only, because a missing snapshot
+    /// merely results in a full scan.
+    ///
+    /// @param file the file
+    ///
+    public void store(Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            var tmp = Files.createTempFile(file.getParent(),
+                file.getFileName().toString(), ".tmp");
+            try (var out = Files.newBufferedWriter(tmp,
+                StandardCharsets.UTF_8)) {
+                out.write(FORMAT);
+                out.newLine();
+                out.write("T\t" + taken);
+                out.newLine();
+                for (var dir : directories.entrySet()) {
+                    out.write("D\t" + dir.getValue() + "\t" + dir.getKey());
+                    out.newLine();
+                }
+                for (var entry : files.entrySet()) {
+                    var state = entry.getValue();
+                    out.write("F\t" + state.size() + "\t" + state.modified()
+                        + "\t" + state.key() + "\t"
+                        + (state.directory() ? "d" : "f") + "\t"
+                        + entry.getKey());
+                    out.newLine();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.atWarning().withCause(e).log("Cannot store %s", file);
+        }
+    }
+}
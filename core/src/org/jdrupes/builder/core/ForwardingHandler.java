@@ -1,6 +1,6 @@
 /*
  * JDrupes Builder
- * Copyright (C) 2025 Michael N. Lipp
+ * Copyright (C) 2025, 2026 Michael N. Lipp
  * 
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU Affero General Public License as
@@ -18,17 +18,41 @@
 
 package org.jdrupes.builder.core;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jdrupes.builder.api.Proxyable;
 
 /// A [InvocationHandler] that simply forwards all invocations to the
 /// proxied object.
 ///
+/// The invocations are forwarded using a [MethodHandle] that is
+/// created once for each invoked method, which avoids the overhead
+/// of [Method#invoke] on every call. The handles are associated with
+/// the method's declaring class (see [ClassValue]), so they don't
+/// keep the class loaders of the build's projects reachable.
+///
 public class ForwardingHandler implements InvocationHandler {
 
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final MethodType GENERIC
+        = MethodType.methodType(Object.class, Object.class, Object[].class);
+    @SuppressWarnings("PMD.FieldNamingConventions")
+    private static final ClassValue<Map<Method, Optional<MethodHandle>>>
+        handles = new ClassValue<>() {
+            @Override
+            protected Map<Method, Optional<MethodHandle>>
+                    computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
     private final Object proxied;
 
     /// Instantiates a new forwarding handler.
@@ -45,12 +69,32 @@ public class ForwardingHandler implements InvocationHandler {
         if ("equals".equals(method.getName())
             && Proxy.isProxyClass(args[0].getClass())
             && args[0] instanceof Proxyable other) {
-            return method.invoke(proxied, other.backing());
+            args = new Object[] { other.backing() };
+        }
+        var handle = handles.get(method.getDeclaringClass())
+            .computeIfAbsent(method, ForwardingHandler::handle).orElse(null);
+        if (handle == null) {
+            try {
+                return method.invoke(proxied, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
         }
+        Object[] actual = args == null ? NO_ARGS : args;
+        return (Object) handle.invokeExact(proxied, actual);
+    }
+
+    /// Returns a handle that accepts the receiver and the arguments
+    /// as array. Returns an empty optional if the method is not
+    /// accessible as handle.
+    ///
+    private static Optional<MethodHandle> handle(Method method) {
         try {
-            return method.invoke(proxied, args);
-        } catch (InvocationTargetException e) {
-            throw e.getCause();
+            return Optional.of(MethodHandles.publicLookup().unreflect(method)
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(GENERIC));
+        } catch (IllegalAccessException e) {
+            return Optional.empty();
         }
     }
 
@@ -21,8 +21,10 @@ package org.jdrupes.builder.core;
 import com.google.common.flogger.FluentLogger;
 import static com.google.common.flogger.LazyArgs.lazy;
 import java.util.Collection;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -33,6 +35,10 @@ import org.jdrupes.builder.api.StatusLine;
 
 /// Evaluate the stream from a provider asynchronously.
 ///
+/// Failures of the evaluation are reported to the build context,
+/// which may cancel the evaluation of all future streams (see
+/// [DefaultBuildContext]).
+///
 /// @param <T> the provided resource type
 ///
 public class FutureStream<T extends Resource> {
@@ -44,12 +50,16 @@ public class FutureStream<T extends Resource> {
     /* default */@SuppressWarnings("PMD.FieldNamingConventions")
     static final ScopedValue<StatusLine> statusLine
         = ScopedValue.newInstance();
+    /* default */ @SuppressWarnings("PMD.FieldNamingConventions")
+    static final ScopedValue<ProviderInvocation<?>> currentInvocation
+        = ScopedValue.newInstance();
     private final ProviderInvocation<?> invocation;
+    private final boolean prefetched;
     private final Future<Collection<T>> values;
     private final int id = futureCount.getAndIncrement();
 
     static {
-        ScopedValueContext.add(statusLine);
+        ScopedValueContext.add(statusLine, currentInvocation);
     }
 
     /// Instantiates a new future stream of resources.
@@ -57,8 +67,23 @@ public class FutureStream<T extends Resource> {
     /// @param invocation the invocation
     ///
     public FutureStream(ProviderInvocation<T> invocation) {
+        this(invocation, false);
+    }
+
+    /// Instantiates a new future stream of resources. If `prefetched`
+    /// is `true`, the invocation has been started in anticipation of
+    /// a request. A failure is then only reported to the build context
+    /// when the stream is consumed.
+    ///
+    /// @param invocation the invocation
+    /// @param prefetched whether the invocation is prefetched
+    ///
+    @SuppressWarnings("PMD.ConstructorCallsOverridableMethod")
+    public FutureStream(ProviderInvocation<T> invocation,
+            boolean prefetched) {
         context = LauncherBase.context();
         this.invocation = invocation;
+        this.prefetched = prefetched;
         values = ScopedValueContext.submitTo(context.executor(), () -> {
             var origThreadName = Thread.currentThread().getName();
             try (var _ = context.executingFutureStreams().acquire();
@@ -71,18 +96,41 @@ public class FutureStream<T extends Resource> {
                     "Task [%s] evaluating", Thread.currentThread().getName());
                 // Wait for the build-project to be fully constructed
                 context.buildProject().get();
-                statusLine.update(
-                    provider + " providing " + request.toRequestedString());
-                return context.inScopeForProviderCall()
-                    .where(FutureStream.statusLine, statusLine)
-                    .call(() -> ((AbstractProvider) provider).toSpi()
-                        .provide(request));
+                try (var slot = context.gate()
+                    .acquire(context.priority(invocation))) {
+                    statusLine.update(
+                        provider + " providing " + request.toRequestedString());
+                    var started = System.nanoTime();
+                    var result = context.inScopeForProviderCall()
+                        .where(FutureStream.statusLine, statusLine)
+                        .where(currentInvocation, invocation)
+                        .where(PriorityGate.currentSlot, slot)
+                        .call(() -> ((AbstractProvider) provider).toSpi()
+                            .provide(request));
+                    context.finished(invocation, TimeUnit.NANOSECONDS
+                        .toMillis(System.nanoTime() - started));
+                    return result;
+                }
+            } catch (Exception | Error e) {
+                if (!prefetched) {
+                    context.failed(this, e);
+                }
+                throw e;
             } finally {
                 logger.atFiner().log(
                     "Task [%s] terminated", Thread.currentThread().getName());
                 Thread.currentThread().setName(origThreadName);
             }
         });
+        if (context.isCancelling()) {
+            cancel();
+        }
+    }
+
+    /// Cancels the evaluation if it hasn't completed yet.
+    ///
+    /* default */ void cancel() {
+        values.cancel(true);
     }
 
     /// Returns the lazily evaluated stream of resources.
@@ -90,6 +138,10 @@ public class FutureStream<T extends Resource> {
     /// @return the stream
     ///
     public Stream<T> stream() {
+        if (values.state() == Future.State.SUCCESS) {
+            // Nothing to defer, no need to wrap the result
+            return values.resultNow().stream();
+        }
         return LazyCollectionStream.of(() -> {
             if (!context.buildProject().isDone()) {
                 throw new ConfigurationException().from(invocation.provider())
@@ -101,10 +153,25 @@ public class FutureStream<T extends Resource> {
                     this, lazy(() -> context.requestChain().stream()
                         .map(ProviderInvocation::toString)
                         .collect(Collectors.joining(" ≪ "))));
-                return values.get();
-            } catch (InterruptedException | ExecutionException e) {
+                if (values.isDone()) {
+                    return values.get();
+                }
+                // Don't block a slot while waiting for the result
+                try (var _ = context.gate().suspend()) {
+                    return values.get();
+                }
+            } catch (ExecutionException e) {
+                // Reported already unless prefetched
+                context.failed(this, e.getCause());
+                throw new BuildException()
+                    .from(invocation.provider()).cause(e);
+            } catch (InterruptedException e) {
                 throw new BuildException()
                     .from(invocation.provider()).cause(e);
+            } catch (CancellationException e) {
+                throw new BuildException().from(invocation.provider())
+                    .message("Cancelled because of a previous failure")
+                    .cause(context.firstFailure().orElse(e));
             } finally {
                 logger.atFiner().log("%s is done", this);
             }
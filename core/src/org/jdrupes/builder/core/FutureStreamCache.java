@@ -54,6 +54,12 @@ public class FutureStreamCache {
                     FutureStream<? extends Resource>>) (Object) supplier);
     }
 
+    /// Cancels the evaluation of all future streams.
+    ///
+    /* default */ void cancelAll() {
+        cache.values().forEach(FutureStream::cancel);
+    }
+
     /// Purge all values for the given [ResourceProvider].
     ///
     /// @param provider the provider
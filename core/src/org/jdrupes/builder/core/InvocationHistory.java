@@ -0,0 +1,462 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import com.google.common.flogger.FluentLogger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.jdrupes.builder.api.Generator;
+import org.jdrupes.builder.api.Intent;
+import org.jdrupes.builder.api.Project;
+import org.jdrupes.builder.api.Resource;
+import org.jdrupes.builder.api.ResourceRequest;
+import org.jdrupes.builder.api.ResourceType;
+import org.jdrupes.builder.api.Resources;
+
+/// Records the [ProviderInvocation]s of [Generator]s made while
+/// executing a command and persists them for the next execution of
+/// the same command.
+///
+/// The invocations that haven't requested resources from other
+/// providers (the leaves of the request graph, e.g. scanning sources
+/// or looking up artifacts) are started immediately when the command
+/// is executed again (see [#prefetch]), before the requests from the
+/// projects reach them. If the prediction is wrong, the results are
+/// simply not used. The prefetching can be disabled by setting the
+/// property [#PREFETCH] to `false`.
+///
+/// Invocations are identified by the directory of the generator's
+/// project (relative to the root project's directory), the class and
+/// the name of the generator and the requested type, name and intents.
+/// Generators that cannot be identified unambiguously are not
+/// prefetched.
+///
+/// In addition, the history records how long the evaluation of each
+/// invocation took and which invocations caused which other invocations.
+/// From this information, a priority is derived for every invocation
+/// (see [#priority]). It estimates the time that the build needs
+/// at least after the invocation has been started, i.e. the length of
+/// the longest path from the invocation to the end of the build. The
+/// [PriorityGate] uses the priorities to start the invocations on
+/// the critical path first.
+///
+/// The history is only stored after a successful execution of the
+/// command (see [DefaultBuildContext#succeeded]). Otherwise, the
+/// history of the previous execution is kept.
+///
+/* default */ final class InvocationHistory {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    /// The property that controls prefetching, e.g.
+    /// `jdbld -Pjdbld.prefetch=false`.
+    /* default */ static final String PREFETCH = "jdbld.prefetch";
+    private static final String FORMAT = "jdbld-invocation-history 2";
+    private static final int KEY_PARTS = 6;
+    private final DefaultBuildContext context;
+    private final Set<ProviderInvocation<?>> invoked
+        = ConcurrentHashMap.newKeySet();
+    private final Set<Edge> edges = ConcurrentHashMap.newKeySet();
+    private final Map<ProviderInvocation<?>, Long> durations
+        = new ConcurrentHashMap<>();
+    private volatile List<String> leaves = List.of();
+    private volatile Map<String, Long> priorities = Map.of();
+
+    /// An invocation of `child` caused by `parent`.
+    ///
+    private record Edge(ProviderInvocation<?> parent,
+            ProviderInvocation<?> child) {
+    }
+
+    /// Initializes a new invocation history.
+    ///
+    /// @param context the context
+    ///
+    /* default */ InvocationHistory(DefaultBuildContext context) {
+        this.context = context;
+    }
+
+    /// Records the invocation of a provider.
+    ///
+    /// @param parent the invocation that caused the invocation,
+    /// `null` if unknown
+    /// @param invocation the invocation
+    ///
+    /* default */ void invoked(ProviderInvocation<?> parent,
+            ProviderInvocation<?> invocation) {
+        invoked.add(invocation);
+        if (parent != null) {
+            edges.add(new Edge(parent, invocation));
+        }
+    }
+
+    /// Records the time that the evaluation of the invocation took.
+    ///
+    /// @param invocation the invocation
+    /// @param millis the duration in milliseconds
+    ///
+    /* default */ void finished(ProviderInvocation<?> invocation,
+            long millis) {
+        durations.merge(invocation, millis, Math::max);
+    }
+
+    private Optional<Path> file(AbstractRootProject root) {
+        if (context.commandLine() == null) {
+            return Optional.empty();
+        }
+        var command = command(root);
+        return Optional.of(root.buildDirectory().resolve("jdbld")
+            .resolve("history-" + Integer.toHexString(command.hashCode())
+                + ".txt"));
+    }
+
+    private String command(AbstractRootProject root) {
+        return root.getClass().getName() + " "
+            + String.join(" ", context.commandLine().getArgs());
+    }
+
+    /// Loads the history of the previous execution of the command.
+    ///
+    /// @param root the root project
+    ///
+    @SuppressWarnings("PMD.AvoidLiteralsInIfCondition")
+    /* default */ void load(AbstractRootProject root) {
+        var file = file(root);
+        if (file.isEmpty()) {
+            return;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file.get(), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            logger.atWarning().withCause(e).log("Cannot read %s", file.get());
+            return;
+        }
+        if (lines.size() < 2 || !lines.get(0).equals(FORMAT)
+            || !lines.get(1).equals(command(root))) {
+            return;
+        }
+        List<String> recordedLeaves = new ArrayList<>();
+        Map<String, Long> recordedDurations = new HashMap<>();
+        Map<String, Set<String>> parents = new HashMap<>();
+        Map<String, Set<String>> children = new HashMap<>();
+        for (var line : lines.subList(2, lines.size())) {
+            var parts = line.split("\t", 2);
+            if (parts.length < 2) {
+                continue;
+            }
+            switch (parts[0]) {
+            case "L" -> recordedLeaves.add(parts[1]);
+            case "D" -> {
+                var duration = parts[1].split("\t", 2);
+                try {
+                    if (duration.length == 2) {
+                        recordedDurations.put(duration[1],
+                            Long.parseLong(duration[0]));
+                    }
+                } catch (NumberFormatException e) {
+                    // Ignore corrupted line
+                }
+            }
+            case "E" -> {
+                var keys = parts[1].split("\t", -1);
+                if (keys.length == 2 * KEY_PARTS) {
+                    var parent = String.join("\t",
+                        Arrays.asList(keys).subList(0, KEY_PARTS));
+                    var child = String.join("\t",
+                        Arrays.asList(keys).subList(KEY_PARTS, keys.length));
+                    parents.computeIfAbsent(child, _ -> new HashSet<>())
+                        .add(parent);
+                    children.computeIfAbsent(parent, _ -> new HashSet<>())
+                        .add(child);
+                }
+            }
+            default -> {
+                // Unknown record type
+            }
+            }
+        }
+        priorities = priorities(recordedDurations, parents, children);
+        leaves = recordedLeaves;
+    }
+
+    /// Derives the priorities from the durations and the edges of the
+    /// request graph. As a parent awaits its children, its recorded
+    /// duration includes (at least) the duration of its longest
+    /// running child. The duration of its own work is therefore
+    /// estimated as the difference. The priority of an invocation is
+    /// the duration of its own work plus the highest priority of
+    /// the invocations that have requested its results.
+    ///
+    private static Map<String, Long> priorities(Map<String, Long> durations,
+            Map<String, Set<String>> parents,
+            Map<String, Set<String>> children) {
+        Map<String, Long> own = new HashMap<>();
+        durations.forEach((key, duration) -> own.put(key,
+            Math.max(0, duration - children.getOrDefault(key, Set.of())
+                .stream().mapToLong(c -> durations.getOrDefault(c, 0L))
+                .max().orElse(0))));
+        Map<String, Long> result = new HashMap<>();
+        for (var key : own.keySet()) {
+            computePriority(key, own, parents, result, new HashSet<>());
+        }
+        return result;
+    }
+
+    private static long computePriority(String key, Map<String, Long> own,
+            Map<String, Set<String>> parents, Map<String, Long> result,
+            Set<String> visiting) {
+        var known = result.get(key);
+        if (known != null) {
+            return known;
+        }
+        if (!visiting.add(key)) {
+            // Cannot happen with a consistent history, but be safe
+            return 0;
+        }
+        long inherited = 0;
+        for (var parent : parents.getOrDefault(key, Set.of())) {
+            inherited = Math.max(inherited,
+                computePriority(parent, own, parents, result, visiting));
+        }
+        visiting.remove(key);
+        long priority = own.getOrDefault(key, 0L) + inherited;
+        result.put(key, priority);
+        return priority;
+    }
+
+    /// Checks if priorities are available from the previous execution.
+    ///
+    /// @return true, if successful
+    ///
+    /* default */ boolean hasPriorities() {
+        return !priorities.isEmpty();
+    }
+
+    /// Returns the priority of the invocation as derived from the
+    /// previous execution of the command. Invocations that are unknown
+    /// have priority zero.
+    ///
+    /// @param root the root project
+    /// @param invocation the invocation
+    /// @return the priority
+    ///
+    /* default */ long priority(AbstractRootProject root,
+            ProviderInvocation<?> invocation) {
+        if (priorities.isEmpty()) {
+            return 0;
+        }
+        return key(root, invocation).map(priorities::get).orElse(0L);
+    }
+
+    /// Starts the invocations recorded as leaves during the previous
+    /// execution of the command, those with the highest priority first.
+    ///
+    /// @param root the root project
+    ///
+    /* default */ void prefetch(AbstractRootProject root) {
+        if ("false".equals(context.property(PREFETCH, "true"))) {
+            return;
+        }
+        var predicted = predicted(root);
+        predicted.forEach(context::prefetch);
+        logger.atFine().log("Prefetching %d invocations", predicted.size());
+    }
+
+    /// Returns the invocations recorded as leaves during the previous
+    /// execution of the command, those with the highest priority first.
+    /// Recorded invocations that cannot be resolved unambiguously in
+    /// the current build (e.g. because the build configuration has
+    /// changed) are skipped.
+    ///
+    /// @param root the root project
+    /// @return the invocations
+    ///
+    /* default */ List<ProviderInvocation<?>>
+            predicted(AbstractRootProject root) {
+        if (leaves.isEmpty()) {
+            return List.of();
+        }
+        var generators = generators(root);
+        return leaves.stream().sorted(Comparator.comparing(
+            (String l) -> priorities.getOrDefault(l, 0L)).reversed())
+            .map(leaf -> resolve(root, generators, leaf))
+            .flatMap(Optional::stream).toList();
+    }
+
+    /// Returns the generators of all projects by their identifying
+    /// key. Ambiguous keys are mapped to an empty optional.
+    ///
+    private Map<String, Optional<Generator>>
+            generators(AbstractRootProject root) {
+        Map<String, Optional<Generator>> result = new HashMap<>();
+        root.projects(new String[] { "**" }, new String[0])
+            .map(AbstractProject.class::cast)
+            .forEach(project -> project
+                .dependencies(EnumSet.allOf(Intent.class))
+                .filter(p -> p instanceof Generator
+                    && !(p instanceof Project))
+                .map(Generator.class::cast)
+                .forEach(gen -> result.merge(generatorKey(root, gen),
+                    Optional.of(gen), (_, _) -> Optional.empty())));
+        return result;
+    }
+
+    private static String generatorKey(AbstractRootProject root,
+            Generator generator) {
+        return root.directory().relativize(generator.project().directory())
+            + "\t" + generator.getClass().getName() + "\t"
+            + generator.name();
+    }
+
+    /// Returns the key that identifies the invocation, if the invocation
+    /// is the invocation of a generator.
+    ///
+    private static Optional<String> key(AbstractRootProject root,
+            ProviderInvocation<?> invocation) {
+        if (!(invocation.provider() instanceof Generator generator)
+            || invocation.provider() instanceof Project) {
+            return Optional.empty();
+        }
+        var request = invocation.request();
+        return Optional.of(generatorKey(root, generator) + "\t"
+            + encode(request.type()) + "\t" + request.name().orElse("")
+            + "\t" + request.uses().stream().map(Intent::name).sorted()
+                .collect(Collectors.joining(",")));
+    }
+
+    private static String encode(ResourceType<?> type) {
+        return type.rawType().getName() + (type.containedType() == null ? ""
+            : "<" + encode(type.containedType()) + ">");
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private ResourceType<?> decode(String encoded)
+            throws ClassNotFoundException {
+        int open = encoded.indexOf('<');
+        if (open < 0) {
+            return ResourceType.resourceType((Class<? extends Resource>) Class
+                .forName(encoded, false, context.classLoader()));
+        }
+        return ResourceType.resourceType(
+            (Class<? extends Resources>) Class.forName(
+                encoded.substring(0, open), false, context.classLoader()),
+            decode(encoded.substring(open + 1, encoded.length() - 1)));
+    }
+
+    @SuppressWarnings({ "unchecked", "PMD.AvoidLiteralsInIfCondition" })
+    private Optional<ProviderInvocation<?>> resolve(AbstractRootProject root,
+            Map<String, Optional<Generator>> generators, String recorded) {
+        var parts = recorded.split("\t", -1);
+        if (parts.length != KEY_PARTS) {
+            return Optional.empty();
+        }
+        var generator = generators.getOrDefault(
+            parts[0] + "\t" + parts[1] + "\t" + parts[2], Optional.empty());
+        if (generator.isEmpty()) {
+            return Optional.empty();
+        }
+        ResourceRequest<Resource> request;
+        var intents = EnumSet.noneOf(Intent.class);
+        try {
+            request = generator.get()
+                .of((ResourceType<? extends Resource>) decode(parts[3]));
+            if (!parts[5].isEmpty()) {
+                Arrays.stream(parts[5].split(","))
+                    .forEach(i -> intents.add(Intent.valueOf(i)));
+            }
+        } catch (ClassNotFoundException | ClassCastException
+                | IllegalArgumentException e) {
+            // Stale entry
+            return Optional.empty();
+        }
+        if (!parts[4].isEmpty()) {
+            request = request.withName(parts[4]);
+        }
+        if (!intents.isEmpty()) {
+            request = request.using(intents);
+        }
+        var invocation = new ProviderInvocation<>(generator.get(), request);
+        // Only use it if it would be identified by the same key
+        return key(root, invocation).filter(recorded::equals)
+            .map(_ -> invocation);
+    }
+
+    /// Stores the leaves of the recorded invocations, the durations
+    /// of the evaluations and the edges of the request graph.
+    ///
+    /// @param root the root project
+    ///
+    /* default */ void store(AbstractRootProject root) {
+        var file = file(root);
+        if (file.isEmpty() || invoked.isEmpty()) {
+            return;
+        }
+        Set<ProviderInvocation<?>> requesting = new HashSet<>();
+        Set<String> edgeLines = new HashSet<>();
+        for (var edge : edges) {
+            requesting.add(edge.parent());
+            key(root, edge.parent()).ifPresent(p -> key(root, edge.child())
+                .ifPresent(c -> edgeLines.add(p + "\t" + c)));
+        }
+        Set<String> leafLines = new HashSet<>();
+        for (var invocation : invoked) {
+            if (!requesting.contains(invocation)) {
+                key(root, invocation).ifPresent(leafLines::add);
+            }
+        }
+        Map<String, Long> durationLines = new HashMap<>();
+        durations.forEach((invocation, millis) -> key(root, invocation)
+            .ifPresent(k -> durationLines.merge(k, millis, Math::max)));
+        List<String> lines = new ArrayList<>();
+        lines.add(FORMAT);
+        lines.add(command(root));
+        leafLines.stream().sorted().forEach(l -> lines.add("L\t" + l));
+        durationLines.entrySet().stream().sorted(Map.Entry.comparingByKey())
+            .forEach(e -> lines.add("D\t" + e.getValue() + "\t" + e.getKey()));
+        edgeLines.stream().sorted().forEach(e -> lines.add("E\t" + e));
+        try {
+            Files.createDirectories(file.get().getParent());
+            var tmp = Files.createTempFile(file.get().getParent(),
+                "history", ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, file.get(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.atWarning().withCause(e).log("Cannot write %s", file.get());
+        }
+    }
+}
@@ -19,9 +19,11 @@
 package org.jdrupes.builder.core;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.Properties;
 import org.apache.commons.cli.CommandLine;
+import org.jdrupes.builder.api.BuildException;
 import org.jdrupes.builder.api.ConfigurationException;
 import org.jdrupes.builder.api.Project;
 import org.jdrupes.builder.api.RootProject;
@@ -87,6 +89,7 @@ public class LauncherBase {
                     result.unlockProviders();
                     subprojects.forEach(result::project);
                     scopedBuildContext.get().buildProject().complete(result);
+                    scopedBuildContext.get().prefetch(result);
                     return result;
                 });
         } catch (SecurityException | NegativeArraySizeException
@@ -94,4 +97,52 @@ public class LauncherBase {
             throw new IllegalArgumentException(e);
         }
     }
+
+    /// Returns the [BuildException] that reports the given failure.
+    /// This is the innermost [BuildException] in the chain of causes
+    /// or, if there is none, a new [BuildException] with the failure
+    /// as cause.
+    ///
+    /// @param failure the failure
+    /// @return the build exception
+    ///
+    public static BuildException buildException(Throwable failure) {
+        BuildException found = null;
+        for (var checking = failure; checking != null;
+                checking = checking.getCause()) {
+            if (checking instanceof BuildException exc) {
+                found = exc;
+            }
+        }
+        return found != null ? found : new BuildException().cause(failure);
+    }
+
+    /// Returns the [BuildException] that reports the failures of a
+    /// build that has continued after a failure (see
+    /// [DefaultBuildContext#keepGoing]). A single failure is reported
+    /// as by [#buildException]. For several failures, a new
+    /// [BuildException] is returned. Its details list the summaries
+    /// of all failures and the [BuildException]s of the failures are
+    /// added to it as suppressed exceptions.
+    ///
+    /// @param failures the failures
+    /// @param formatter the formatter for the summaries
+    /// @return the build exception
+    ///
+    public static BuildException buildException(
+            Collection<? extends Throwable> failures,
+            BuildExceptionFormatter formatter) {
+        var reported = failures.stream().map(LauncherBase::buildException)
+            .distinct().toList();
+        if (reported.size() == 1) {
+            return reported.get(0);
+        }
+        var result = new BuildException().message("%d failures",
+            reported.size());
+        for (var failure : reported) {
+            result.detail(formatter.summary(failure) + System.lineSeparator());
+            result.addSuppressed(failure);
+        }
+        return result;
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import io.github.azagniotov.matcher.AntPathMatcher;
+import java.util.Collection;
+import java.util.List;
+
+/// A set of ant style path patterns, prepared for repeated matching.
+///
+/// The patterns are split into segments once. Patterns of the most
+/// common forms (`**/*`, `**/*.ext` and patterns without wildcards)
+/// are evaluated without invoking the general matcher. In addition,
+/// [#mayMatchBelow] allows a directory walk to skip directories
+/// in which no pattern can match, e.g. everything outside `src/main`
+/// when the only pattern is `src/main/**/*.java`.
+///
+/* default */ final class PathPatterns {
+
+    @SuppressWarnings("PMD.FieldNamingConventions")
+    private static final AntPathMatcher pathMatcher
+        = new AntPathMatcher.Builder().build();
+    private final List<Compiled> compiled;
+
+    /// The kind of a compiled pattern.
+    ///
+    private enum Kind {
+        ANY, SUFFIX, LITERAL, GENERAL
+    }
+
+    /// A compiled pattern.
+    ///
+    /// @param pattern the pattern
+    /// @param segments the pattern's segments
+    /// @param kind the kind
+    /// @param literal the suffix or the complete literal path
+    ///
+    private record Compiled(String pattern, String[] segments, Kind kind,
+            String literal) {
+    }
+
+    /// Initializes a new instance from the given patterns.
+    ///
+    /// @param patterns the patterns
+    ///
+    /* default */ PathPatterns(Collection<String> patterns) {
+        compiled = patterns.stream().map(PathPatterns::compile).toList();
+    }
+
+    @SuppressWarnings("PMD.AvoidLiteralsInIfCondition")
+    private static Compiled compile(String pattern) {
+        var segments = pattern.split("/");
+        if ("**/*".equals(pattern) || "**".equals(pattern)) {
+            return new Compiled(pattern, segments, Kind.ANY, null);
+        }
+        if (pattern.startsWith("**/*") && segments.length == 2
+            && !hasWildcard(pattern.substring(4))) {
+            return new Compiled(pattern, segments, Kind.SUFFIX,
+                pattern.substring(4));
+        }
+        if (!hasWildcard(pattern)) {
+            return new Compiled(pattern, segments, Kind.LITERAL, pattern);
+        }
+        return new Compiled(pattern, segments, Kind.GENERAL, null);
+    }
+
+    private static boolean hasWildcard(String value) {
+        return value.indexOf('*') >= 0 || value.indexOf('?') >= 0
+            || value.indexOf('{') >= 0 || value.indexOf('[') >= 0;
+    }
+
+    /// Checks if the set is empty.
+    ///
+    /// @return true, if successful
+    ///
+    /* default */ boolean isEmpty() {
+        return compiled.isEmpty();
+    }
+
+    /// Checks if any of the patterns matches the given path.
+    ///
+    /// @param path the path, using "/" as separator
+    /// @return true, if successful
+    ///
+    /* default */ boolean matches(String path) {
+        for (var pattern : compiled) {
+            if (matches(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(Compiled pattern, String path) {
+        return switch (pattern.kind()) {
+        case ANY -> true;
+        case SUFFIX -> path.endsWith(pattern.literal());
+        case LITERAL -> path.equals(pattern.literal());
+        default -> pathMatcher.isMatch(pattern.pattern(), path);
+        };
+    }
+
+    /// Checks if any of the patterns may match a path in the
+    /// directory with the given path (relative to the root of the
+    /// walk). Returns `false` only if it is certain that no
+    /// path below the directory can match.
+    ///
+    /// @param dir the directory, using "/" as separator, empty for
+    /// the root
+    /// @return true, if successful
+    ///
+    /* default */ boolean mayMatchBelow(String dir) {
+        if (dir.isEmpty()) {
+            return true;
+        }
+        var dirSegments = dir.split("/");
+        for (var pattern : compiled) {
+            if (mayMatchBelow(pattern.segments(), dirSegments)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mayMatchBelow(String[] patSegs, String[] dirSegs) {
+        for (int i = 0; i < dirSegs.length; i++) {
+            if (i >= patSegs.length) {
+                // Pattern ends at or above this directory
+                return false;
+            }
+            if (patSegs[i].contains("**")) {
+                return true;
+            }
+            if (!pathMatcher.isMatch(patSegs[i], dirSegs[i])) {
+                return false;
+            }
+        }
+        // All directory segments matched, pattern must have more
+        return patSegs.length > dirSegs.length;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/// Limits the number of provider invocations that are evaluated
+/// concurrently. When all slots are taken, the waiting invocations
+/// obtain the next free slot in the order of their priority (highest
+/// first) and, for equal priorities, in the order of their arrival.
+///
+/// The slot acquired for an invocation must be bound to
+/// [#currentSlot] while the invocation is evaluated. As
+/// [#currentSlot] is propagated by the [ScopedValueContext], the
+/// slot is known to all threads that work on behalf of the
+/// invocation. Whenever one of these threads waits for the result
+/// of another invocation, the slot is given up (see [#suspend]).
+/// Slots are therefore only held by invocations that actually do
+/// some work, and waiting for a result cannot lead to a dead lock.
+///
+/// The gate is initially open, i.e. it does not limit the number of
+/// concurrent evaluations, until [#limit] is invoked.
+///
+/* default */ final class PriorityGate {
+
+    /// The property that sets the number of slots, e.g.
+    /// `jdbld -Pjdbld.slots=8`. If not set or less than or equal
+    /// to zero, the number of concurrent evaluations is not limited.
+    /* default */ static final String SLOTS = "jdbld.slots";
+    /// The slot held by the invocation being evaluated.
+    /* default */ @SuppressWarnings("PMD.FieldNamingConventions")
+    static final ScopedValue<Slot> currentSlot = ScopedValue.newInstance();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(
+        Comparator.comparingLong(Waiter::priority).reversed()
+            .thenComparingLong(Waiter::sequence));
+    private volatile int slots;
+    private int used;
+    private long sequence;
+
+    static {
+        ScopedValueContext.add(currentSlot);
+    }
+
+    private record Waiter(long priority, long sequence) {
+    }
+
+    /// Limits the number of slots. A value less than or equal to zero
+    /// opens the gate.
+    ///
+    /// @param slots the slots
+    ///
+    /* default */ void limit(int slots) {
+        lock.lock();
+        try {
+            this.slots = slots;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /// Acquires a slot, waiting if necessary.
+    ///
+    /// @param priority the priority
+    /// @return the slot, to be closed when the work is done
+    /// @throws InterruptedException if interrupted while waiting
+    ///
+    /* default */ Slot acquire(long priority) throws InterruptedException {
+        if (slots <= 0) {
+            return new Slot(priority, false);
+        }
+        var slot = new Slot(priority, true);
+        take(slot, true);
+        return slot;
+    }
+
+    /// Takes a slot for the given slot holder. Gives up if a thread
+    /// starts waiting on behalf of the slot holder meanwhile.
+    ///
+    private void take(Slot slot, boolean interruptible)
+            throws InterruptedException {
+        lock.lock();
+        try {
+            var waiter = new Waiter(slot.priority, sequence++);
+            waiting.add(waiter);
+            try {
+                while (slots > 0
+                    && (used >= slots || !waiter.equals(waiting.peek()))) {
+                    if (slot.suspensions > 0) {
+                        return;
+                    }
+                    if (interruptible) {
+                        changed.await();
+                    } else {
+                        changed.awaitUninterruptibly();
+                    }
+                }
+                if (slot.suspensions > 0) {
+                    return;
+                }
+            } finally {
+                waiting.remove(waiter);
+                // Others may be waiting for this one to leave the queue
+                changed.signalAll();
+            }
+            used += 1;
+            slot.taken = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Slot slot) {
+        if (!slot.taken) {
+            return;
+        }
+        used -= 1;
+        slot.taken = false;
+        changed.signalAll();
+    }
+
+    /// Gives up the slot bound to [#currentSlot] (if any) until the
+    /// returned suspension is closed. The slot is given up as long as
+    /// at least one thread waits on behalf of the invocation. When the
+    /// last of these threads closes its suspension, a slot is acquired
+    /// again with the priority of the given up slot.
+    ///
+    /// @return the suspension
+    ///
+    /* default */ Suspension suspend() {
+        var slot = currentSlot.isBound() ? currentSlot.get() : null;
+        if (slot == null || !slot.counted || slot.gate() != this) {
+            return new Suspension(null);
+        }
+        lock.lock();
+        try {
+            slot.suspensions += 1;
+            release(slot);
+            // Stop a resumption in progress
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return new Suspension(slot);
+    }
+
+    /// A slot acquired from the gate.
+    ///
+    /* default */ final class Slot implements AutoCloseable {
+        private final long priority;
+        private final boolean counted;
+        // Guarded by lock
+        private boolean taken;
+        private int suspensions;
+        private boolean closed;
+
+        private Slot(long priority, boolean counted) {
+            this.priority = priority;
+            this.counted = counted;
+        }
+
+        private PriorityGate gate() {
+            return PriorityGate.this;
+        }
+
+        @Override
+        public void close() {
+            if (!counted) {
+                return;
+            }
+            lock.lock();
+            try {
+                closed = true;
+                release(this);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /// A temporarily given up slot.
+    ///
+    /* default */ final class Suspension implements AutoCloseable {
+        private final Slot slot;
+
+        private Suspension(Slot slot) {
+            this.slot = slot;
+        }
+
+        /// Acquires a slot again if no other thread waits on behalf
+        /// of the invocation any more. Waiting for the slot is not
+        /// interruptible, because the slot is released anyway when
+        /// the invocation completes. The interrupt status is preserved.
+        ///
+        @Override
+        public void close() {
+            if (slot == null) {
+                return;
+            }
+            lock.lock();
+            try {
+                slot.suspensions -= 1;
+                if (slot.suspensions == 0 && !slot.closed && !slot.taken) {
+                    take(slot, false);
+                }
+            } catch (InterruptedException e) {
+                // Cannot happen
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -19,9 +19,7 @@
 package org.jdrupes.builder.core;
 
 import java.lang.ScopedValue.CallableOp;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
@@ -41,37 +39,88 @@ public final class ScopedValueContext {
     private static List<ScopedValue<?>> registry = new CopyOnWriteArrayList<>();
     private static final ScopedValue<Boolean> DUMMY = ScopedValue.newInstance();
 
+    /// Implemented by the values of registered scoped values that own
+    /// the bindings made while they are bound. Snapshots taken in the
+    /// scope of such a value are cached in the value and reused by all
+    /// threads that inherit the scope.
+    ///
+    public interface SnapshotOwner {
+
+        /// Returns the last snapshot taken in the scope of the owner.
+        ///
+        /// @return the snapshot or `null`
+        ///
+        Snapshot lastSnapshot();
+
+        /// Sets the last snapshot taken in the scope of the owner.
+        ///
+        /// @param snapshot the snapshot
+        ///
+        void lastSnapshot(Snapshot snapshot);
+    }
+
     /// A snapshot of the the values of the registered scoped value instances.
     ///
+    /// Snapshots are immutable. The carriers for the values are therefore
+    /// created only once, when first needed.
+    ///
     public static final class Snapshot {
-        private final List<ScopedValue<?>> scoped = new LinkedList<>(registry);
-        private final List<Object> values = new ArrayList<>(scoped.size());
+        private final int registered;
+        private final ScopedValue<?>[] scoped;
+        private final Object[] values;
+        private volatile ScopedValue.Carrier carriers;
 
         private Snapshot() {
-            for (var iter = scoped.iterator(); iter.hasNext();) {
-                var scopedVar = iter.next();
+            int size = registry.size();
+            var bound = new ScopedValue<?>[size];
+            var boundValues = new Object[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                var scopedVar = registry.get(i);
                 if (scopedVar.isBound()) {
-                    values.add(scopedVar.get());
-                } else {
-                    iter.remove();
+                    bound[count] = scopedVar;
+                    boundValues[count] = scopedVar.get();
+                    count += 1;
                 }
             }
+            registered = size;
+            scoped = Arrays.copyOf(bound, count);
+            values = Arrays.copyOf(boundValues, count);
+        }
+
+        /// Checks if the snapshot represents the values that are
+        /// currently bound.
+        ///
+        private boolean isCurrent() {
+            if (registered != registry.size()) {
+                return false;
+            }
+            int next = 0;
+            for (int i = 0; i < registered; i++) {
+                var scopedVar = registry.get(i);
+                if (!scopedVar.isBound()) {
+                    continue;
+                }
+                if (next >= scoped.length || scoped[next] != scopedVar
+                    || values[next] != scopedVar.get()) {
+                    return false;
+                }
+                next += 1;
+            }
+            return next == scoped.length;
         }
 
         @SuppressWarnings("unchecked")
         private ScopedValue.Carrier carrierList() {
-            var scopedIterator = scoped.iterator();
-            var valuesIterator = values.iterator();
-            ScopedValue.Carrier carriers = null;
-            if (scopedIterator.hasNext()) {
-                carriers = ScopedValue.where(
-                    (ScopedValue<Object>) scopedIterator.next(),
-                    valuesIterator.next());
-            }
-            while (scopedIterator.hasNext()) {
-                carriers = carriers.where(
-                    (ScopedValue<Object>) scopedIterator.next(),
-                    valuesIterator.next());
+            if (carriers == null && scoped.length > 0) {
+                var result = ScopedValue.where(
+                    (ScopedValue<Object>) scoped[0], values[0]);
+                for (int i = 1; i < scoped.length; i++) {
+                    result = result.where((ScopedValue<Object>) scoped[i],
+                        values[i]);
+                }
+                // Races are harmless, the result is always equivalent
+                carriers = result;
             }
             return carriers;
         }
@@ -155,12 +204,36 @@ public final class ScopedValueContext {
         Arrays.asList(values).forEach(registry::add);
     }
 
-    /// Creates a new snapshot.
+    /// Returns a snapshot of the currently bound values. Snapshots are
+    /// taken very frequently, often several times with the same values
+    /// bound. If a [SnapshotOwner] is bound, the last snapshot taken
+    /// in its scope is therefore reused if the bound values haven't
+    /// changed. Else, a new snapshot is created.
     ///
     /// @return the snapshot
     ///
     public static Snapshot snapshot() {
-        return new Snapshot();
+        var owner = owner();
+        if (owner == null) {
+            return new Snapshot();
+        }
+        var last = owner.lastSnapshot();
+        if (last != null && last.isCurrent()) {
+            return last;
+        }
+        var result = new Snapshot();
+        owner.lastSnapshot(result);
+        return result;
+    }
+
+    private static SnapshotOwner owner() {
+        for (var scopedVar : registry) {
+            if (scopedVar.isBound()
+                && scopedVar.get() instanceof SnapshotOwner owner) {
+                return owner;
+            }
+        }
+        return null;
     }
 
     /// Executes the task with the registered scoped values inherited
@@ -334,6 +334,8 @@ public class ScriptExecutor extends AbstractProvider
             copyData(process.getInputStream(), context().out());
             copyData(process.getErrorStream(), context().error());
             int exitValue = process.waitFor();
+            // The script may have written anything
+            FileMetadataCache.invalidateAll();
             if (exitValue != 0) {
                 throw new BuildException().from(this)
                     .message("Interpreter exited with %d", exitValue);
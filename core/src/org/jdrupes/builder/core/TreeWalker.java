@@ -0,0 +1,271 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/// Walks a directory tree and reports the visited paths in pre-order
+/// (a directory before its content). The content of a directory is
+/// reported sorted by name, so the result is deterministic.
+///
+/// The walk starts sequentially in the invoking thread. Once the
+/// number of visited paths has reached a given threshold, the tree
+/// is obviously large and the directories not yet visited are listed
+/// in separate tasks of a bounded [ForkJoinPool]. The decision is thus
+/// made during the walk and does not depend on information from
+/// previous walks.
+///
+/// The [Filter] decides which paths are reported and which directories
+/// are descended into. It must be thread safe, because it may be
+/// invoked by the tasks of a parallel walk.
+///
+/* default */ final class TreeWalker {
+
+    @SuppressWarnings("PMD.FieldNamingConventions")
+    private static final ForkJoinPool pool = new ForkJoinPool(
+        Math.max(4, Runtime.getRuntime().availableProcessors()));
+    private final Filter filter;
+    private final int parallelThreshold;
+    private int visitedCount;
+
+    /// A visited path.
+    ///
+    /// @param path the path
+    /// @param attrs the attributes
+    /// @param included whether the filter includes the path, is `false`
+    /// for directories that have only been descended into
+    /// @param descended whether the path is a directory that has been
+    /// descended into
+    ///
+    /* default */ record Visited(Path path, BasicFileAttributes attrs,
+            boolean included, boolean descended) {
+    }
+
+    /// Decides about the paths to be reported.
+    ///
+    /* default */ interface Filter {
+
+        /// Checks if the given file is to be included in the result.
+        ///
+        /// @param file the file
+        /// @param attrs the attributes
+        /// @return true, if successful
+        ///
+        boolean includeFile(Path file, BasicFileAttributes attrs);
+
+        /// Checks if the given directory is to be included in the result.
+        ///
+        /// @param dir the directory
+        /// @param attrs the attributes
+        /// @return true, if successful
+        ///
+        boolean includeDirectory(Path dir, BasicFileAttributes attrs);
+
+        /// Checks if the walk is to descend into the given directory.
+        ///
+        /// @param dir the directory
+        /// @param attrs the attributes
+        /// @return true, if successful
+        ///
+        boolean descend(Path dir, BasicFileAttributes attrs);
+    }
+
+    private TreeWalker(Filter filter, int parallelThreshold) {
+        this.filter = filter;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /// Walks the tree starting at `root`. The walk continues in parallel
+    /// once `parallelThreshold` paths have been visited. Use `0` to
+    /// walk in parallel from the start and [Integer#MAX_VALUE] to walk
+    /// sequentially.
+    ///
+    /// @param root the root
+    /// @param filter the filter
+    /// @param parallelThreshold the number of paths to visit before
+    /// continuing in parallel
+    /// @return the visited paths
+    /// @throws IOException Signals that an I/O exception has occurred.
+    ///
+    /* default */ static List<Visited> walk(Path root, Filter filter,
+            int parallelThreshold) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(root, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+        if (!attrs.isDirectory()) {
+            return filter.includeFile(root, attrs)
+                ? List.of(new Visited(root, attrs, true, false))
+                : List.of();
+        }
+        var walker = new TreeWalker(filter, parallelThreshold);
+        List<Object> parts = new ArrayList<>();
+        try {
+            walker.directory(root, attrs, parts);
+            List<Visited> result = new ArrayList<>();
+            for (var part : parts) {
+                if (part instanceof DirectoryTask task) {
+                    result.addAll(task.join());
+                } else {
+                    result.add((Visited) part);
+                }
+            }
+            return result;
+        } catch (UncheckedIOException e) {
+            parts.stream().filter(p -> p instanceof DirectoryTask)
+                .forEach(t -> ((DirectoryTask) t).cancel(true));
+            throw e.getCause();
+        }
+    }
+
+    /// Visits a directory in the invoking thread. Sub directories are
+    /// visited recursively until the threshold has been reached. After
+    /// that, a task is submitted for each sub directory. The parts of
+    /// the result (visited paths and tasks) are added to `parts` in
+    /// pre-order.
+    ///
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private void directory(Path dir, BasicFileAttributes attrs,
+            List<Object> parts) {
+        boolean include = filter.includeDirectory(dir, attrs);
+        boolean descend = filter.descend(dir, attrs);
+        if (!include && !descend) {
+            return;
+        }
+        parts.add(new Visited(dir, attrs, include, descend));
+        if (!descend) {
+            return;
+        }
+        for (var entry : list(dir)) {
+            BasicFileAttributes entryAttrs;
+            try {
+                entryAttrs = Files.readAttributes(entry,
+                    BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) { // NOPMD
+                // Vanished or inaccessible, as with walkFileTree
+                continue;
+            }
+            visitedCount += 1;
+            if (!entryAttrs.isDirectory()) {
+                if (filter.includeFile(entry, entryAttrs)) {
+                    parts.add(new Visited(entry, entryAttrs, true, false));
+                }
+            } else if (visitedCount >= parallelThreshold) {
+                parts.add(pool.submit(
+                    new DirectoryTask(entry, entryAttrs, filter)));
+            } else {
+                directory(entry, entryAttrs, parts);
+            }
+        }
+    }
+
+    /// Returns the entries of the directory sorted by name.
+    ///
+    private static List<Path> list(Path dir) {
+        List<Path> entries = new ArrayList<>();
+        try (var stream = Files.newDirectoryStream(dir)) {
+            stream.forEach(entries::add);
+        } catch (AccessDeniedException | NoSuchFileException e) {
+            return List.of();
+        } catch (DirectoryIteratorException e) {
+            throw new UncheckedIOException(e.getCause());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        entries.sort(Comparator.comparing(p -> p.getFileName().toString()));
+        return entries;
+    }
+
+    /// Handles a single directory and forks a task for each
+    /// sub directory to be descended into.
+    ///
+    @SuppressWarnings("serial")
+    private static final class DirectoryTask
+            extends RecursiveTask<List<Visited>> {
+
+        private final Path dir;
+        private final BasicFileAttributes attrs;
+        private final Filter filter;
+
+        private DirectoryTask(Path dir, BasicFileAttributes attrs,
+                Filter filter) {
+            this.dir = dir;
+            this.attrs = attrs;
+            this.filter = filter;
+        }
+
+        @Override
+        @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+        protected List<Visited> compute() {
+            boolean include = filter.includeDirectory(dir, attrs);
+            boolean descend = filter.descend(dir, attrs);
+            if (!include && !descend) {
+                return List.of();
+            }
+            List<Visited> result = new ArrayList<>();
+            result.add(new Visited(dir, attrs, include, descend));
+            if (!descend) {
+                return result;
+            }
+
+            // Collect the directory's content in a stable order
+            List<Object> parts = new ArrayList<>();
+            for (var entry : list(dir)) {
+                BasicFileAttributes entryAttrs;
+                try {
+                    entryAttrs = Files.readAttributes(entry,
+                        BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) { // NOPMD
+                    // Vanished or inaccessible, as with walkFileTree
+                    continue;
+                }
+                if (entryAttrs.isDirectory()) {
+                    var task = new DirectoryTask(entry, entryAttrs, filter);
+                    task.fork();
+                    parts.add(task);
+                } else if (filter.includeFile(entry, entryAttrs)) {
+                    parts.add(new Visited(entry, entryAttrs, true, false));
+                }
+            }
+            for (var part : parts) {
+                if (part instanceof DirectoryTask task) {
+                    result.addAll(task.join());
+                } else {
+                    result.add((Visited) part);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -19,7 +19,6 @@
 package org.jdrupes.builder.core;
 
 import com.google.common.flogger.FluentLogger;
-import io.github.azagniotov.matcher.AntPathMatcher;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
@@ -49,9 +48,6 @@ public class ZipFileInputTree<T extends InputResource> extends ResourceObject
         implements InputTree<T> {
     @SuppressWarnings({ "unused" })
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-    @SuppressWarnings("PMD.FieldNamingConventions")
-    private static final AntPathMatcher pathMatcher
-        = new AntPathMatcher.Builder().build();
     private Instant latestChange;
     private final Path zipFilePath;
     private ZipFile zipFile;
@@ -123,14 +119,13 @@ public class ZipFileInputTree<T extends InputResource> extends ResourceObject
     @Override
     public Stream<Entry<T>> entries() {
         List<Entry<T>> result = new ArrayList<>();
+        var includes = new PathPatterns(Arrays.asList(patterns));
+        var excluded = new PathPatterns(excludes);
         var entries = zipFile().entries();
         while (entries.hasMoreElements()) {
             var entry = entries.nextElement();
-            if (!Arrays.stream(patterns).anyMatch(
-                pattern -> pathMatcher.isMatch(pattern, entry.getName()))
-                || excludes.stream().anyMatch(
-                    ex -> pathMatcher.isMatch(ex, entry.getName()))
-                || entry.isDirectory()) {
+            if (entry.isDirectory() || !includes.matches(entry.getName())
+                || excluded.matches(entry.getName())) {
                 continue;
             }
             try {
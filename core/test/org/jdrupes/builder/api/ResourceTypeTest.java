@@ -108,4 +108,16 @@ public class ResourceTypeTest {
         assertEquals(FileTree.class, container.rawType());
         assertEquals(FileResource.class, container.containedType().rawType());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testEqualTypesFromDifferentSources() {
+        var token = new ResourceType<FileTree<FileResource>>() {};
+        var created = ResourceType.resourceType(FileTree.class,
+            FileResourceType);
+        assertEquals(token, created);
+        assertEquals(token.hashCode(), created.hashCode());
+        assertTrue(token.isAssignableFrom(created));
+        assertTrue(ResourceType.resourceType(FileResource.class)
+            == ResourceType.resourceType(FileResource.class));
+    }
+}
@@ -0,0 +1,172 @@
+package org.jdrupes.builder.core;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.jdrupes.builder.api.BuildException;
+import org.jdrupes.builder.api.FileResource;
+import org.jdrupes.builder.api.Intent;
+import org.jdrupes.builder.api.Project;
+import org.jdrupes.builder.api.Resource;
+import org.jdrupes.builder.api.ResourceProvider;
+import org.jdrupes.builder.api.ResourceRequest;
+import static org.jdrupes.builder.api.ResourceType.FileResourceType;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * JUnit tests for the handling of failures by DefaultBuildContext.
+ */
+final class DefaultBuildContextTest {
+
+    @TempDir
+    private Path tmpDir;
+    private static volatile CountDownLatch release;
+
+    /// A generator that fails.
+    ///
+    private static final class Failing extends AbstractGenerator {
+
+        private Failing(Project project, String name) {
+            super(project);
+            name(name);
+        }
+
+        @Override
+        protected <T extends Resource> Collection<T>
+                doProvide(ResourceRequest<T> request) {
+            throw new BuildException().from(this).message("%s failed",
+                name());
+        }
+    }
+
+    /// A generator that does not depend on the failing generators and
+    /// provides its resource once released.
+    ///
+    private static final class Independent extends AbstractGenerator {
+
+        private Independent(Project project) {
+            super(project);
+            name("independent");
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected <T extends Resource> Collection<T>
+                doProvide(ResourceRequest<T> request) {
+            try {
+                if (!release.await(10, TimeUnit.SECONDS)) {
+                    throw new BuildException().message("Not released");
+                }
+            } catch (InterruptedException e) {
+                throw new BuildException().from(this).cause(e);
+            }
+            return List.of((T) FileResource.of(project().directory()
+                .resolve("independent.txt")));
+        }
+    }
+
+    /// The root project of the test builds.
+    ///
+    public static final class TestRoot extends AbstractRootProject {
+
+        /// Initializes a new test root.
+        ///
+        public TestRoot() {
+            super(name("test"));
+            generator(new Failing(this, "first"));
+            generator(new Failing(this, "second"));
+            generator(new Independent(this));
+        }
+    }
+
+    private static CommandLine keepGoing() throws ParseException {
+        var options = new Options();
+        options.addOption(Option.builder()
+            .longOpt(DefaultBuildContext.KEEP_GOING).get());
+        return new DefaultParser().parse(options,
+            new String[] { "--" + DefaultBuildContext.KEEP_GOING });
+    }
+
+    private static ResourceProvider provider(AbstractRootProject root,
+            String name) {
+        return root.providers().select(EnumSet.allOf(Intent.class))
+            .filter(p -> name.equals(p.name())).findFirst().get();
+    }
+
+    private static Stream<FileResource> request(AbstractRootProject root,
+            ResourceProvider provider) {
+        var context = root.context();
+        return ScopedValue.where(LauncherBase.scopedBuildContext, context)
+            .call(() -> context.startRequestChain(
+                context.inScopeForProviderCall())
+                .call(() -> context.resources(provider,
+                    new DefaultResourceRequest<FileResource>(
+                        FileResourceType))));
+    }
+
+    private static void close(AbstractRootProject root) {
+        ScopedValue.where(LauncherBase.scopedBuildContext, root.context())
+            .run(root::close);
+    }
+
+    @Test
+    void testFailureCancelsBuild() {
+        release = new CountDownLatch(1);
+        var root = LauncherBase.createProjects(tmpDir, TestRoot.class,
+            List.of(), new Properties(), null);
+        try {
+            var independent = request(root, provider(root, "independent"));
+            var failing = request(root, provider(root, "first"));
+            assertThrows(BuildException.class, () -> failing.toList());
+            assertTrue(root.context().isCancelling());
+            var thrown = assertThrows(BuildException.class,
+                () -> independent.toList());
+            assertEquals("Cancelled because of a previous failure",
+                thrown.getMessage());
+        } finally {
+            close(root);
+        }
+    }
+
+    @Test
+    void testKeepGoing() throws ParseException {
+        release = new CountDownLatch(1);
+        var root = LauncherBase.createProjects(tmpDir, TestRoot.class,
+            List.of(), new Properties(), keepGoing());
+        try {
+            var independent = request(root, provider(root, "independent"));
+            List<RuntimeException> failures = new ArrayList<>();
+            for (var name : List.of("first", "second")) {
+                var failing = request(root, provider(root, name));
+                failures.add(assertThrows(BuildException.class,
+                    () -> failing.toList()));
+            }
+            assertFalse(root.context().isCancelling());
+            release.countDown();
+            assertEquals(List.of(tmpDir.resolve("independent.txt")),
+                independent.map(FileResource::path).toList());
+
+            var reported = LauncherBase.buildException(failures,
+                new DefaultBuildExceptionFormatter());
+            assertEquals("2 failures", reported.getMessage());
+            assertEquals(2, reported.getSuppressed().length);
+            assertTrue(reported.details().contains("first failed"));
+            assertTrue(reported.details().contains("second failed"));
+        } finally {
+            close(root);
+        }
+    }
+}
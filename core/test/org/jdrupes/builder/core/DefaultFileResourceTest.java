@@ -68,6 +68,19 @@ final class DefaultFileResourceTest {
         assertEquals(file, resource.path());
     }
 
+    @Test
+    void testNameIsDerivedFromPath() throws Exception {
+        Path file = tmpDir.resolve("named.txt");
+
+        DefaultFileResourceWrapper resource
+            = new DefaultFileResourceWrapper(file);
+        assertEquals(Path.of("").toAbsolutePath().relativize(file).toString(),
+            resource.name().get());
+        assertTrue(resource.isLocked());
+        assertThrows(IllegalStateException.class,
+            () -> resource.name("other"));
+    }
+
     @Test
     void testAsOfReturnsEmptyWhenFileDoesNotExist() throws Exception {
         String filename = UUID.randomUUID().toString();
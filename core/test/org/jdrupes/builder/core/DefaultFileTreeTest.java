@@ -208,4 +208,68 @@ class DefaultFileTreeTest {
         List<Path> entries = ft.paths().collect(Collectors.toList());
         assertEquals(0, entries.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testEquivalentTreeSeesLaterChanges() throws IOException {
+        Path sub = tmpDir.resolve("sub");
+        Files.createDirectories(sub);
+        Files.writeString(sub.resolve("a.txt"), "a");
+
+        FileTree<FileResource> first = FileTree.of(null, tmpDir, "**/*.txt");
+        assertEquals(1, first.stream().count());
+
+        // Equivalent tree filled after a change without clear()
+        Files.writeString(sub.resolve("b.txt"), "b");
+        FileTree<FileResource> second = FileTree.of(null, tmpDir, "**/*.txt");
+        assertEquals(2, second.stream().count());
+    }
+
+    @Test
+    void testIdentityDoesNotDependOnContent() throws IOException {
+        Files.writeString(tmpDir.resolve("a.txt"), "a");
+
+        FileTree<FileResource> first = FileTree.of(null, tmpDir, "**/*.txt");
+        FileTree<FileResource> second = FileTree.of(null, tmpDir, "**/*.txt");
+        int hash = first.hashCode();
+        assertEquals(1, first.stream().count());
+        assertEquals(hash, first.hashCode());
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        second.exclude("b.txt");
+        assertNotEquals(first, second);
+        assertNotEquals(first, FileTree.of(null, tmpDir, "**/*.java"));
+    }
+
+    @Test
+    void testSnapshotStoredOnCommitOnly() throws IOException {
+        Path src = tmpDir.resolve("src");
+        Files.createDirectories(src);
+        Files.writeString(src.resolve("a.txt"), "a");
+        Files.writeString(src.resolve("b.txt"), "b");
+        Path snapshot = tmpDir.resolve("snapshot.txt");
+
+        var first = (DefaultFileTree<?>) FileTree.of(null, src, "**/*.txt");
+        first.persistentSnapshot(snapshot);
+        assertEquals(2, first.paths().count());
+        assertFalse(Files.exists(snapshot));
+        first.commitSnapshot();
+        assertTrue(Files.exists(snapshot));
+
+        // Changes are reported until committed
+        Files.delete(src.resolve("a.txt"));
+        for (int i = 0; i < 2; i++) {
+            var next = (DefaultFileTree<?>) FileTree.of(null, src, "**/*.txt");
+            next.persistentSnapshot(snapshot);
+            assertEquals(List.of(Path.of("a.txt")),
+                List.copyOf(next.delta().get().removed()));
+        }
+        var last = (DefaultFileTree<?>) FileTree.of(null, src, "**/*.txt");
+        last.persistentSnapshot(snapshot);
+        assertEquals(1, last.paths().count());
+        last.commitSnapshot();
+        var after = (DefaultFileTree<?>) FileTree.of(null, src, "**/*.txt");
+        after.persistentSnapshot(snapshot);
+        assertTrue(after.delta().get().isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package org.jdrupes.builder.core;
+
+import java.util.EnumSet;
+import java.util.Set;
+import org.jdrupes.builder.api.FileResource;
+import org.jdrupes.builder.api.Intent;
+import static org.jdrupes.builder.api.ResourceType.FileResourceType;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * JUnit tests for DefaultResourceRequest.
+ */
+final class DefaultResourceRequestTest {
+
+    @Test
+    void testUnchangedRequestIsReused() {
+        var request = new DefaultResourceRequest<FileResource>(
+            FileResourceType);
+        assertSame(request, request.using(Set.of()));
+        assertSame(request, request.withName(null));
+        var named = request.withName("a");
+        assertSame(named, named.withName("a"));
+    }
+
+    @Test
+    void testEqualRequestsHaveEqualHashCodes() {
+        var request = new DefaultResourceRequest<FileResource>(
+            FileResourceType);
+        var first = request.using(EnumSet.of(Intent.Consume));
+        var second = request.using(Set.of(Intent.Consume));
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(request, first);
+    }
+
+    @Test
+    void testUsesIsUnmodifiable() {
+        var request = new DefaultResourceRequest<FileResource>(
+            FileResourceType).using(EnumSet.of(Intent.Consume));
+        assertThrows(UnsupportedOperationException.class,
+            () -> request.uses().add(Intent.Supply));
+    }
+}
@@ -5,6 +5,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -277,4 +278,28 @@ class DefaultResourcesTest {
 
         assertEquals(IOResourcesType, resources.type());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testConcurrentAdds() throws InterruptedException {
+        CoreResourceFactory factory = new CoreResourceFactory();
+        Resources<IOResource> resources = factory.newResource(
+            IOResourcesType, null).orElseThrow();
+
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    resources.add(new DummyIOResource("r" + i));
+                }
+            }));
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, resources.stream().count());
+        assertEquals(1000, resources.get().size());
+        assertEquals(resources.get().hashCode(),
+            ((DefaultResources<IOResource>) resources).contentHash());
+    }
+}
@@ -0,0 +1,155 @@
+package org.jdrupes.builder.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.jdrupes.builder.api.FileResource;
+import org.jdrupes.builder.api.FileTree;
+import org.jdrupes.builder.api.Project;
+import org.jdrupes.builder.api.Resource;
+import org.jdrupes.builder.api.ResourceRequest;
+import static org.jdrupes.builder.api.ResourceType.CleanlinessType;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * JUnit tests for FileMetadataCache.
+ */
+final class FileMetadataCacheTest {
+
+    @TempDir
+    private Path tmpDir;
+
+    /// A generator that provides nothing.
+    ///
+    private static final class Writer extends AbstractGenerator {
+
+        private Writer(Project project) {
+            super(project);
+        }
+
+        @Override
+        protected <T extends Resource> Collection<T>
+                doProvide(ResourceRequest<T> request) {
+            return List.of();
+        }
+    }
+
+    /// The root project of the test builds.
+    ///
+    public static final class TestRoot extends AbstractRootProject {
+
+        /// Initializes a new test root.
+        ///
+        public TestRoot() {
+            super(name("test"));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Check {
+        void run(AbstractRootProject root) throws IOException;
+    }
+
+    private void inBuild(Check check) throws ParseException, IOException {
+        CommandLine commandLine = new DefaultParser().parse(new Options(),
+            new String[] { "build" });
+        var root = LauncherBase.createProjects(tmpDir.resolve("project"),
+            TestRoot.class, List.of(), new Properties(), commandLine);
+        try {
+            ScopedValue.where(LauncherBase.scopedBuildContext, root.context())
+                .run(() -> {
+                    try {
+                        check.run(root);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        } finally {
+            ScopedValue.where(LauncherBase.scopedBuildContext, root.context())
+                .run(root::close);
+        }
+    }
+
+    private static void touch(Path file, long millis) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(millis));
+    }
+
+    @Test
+    void testHitAndInvalidate() throws ParseException, IOException {
+        var file = tmpDir.resolve("file.txt");
+        Files.writeString(file, "content");
+        touch(file, 1_000_000);
+        inBuild(_ -> {
+            assertEquals(Instant.ofEpochMilli(1_000_000),
+                FileMetadataCache.lastModified(file).get());
+            // Not noticed without invalidation
+            touch(file, 2_000_000);
+            assertEquals(Instant.ofEpochMilli(1_000_000),
+                FileMetadataCache.lastModified(file).get());
+            FileMetadataCache.invalidate(file);
+            assertEquals(Instant.ofEpochMilli(2_000_000),
+                FileMetadataCache.lastModified(file).get());
+
+            touch(file, 3_000_000);
+            FileMetadataCache.invalidateTree(tmpDir);
+            assertEquals(Instant.ofEpochMilli(3_000_000),
+                FileMetadataCache.lastModified(file).get());
+
+            touch(file, 4_000_000);
+            FileMetadataCache.invalidateAll();
+            assertEquals(Instant.ofEpochMilli(4_000_000),
+                FileMetadataCache.lastModified(file).get());
+        });
+    }
+
+    @Test
+    void testMissingNotCached() throws ParseException, IOException {
+        var file = tmpDir.resolve("created.txt");
+        inBuild(_ -> {
+            assertTrue(FileMetadataCache.lastModified(file).isEmpty());
+            // Created by a writer that doesn't invalidate
+            Files.writeString(file, "content");
+            assertTrue(FileMetadataCache.lastModified(file).isPresent());
+        });
+    }
+
+    @Test
+    void testScanInvalidated() throws ParseException, IOException {
+        var dir = tmpDir.resolve("out");
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("a.txt"), "a");
+        inBuild(_ -> {
+            FileTree<FileResource> tree = FileTree.of(null, dir, "**/*");
+            assertEquals(1, tree.stream().count());
+            // Written by an external process, as e.g. npm
+            Files.writeString(dir.resolve("b.txt"), "b");
+            FileMetadataCache.invalidateAll();
+            tree = FileTree.of(null, dir, "**/*");
+            assertEquals(2, tree.stream().count());
+        });
+    }
+
+    @Test
+    void testCleanupInvalidates() throws ParseException, IOException {
+        var file = tmpDir.resolve("generated.txt");
+        Files.writeString(file, "content");
+        inBuild(root -> {
+            assertTrue(FileMetadataCache.lastModified(file).isPresent());
+            var writer = new Writer(root);
+            assertTrue(writer.cleanup(writer.of(CleanlinessType), file));
+            assertTrue(FileMetadataCache.lastModified(file).isEmpty());
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package org.jdrupes.builder.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * JUnit tests for FileTreeSnapshot.
+ */
+final class FileTreeSnapshotTest {
+
+    @TempDir
+    private Path tmpDir;
+
+    private static final TreeWalker.Filter ALL_FILES = new TreeWalker.Filter() {
+        @Override
+        public boolean includeFile(Path file, BasicFileAttributes attrs) {
+            return true;
+        }
+
+        @Override
+        public boolean includeDirectory(Path dir, BasicFileAttributes attrs) {
+            return false;
+        }
+
+        @Override
+        public boolean descend(Path dir, BasicFileAttributes attrs) {
+            return true;
+        }
+    };
+
+    private Path write(String path, String content) throws IOException {
+        var file = tmpDir.resolve("tree").resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file;
+    }
+
+    @Test
+    void testScanAndReload() throws IOException {
+        write("a.txt", "a");
+        write("sub/b.txt", "b");
+        var root = tmpDir.resolve("tree");
+        var snapshot = FileTreeSnapshot.scan(root, ALL_FILES, null);
+        assertEquals(Set.of("a.txt", "sub/b.txt"), snapshot.files().keySet());
+
+        var file = tmpDir.resolve("snapshot");
+        snapshot.store(file);
+        var loaded = FileTreeSnapshot.load(file).get();
+        assertEquals(snapshot.files(), loaded.files());
+        assertEquals(snapshot.directories(), loaded.directories());
+        assertTrue(snapshot.deltaFrom(loaded).isEmpty());
+    }
+
+    @Test
+    void testDelta() throws IOException {
+        write("a.txt", "a");
+        var changed = write("sub/b.txt", "b");
+        var removed = write("sub/c.txt", "c");
+        var root = tmpDir.resolve("tree");
+
+        // Make sure that the directory modification times change
+        var past = FileTime.from(Instant.now().minusSeconds(60));
+        Files.setLastModifiedTime(root, past);
+        Files.setLastModifiedTime(root.resolve("sub"), past);
+        var previous = FileTreeSnapshot.scan(root, ALL_FILES, null);
+
+        Files.writeString(changed, "bb");
+        Files.setLastModifiedTime(changed, FileTime.from(Instant.now()));
+        Files.delete(removed);
+        write("sub/d.txt", "d");
+
+        var current = FileTreeSnapshot.scan(root, ALL_FILES, previous);
+        var delta = current.deltaFrom(previous);
+        assertEquals(Set.of(Path.of("sub/d.txt")), delta.added());
+        assertEquals(Set.of(Path.of("sub/b.txt")), delta.changed());
+        assertEquals(Set.of(Path.of("sub/c.txt")), delta.removed());
+    }
+
+    @Test
+    void testUnchangedDirectoryDetectsModifiedFile() throws IOException {
+        write("a.txt", "a");
+        var root = tmpDir.resolve("tree");
+        var previous = FileTreeSnapshot.scan(root, ALL_FILES, null);
+        var file = root.resolve("a.txt");
+        Files.writeString(file, "changed");
+        Files.setLastModifiedTime(file,
+            FileTime.from(Instant.now().plusSeconds(60)));
+
+        var current = FileTreeSnapshot.scan(root, ALL_FILES, previous);
+        assertEquals(Set.of(Path.of("a.txt")),
+            current.deltaFrom(previous).changed());
+    }
+
+    @Test
+    void testMissingRoot() throws IOException {
+        var snapshot = FileTreeSnapshot.scan(tmpDir.resolve("missing"),
+            ALL_FILES, null);
+        assertTrue(snapshot.files().isEmpty());
+        assertTrue(FileTreeSnapshot.load(tmpDir.resolve("none")).isEmpty());
+    }
+}
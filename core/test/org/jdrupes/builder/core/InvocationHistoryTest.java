@@ -0,0 +1,180 @@
+package org.jdrupes.builder.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.jdrupes.builder.api.Generator;
+import org.jdrupes.builder.api.Intent;
+import static org.jdrupes.builder.api.Intent.*;
+import org.jdrupes.builder.api.Project;
+import org.jdrupes.builder.api.Resource;
+import org.jdrupes.builder.api.ResourceRequest;
+import static org.jdrupes.builder.api.ResourceType.FileResourceType;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * JUnit tests for InvocationHistory.
+ */
+final class InvocationHistoryTest {
+
+    @TempDir
+    private Path tmpDir;
+
+    /// A generator that provides nothing.
+    ///
+    private static class Scanner extends AbstractGenerator {
+
+        private Scanner(Project project, String name) {
+            super(project);
+            name(name);
+        }
+
+        @Override
+        protected <T extends Resource> Collection<T>
+                doProvide(ResourceRequest<T> request) {
+            return List.of();
+        }
+    }
+
+    /// A generator that cannot be identified unambiguously, because
+    /// there are two of them with the same name.
+    ///
+    private static final class Twin extends Scanner {
+
+        private Twin(Project project) {
+            super(project, "twin");
+        }
+    }
+
+    /// The root project of the test builds.
+    ///
+    public static final class TestRoot extends AbstractRootProject {
+
+        /// Initializes a new test root.
+        ///
+        public TestRoot() {
+            super(name("test"));
+            generator(new Scanner(this, "sources"));
+            generator(new Scanner(this, "resources"));
+            generator(new Twin(this));
+            generator(new Twin(this));
+        }
+    }
+
+    private AbstractRootProject createRoot() throws ParseException {
+        CommandLine commandLine = new DefaultParser().parse(new Options(),
+            new String[] { "build" });
+        return LauncherBase.createProjects(tmpDir, TestRoot.class,
+            List.of(), new Properties(), commandLine);
+    }
+
+    private static Stream<Generator> generators(AbstractRootProject root,
+            String name) {
+        return root.providers().select(EnumSet.allOf(Intent.class))
+            .filter(p -> name.equals(p.name())).map(Generator.class::cast);
+    }
+
+    private static ProviderInvocation<?> invocation(AbstractRootProject root,
+            String name) {
+        var generator = generators(root, name).findFirst().get();
+        return new ProviderInvocation<>(generator,
+            generator.of(FileResourceType).using(Supply));
+    }
+
+    private static void close(AbstractRootProject root) {
+        ScopedValue.where(LauncherBase.scopedBuildContext, root.context())
+            .run(root::close);
+    }
+
+    @Test
+    void testRoundTrip() throws ParseException {
+        var root = createRoot();
+        try {
+            var history = new InvocationHistory(root.context());
+            var sources = invocation(root, "sources");
+            var resources = invocation(root, "resources");
+            history.invoked(null, sources);
+            history.invoked(null, resources);
+            history.finished(sources, 10);
+            history.finished(resources, 20);
+            history.store(root);
+        } finally {
+            close(root);
+        }
+
+        root = createRoot();
+        try {
+            var history = new InvocationHistory(root.context());
+            history.load(root);
+            assertTrue(history.hasPriorities());
+            var sources = invocation(root, "sources");
+            var resources = invocation(root, "resources");
+            // Higher priority first
+            assertEquals(List.of(resources, sources), history.predicted(root));
+            assertEquals(10, history.priority(root, sources));
+            assertEquals(20, history.priority(root, resources));
+        } finally {
+            close(root);
+        }
+    }
+
+    @Test
+    void testAmbiguousAndStaleSkipped() throws ParseException, IOException {
+        var root = createRoot();
+        Path file;
+        try {
+            var history = new InvocationHistory(root.context());
+            var sources = invocation(root, "sources");
+            history.invoked(null, sources);
+            generators(root, "twin").forEach(twin -> history.invoked(null,
+                new ProviderInvocation<>(twin, twin.of(FileResourceType))));
+            history.store(root);
+            try (var files = Files.list(root.buildDirectory()
+                .resolve("jdbld"))) {
+                file = files.filter(f -> f.getFileName().toString()
+                    .startsWith("history-")).findFirst().get();
+            }
+        } finally {
+            close(root);
+        }
+
+        // Add lines for a generator, a resource type and an intent that
+        // don't exist (any longer) and lines with the wrong format
+        var sourcesClass = Scanner.class.getName();
+        var fileType = FileResourceType.rawType().getName();
+        Files.write(file, List.of(
+            "L\t\tno.such.Generator\tsources\t" + fileType + "\t\tSupply",
+            "L\t\t" + sourcesClass + "\tsources\tno.such.Type\t\tSupply",
+            "L\t\t" + sourcesClass + "\tsources\t" + fileType + "\t\tNoSuch",
+            "L\t\t" + sourcesClass + "\tsources\t" + fileType,
+            "L\t\t" + sourcesClass + "\tsources\t" + fileType
+                + "\t\tSupply\textra",
+            "D\tnot-a-number\t\t" + sourcesClass + "\tsources\t" + fileType
+                + "\t\tSupply",
+            "X\tunknown record"), StandardCharsets.UTF_8,
+            StandardOpenOption.APPEND);
+
+        root = createRoot();
+        try {
+            var history = new InvocationHistory(root.context());
+            history.load(root);
+            assertEquals(List.of(invocation(root, "sources")),
+                history.predicted(root));
+        } finally {
+            close(root);
+        }
+    }
+}
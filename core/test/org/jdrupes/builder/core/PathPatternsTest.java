@@ -0,0 +1,72 @@
+package org.jdrupes.builder.core;
+
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * JUnit tests for PathPatterns.
+ */
+final class PathPatternsTest {
+
+    @Test
+    void testAnyMatchesEverything() {
+        var patterns = new PathPatterns(List.of("**/*"));
+        assertTrue(patterns.matches("a.txt"));
+        assertTrue(patterns.matches("a/b/c.txt"));
+        assertTrue(patterns.mayMatchBelow("a/b"));
+    }
+
+    @Test
+    void testSuffixPattern() {
+        var patterns = new PathPatterns(List.of("**/*.java"));
+        assertTrue(patterns.matches("Foo.java"));
+        assertTrue(patterns.matches("org/example/Foo.java"));
+        assertFalse(patterns.matches("org/example/Foo.class"));
+        assertTrue(patterns.mayMatchBelow("resources"));
+    }
+
+    @Test
+    void testLiteralPattern() {
+        var patterns = new PathPatterns(List.of("subdir/a.txt"));
+        assertTrue(patterns.matches("subdir/a.txt"));
+        assertFalse(patterns.matches("subdir/b.txt"));
+        assertTrue(patterns.mayMatchBelow("subdir"));
+        assertFalse(patterns.mayMatchBelow("otherdir"));
+        assertFalse(patterns.mayMatchBelow("subdir/nested"));
+    }
+
+    @Test
+    void testGeneralPatternPrunesByPrefix() {
+        var patterns = new PathPatterns(List.of("src/main/**/*.java"));
+        assertTrue(patterns.matches("src/main/org/Foo.java"));
+        assertFalse(patterns.matches("src/test/org/Foo.java"));
+        assertTrue(patterns.mayMatchBelow("src"));
+        assertTrue(patterns.mayMatchBelow("src/main"));
+        assertTrue(patterns.mayMatchBelow("src/main/org/example"));
+        assertFalse(patterns.mayMatchBelow("src/test"));
+        assertFalse(patterns.mayMatchBelow("build"));
+    }
+
+    @Test
+    void testWildcardSegment() {
+        var patterns = new PathPatterns(List.of("lib*/*.jar"));
+        assertTrue(patterns.matches("libs/a.jar"));
+        assertTrue(patterns.mayMatchBelow("libraries"));
+        assertFalse(patterns.mayMatchBelow("bin"));
+        assertFalse(patterns.mayMatchBelow("libs/nested"));
+    }
+
+    @Test
+    void testRootIsNeverPruned() {
+        var patterns = new PathPatterns(List.of("a/b.txt"));
+        assertTrue(patterns.mayMatchBelow(""));
+    }
+
+    @Test
+    void testEmpty() {
+        var patterns = new PathPatterns(List.of());
+        assertTrue(patterns.isEmpty());
+        assertFalse(patterns.matches("a.txt"));
+    }
+}
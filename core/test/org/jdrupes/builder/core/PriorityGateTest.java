@@ -0,0 +1,145 @@
+package org.jdrupes.builder.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * JUnit tests for PriorityGate.
+ */
+final class PriorityGateTest {
+
+    private static void awaitWaiting(Thread thread)
+            throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void testOpenGateDoesNotLimit() throws InterruptedException {
+        var gate = new PriorityGate();
+        try (var _ = gate.acquire(0); var _ = gate.acquire(0)) {
+            // Acquiring twice does not block
+        }
+    }
+
+    @Test
+    void testHighestPriorityFirst() throws InterruptedException {
+        var gate = new PriorityGate();
+        gate.limit(1);
+        List<Long> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        try (var _ = gate.acquire(0)) {
+            for (long priority : new long[] { 1, 3, 2 }) {
+                var thread = Thread.ofVirtual().start(() -> {
+                    try (var _ = gate.acquire(priority)) {
+                        order.add(priority);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                awaitWaiting(thread);
+                threads.add(thread);
+            }
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(3L, 2L, 1L), order);
+    }
+
+    @Test
+    void testSuspendReleasesSlot() throws InterruptedException {
+        var gate = new PriorityGate();
+        gate.limit(1);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        try (var slot = gate.acquire(5)) {
+            var other = Thread.ofVirtual().start(() -> {
+                try (var _ = gate.acquire(1)) {
+                    events.add("other");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            awaitWaiting(other);
+            ScopedValue.where(PriorityGate.currentSlot, slot).call(() -> {
+                try (var _ = gate.suspend()) {
+                    other.join();
+                }
+                return null;
+            });
+            events.add("resumed");
+        }
+        assertEquals(List.of("other", "resumed"), events);
+    }
+
+    @Test
+    void testSuspendFromOtherThread() throws InterruptedException {
+        var gate = new PriorityGate();
+        gate.limit(1);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        try (var slot = gate.acquire(5)) {
+            var other = Thread.ofVirtual().start(() -> {
+                try (var _ = gate.acquire(1)) {
+                    events.add("other");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            awaitWaiting(other);
+            // Wait on behalf of the slot holder in other threads
+            var snapshot = ScopedValue.where(PriorityGate.currentSlot, slot)
+                .call(ScopedValueContext::snapshot);
+            List<Thread> helpers = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                helpers.add(Thread.ofVirtual().start(() -> snapshot.run(() -> {
+                    try (var _ = gate.suspend()) {
+                        other.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })));
+            }
+            for (var helper : helpers) {
+                helper.join();
+            }
+            events.add("resumed");
+        }
+        assertEquals(List.of("other", "resumed"), events);
+    }
+
+    @Test
+    void testSlotRetakenAfterLastSuspension() throws InterruptedException {
+        var gate = new PriorityGate();
+        gate.limit(1);
+        Thread blocked;
+        try (var slot = gate.acquire(5)) {
+            var resumed = ScopedValue.where(PriorityGate.currentSlot, slot)
+                .call(() -> {
+                    var first = gate.suspend();
+                    var second = gate.suspend();
+                    first.close();
+                    // Still suspended by the second
+                    try (var _ = gate.acquire(1)) {
+                        // Obtained the given up slot
+                    }
+                    second.close();
+                    return true;
+                });
+            assertTrue(resumed);
+            blocked = Thread.ofVirtual().start(() -> {
+                try (var _ = gate.acquire(1)) {
+                    // Waits for the slot
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            awaitWaiting(blocked);
+            assertTrue(blocked.isAlive());
+        }
+        blocked.join();
+    }
+}
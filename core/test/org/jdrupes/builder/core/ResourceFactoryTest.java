@@ -0,0 +1,168 @@
+package org.jdrupes.builder.core;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import org.jdrupes.builder.api.ConfigurationException;
+import org.jdrupes.builder.api.Project;
+import org.jdrupes.builder.api.Resource;
+import org.jdrupes.builder.api.ResourceFactory;
+import org.jdrupes.builder.api.ResourceType;
+import static org.jdrupes.builder.api.ResourceType.resourceType;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * JUnit tests for the dispatching done by ResourceFactory.
+ */
+final class ResourceFactoryTest {
+
+    @TempDir
+    private Path tmpDir;
+
+    /// The resource created by the test factories. It adds a method,
+    /// so it cannot be created by the [CoreResourceFactory].
+    ///
+    public interface Marker extends Resource {
+
+        /// Returns the factory that has created the marker.
+        ///
+        /// @return the factory
+        ///
+        String factory();
+    }
+
+    /// A marker that no factory creates.
+    ///
+    public interface Unknown extends Marker {
+    }
+
+    /// A marker that remembers the factory that has created it.
+    ///
+    private static final class Created extends ResourceObject
+            implements Marker {
+        private final String factory;
+
+        private Created(ResourceType<?> type, String factory) {
+            super(type);
+            this.factory = factory;
+        }
+
+        @Override
+        public String factory() {
+            return factory;
+        }
+    }
+
+    /// Creates markers only if requested explicitly.
+    ///
+    public static final class First implements ResourceFactory {
+
+        /// Initializes a new factory.
+        ///
+        public First() {
+            // Used by service loader
+        }
+
+        @Override
+        public <T extends Resource> Optional<T> newResource(
+                ResourceType<T> type, Project project, Object... args) {
+            return create(type, "first".equals(args[0]), "first");
+        }
+    }
+
+    /// Creates markers always.
+    ///
+    public static final class Second implements ResourceFactory {
+
+        /// Initializes a new factory.
+        ///
+        public Second() {
+            // Used by service loader
+        }
+
+        @Override
+        public <T extends Resource> Optional<T> newResource(
+                ResourceType<T> type, Project project, Object... args) {
+            return create(type, true, "second");
+        }
+    }
+
+    /// Does not handle markers and fails if asked.
+    ///
+    public static final class Unrelated implements ResourceFactory {
+
+        /// Initializes a new factory.
+        ///
+        public Unrelated() {
+            // Used by service loader
+        }
+
+        @Override
+        public boolean handles(ResourceType<?> type) {
+            return !Marker.class.isAssignableFrom(type.rawType());
+        }
+
+        @Override
+        public <T extends Resource> Optional<T> newResource(
+                ResourceType<T> type, Project project, Object... args) {
+            throw new AssertionError("Must not be asked");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Resource> Optional<T> create(
+            ResourceType<T> type, boolean accept, String factory) {
+        if (!accept || !Marker.class.equals(type.rawType())) {
+            return Optional.empty();
+        }
+        return Optional.of((T) new Created(type, factory));
+    }
+
+    private static String createdBy(String arg) {
+        return ResourceFactory.create(resourceType(Marker.class), arg)
+            .factory();
+    }
+
+    private void withFactories(Runnable test) throws IOException {
+        var services = tmpDir.resolve("META-INF/services")
+            .resolve(ResourceFactory.class.getName());
+        Files.createDirectories(services.getParent());
+        Files.write(services, List.of(Unrelated.class.getName(),
+            First.class.getName(), Second.class.getName()));
+        var thread = Thread.currentThread();
+        var saved = thread.getContextClassLoader();
+        try (var loader = new URLClassLoader(new URL[] {
+            tmpDir.toUri().toURL() }, getClass().getClassLoader())) {
+            thread.setContextClassLoader(loader);
+            test.run();
+        } finally {
+            thread.setContextClassLoader(saved);
+        }
+    }
+
+    @Test
+    void testIndependentOfHistory() throws IOException {
+        withFactories(() -> {
+            // The second factory creates the first marker ...
+            assertEquals("second", createdBy("any"));
+            // ... but the first factory is still asked first
+            assertEquals("first", createdBy("first"));
+            assertEquals("second", createdBy("any"));
+        });
+    }
+
+    @Test
+    void testNoFactory() throws IOException {
+        withFactories(() -> {
+            assertThrows(ConfigurationException.class,
+                () -> ResourceFactory.create(resourceType(Unknown.class),
+                    "any"));
+        });
+    }
+}
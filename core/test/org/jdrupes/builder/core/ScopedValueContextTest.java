@@ -0,0 +1,72 @@
+package org.jdrupes.builder.core;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * JUnit tests for ScopedValueContext.
+ */
+final class ScopedValueContextTest {
+
+    @SuppressWarnings("PMD.FieldNamingConventions")
+    private static final ScopedValue<Owner> owner = ScopedValue.newInstance();
+    @SuppressWarnings("PMD.FieldNamingConventions")
+    private static final ScopedValue<String> text = ScopedValue.newInstance();
+
+    static {
+        ScopedValueContext.add(owner, text);
+    }
+
+    /// A minimal snapshot owner.
+    ///
+    private static final class Owner
+            implements ScopedValueContext.SnapshotOwner {
+        private volatile ScopedValueContext.Snapshot lastSnapshot;
+
+        @Override
+        public ScopedValueContext.Snapshot lastSnapshot() {
+            return lastSnapshot;
+        }
+
+        @Override
+        public void lastSnapshot(ScopedValueContext.Snapshot snapshot) {
+            lastSnapshot = snapshot;
+        }
+    }
+
+    @Test
+    void testReusedInOtherThreads()
+            throws InterruptedException, ExecutionException {
+        var first = ScopedValue.where(owner, new Owner())
+            .call(ScopedValueContext::snapshot);
+        assertSame(first, first.call(ScopedValueContext::snapshot));
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Fresh threads that inherit the scope reuse the snapshot
+            assertSame(first, executor.submit(
+                () -> first.call(ScopedValueContext::snapshot)).get());
+        }
+    }
+
+    @Test
+    void testNotReusedAfterRebinding() {
+        var value = new Owner();
+        ScopedValue.where(owner, value).run(() -> {
+            var first = ScopedValueContext.snapshot();
+            var nested = ScopedValue.where(text, "nested")
+                .call(ScopedValueContext::snapshot);
+            assertNotSame(first, nested);
+            assertEquals("nested", nested.call(text::get));
+            var again = ScopedValueContext.snapshot();
+            assertNotSame(nested, again);
+            assertFalse(again.call(text::isBound));
+        });
+    }
+
+    @Test
+    void testNotCachedWithoutOwner() {
+        assertNotSame(ScopedValueContext.snapshot(),
+            ScopedValueContext.snapshot());
+    }
+}
@@ -0,0 +1,90 @@
+package org.jdrupes.builder.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * JUnit tests for TreeWalker.
+ */
+final class TreeWalkerTest {
+
+    @TempDir
+    private Path tmpDir;
+
+    private static final TreeWalker.Filter TXT_ONLY = new TreeWalker.Filter() {
+        @Override
+        public boolean includeFile(Path file, BasicFileAttributes attrs) {
+            return file.toString().endsWith(".txt");
+        }
+
+        @Override
+        public boolean includeDirectory(Path dir, BasicFileAttributes attrs) {
+            return false;
+        }
+
+        @Override
+        public boolean descend(Path dir, BasicFileAttributes attrs) {
+            return !dir.getFileName().toString().equals("skipped");
+        }
+    };
+
+    private void createTree() throws IOException {
+        for (var dir : List.of("a", "a/b", "c", "skipped")) {
+            Files.createDirectories(tmpDir.resolve(dir));
+            Files.writeString(tmpDir.resolve(dir).resolve("f.txt"), dir);
+            Files.writeString(tmpDir.resolve(dir).resolve("f.bin"), dir);
+        }
+        Files.writeString(tmpDir.resolve("top.txt"), "top");
+    }
+
+    private static List<Path> included(List<TreeWalker.Visited> visited) {
+        return visited.stream().filter(TreeWalker.Visited::included)
+            .map(TreeWalker.Visited::path).sorted().toList();
+    }
+
+    @Test
+    void testParallelMatchesSequential() throws IOException {
+        createTree();
+        var sequential = TreeWalker.walk(tmpDir, TXT_ONLY,
+            Integer.MAX_VALUE);
+        var parallel = TreeWalker.walk(tmpDir, TXT_ONLY, 0);
+        assertEquals(4, included(sequential).size());
+        assertEquals(included(sequential), included(parallel));
+        assertFalse(included(parallel).contains(
+            tmpDir.resolve("skipped/f.txt")));
+    }
+
+    @Test
+    void testParallelOrderIsDeterministicPreOrder() throws IOException {
+        createTree();
+        var paths = TreeWalker.walk(tmpDir, TXT_ONLY, 0).stream()
+            .map(v -> tmpDir.relativize(v.path()).toString()).toList();
+        assertEquals(List.of("", "a", "a/b", "a/b/f.txt", "a/f.txt", "c",
+            "c/f.txt", "top.txt"), paths);
+        assertEquals(paths, TreeWalker.walk(tmpDir, TXT_ONLY, 0).stream()
+            .map(v -> tmpDir.relativize(v.path()).toString()).toList());
+    }
+
+    @Test
+    void testParallelNonExistingRoot() throws IOException {
+        assertTrue(TreeWalker.walk(tmpDir.resolve("missing"), TXT_ONLY, 0)
+            .isEmpty());
+    }
+
+    @Test
+    void testSwitchToParallelDuringWalk() throws IOException {
+        createTree();
+        var expected = TreeWalker.walk(tmpDir, TXT_ONLY, Integer.MAX_VALUE)
+            .stream().map(TreeWalker.Visited::path).toList();
+        for (int threshold = 1; threshold < 12; threshold++) {
+            assertEquals(expected, TreeWalker.walk(tmpDir, TXT_ONLY, threshold)
+                .stream().map(TreeWalker.Visited::path).toList());
+        }
+    }
+}
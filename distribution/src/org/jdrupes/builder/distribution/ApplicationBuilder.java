@@ -47,6 +47,7 @@ import org.jdrupes.builder.api.Resources;
 import org.jdrupes.builder.api.TarFile;
 import org.jdrupes.builder.api.ZipFile;
 import org.jdrupes.builder.core.AbstractGenerator;
+import org.jdrupes.builder.core.FileMetadataCache;
 import org.jdrupes.builder.core.StreamCollector;
 import static org.jdrupes.builder.distribution.DistributionTypes.*;
 import org.jdrupes.builder.distribution.internal.ApplicationConfigurationData;
@@ -329,7 +330,11 @@ public class ApplicationBuilder extends AbstractGenerator
             destination().resolve(distributionBaseName() + ".zip"));
         if (cpes.isNewerThan(zipFile)) {
             logger.atInfo().log("%s building %s", this, zipFile);
-            new ZipDistributionBuilder().build(zipFile, config, cpes);
+            try {
+                new ZipDistributionBuilder().build(zipFile, config, cpes);
+            } finally {
+                FileMetadataCache.invalidate(zipFile.path());
+            }
         } else {
             logger.atFine().log("%s found %s to be up to date", this, zipFile);
         }
@@ -341,7 +346,11 @@ public class ApplicationBuilder extends AbstractGenerator
             destination().resolve(distributionBaseName() + ".tar"));
         if (cpes.isNewerThan(tarFile)) {
             logger.atInfo().log("%s building %s", this, tarFile);
-            new TarDistributionBuilder().build(tarFile, config, cpes);
+            try {
+                new TarDistributionBuilder().build(tarFile, config, cpes);
+            } finally {
+                FileMetadataCache.invalidate(tarFile.path());
+            }
         } else {
             logger.atFine().log("%s found %s to be up to date", this, tarFile);
         }
@@ -50,6 +50,7 @@ import org.jdrupes.builder.api.Resource;
 import org.jdrupes.builder.api.ResourceRequest;
 import org.jdrupes.builder.api.ResourceType;
 import org.jdrupes.builder.core.AbstractGenerator;
+import org.jdrupes.builder.core.FileMetadataCache;
 import org.jdrupes.builder.java.ClasspathElement;
 import org.jdrupes.builder.java.JavaCompiler;
 import org.jdrupes.builder.java.JavaProject;
@@ -211,6 +212,11 @@ public class EclipseConfigurator extends AbstractGenerator {
 
         // General overrides
         configurationAdaptor.run();
+        FileMetadataCache.invalidate(project().directory().resolve(".project"));
+        FileMetadataCache
+            .invalidate(project().directory().resolve(".classpath"));
+        FileMetadataCache
+            .invalidateTree(project().directory().resolve(".settings"));
 
         // Create result
         @SuppressWarnings({ "unchecked" })
@@ -35,6 +35,11 @@ public class EclipseResourceFactory implements ResourceFactory {
         // Make javadoc happy
     }
 
+    @Override
+    public boolean handles(ResourceType<?> type) {
+        return EclipseConfiguration.class.isAssignableFrom(type.rawType());
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <T extends Resource> Optional<T> newResource(ResourceType<T> type,
@@ -30,6 +30,11 @@ public final class GitProperties {
     public static final PropertyKey<Git> GitApi
         = new PropertyKey<>(Git.class);
 
+    /// The index of the tags in the repository accessed by [#GitApi].
+    /// See [GitTagIndex#of].
+    public static final PropertyKey<GitTagIndex> TagIndex
+        = new PropertyKey<>(GitTagIndex.class);
+
     private GitProperties() {
     }
 }
\ No newline at end of file
@@ -36,6 +36,11 @@ public class GitResourceFactory implements ResourceFactory {
         // Make javadoc happy
     }
 
+    @Override
+    public boolean handles(ResourceType<?> type) {
+        return GitVersionTag.class.isAssignableFrom(type.rawType());
+    }
+
     @Override
     public <T extends Resource> Optional<T> newResource(ResourceType<T> type,
             Project project, Object... args) {
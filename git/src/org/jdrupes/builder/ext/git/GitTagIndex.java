@@ -0,0 +1,291 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.ext.git;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTag;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.jdrupes.builder.api.BuildException;
+import org.jdrupes.builder.api.RootProject;
+import static org.jdrupes.builder.ext.git.GitProperties.*;
+import org.jdrupes.gitversioning.api.VersionEvaluator;
+import org.jdrupes.gitversioning.core.DefaultTagFilter;
+
+/// A build-scoped index of the tags in a Git repository. The index
+/// maps tag names to the (peeled) commits and the commits to their
+/// tags. It is built once from a single [RevWalk] and shared by all
+/// users. The index can therefore be queried without listing and
+/// parsing the tags again and without holding the repository's lock.
+///
+/// The data is kept in an immutable snapshot. Tags created during the
+/// build are added with [#added], which replaces the snapshot.
+///
+/// Tags that do not refer to a commit (but e.g. to a tree) cannot
+/// denote a version. They are not included in the index, see
+/// [#ignored].
+///
+/// The index also caches the versions of the projects, see [#version].
+///
+public final class GitTagIndex {
+
+    private final Repository repository;
+    private final AtomicReference<Snapshot> snapshot;
+    private final Map<VersionKey, String> versions
+        = new ConcurrentHashMap<>();
+
+    /// A tag from the index.
+    ///
+    /// @param name the short name of the tag (without `refs/tags/`)
+    /// @param commit the commit that the tag points to
+    /// @param asOf the time when the tag was created (for annotated
+    /// tags) or the commit time (for lightweight tags)
+    ///
+    public record Tag(String name, ObjectId commit, Instant asOf) {
+    }
+
+    private record Snapshot(Map<String, Tag> byName,
+            Map<ObjectId, List<Tag>> byCommit, Set<String> ignored) {
+
+        private Snapshot with(Tag tag) {
+            var names = new HashMap<>(byName);
+            names.put(tag.name(), tag);
+            var commits = new HashMap<>(byCommit);
+            commits.merge(tag.commit(), List.of(tag), (prev, added) -> Stream
+                .concat(prev.stream(), added.stream()).toList());
+            return new Snapshot(Map.copyOf(names), Map.copyOf(commits),
+                ignored);
+        }
+    }
+
+    /// The key for the cached versions, the tag prefix and the
+    /// (normalized) directories to evaluate.
+    ///
+    private record VersionKey(String prefix, Set<Path> directories) {
+    }
+
+    private GitTagIndex(Repository repository, Snapshot snapshot) {
+        this.repository = repository;
+        this.snapshot = new AtomicReference<>(snapshot);
+    }
+
+    /// Returns the index for the repository of the given root project.
+    /// The index is created on first usage and made available as
+    /// property [GitProperties#TagIndex] of the root project.
+    /// See [VersionTagger#setGitApi] for obtaining the repository.
+    ///
+    /// @param project the root project
+    /// @return the index
+    ///
+    @SuppressWarnings("PMD.AvoidSynchronizedStatement")
+    public static GitTagIndex of(RootProject project) {
+        var index = project.get(TagIndex);
+        if (index != null) {
+            return index;
+        }
+        var git = VersionTagger.setGitApi(project);
+        synchronized (project) {
+            index = project.get(TagIndex);
+            if (index != null) {
+                return index;
+            }
+            index = build(git);
+            project.set(TagIndex, index);
+            return index;
+        }
+    }
+
+    /// Builds a new index for the given repository.
+    ///
+    /// @param git the Git API for the repository
+    /// @return the index
+    ///
+    @SuppressWarnings("PMD.AvoidSynchronizedStatement")
+    public static GitTagIndex build(Git git) {
+        var repository = git.getRepository();
+        Map<String, Tag> byName = new HashMap<>();
+        Map<ObjectId, List<Tag>> byCommit = new HashMap<>();
+        Set<String> ignored = new HashSet<>();
+        synchronized (repository) {
+            try (var walk = new RevWalk(repository)) {
+                for (var ref : repository.getRefDatabase()
+                    .getRefsByPrefix(Constants.R_TAGS)) {
+                    var tag = parse(walk, ref);
+                    if (tag.isEmpty()) {
+                        ignored.add(Repository.shortenRefName(ref.getName()));
+                        continue;
+                    }
+                    byName.put(tag.get().name(), tag.get());
+                    byCommit.merge(tag.get().commit(), List.of(tag.get()),
+                        (prev, added) -> Stream.concat(prev.stream(),
+                            added.stream()).toList());
+                }
+            } catch (IOException e) {
+                throw new BuildException().cause(e);
+            }
+        }
+        return new GitTagIndex(repository, new Snapshot(Map.copyOf(byName),
+            Map.copyOf(byCommit), Set.copyOf(ignored)));
+    }
+
+    private static Optional<Tag> parse(RevWalk walk, Ref ref)
+            throws IOException {
+        var name = Repository.shortenRefName(ref.getName());
+        var obj = walk.parseAny(ref.getObjectId());
+        Instant asOf = null;
+        if (obj instanceof RevTag revTag && revTag.getTaggerIdent() != null) {
+            asOf = revTag.getTaggerIdent().getWhenAsInstant();
+        }
+        var peeled = walk.peel(obj);
+        if (!(peeled instanceof RevCommit commit)) {
+            // Tags of trees or blobs are not version tags
+            return Optional.empty();
+        }
+        walk.parseHeaders(commit);
+        if (asOf == null) {
+            asOf = commit.getCommitterIdent().getWhenAsInstant();
+        }
+        return Optional.of(new Tag(name, commit.copy(), asOf));
+    }
+
+    /// Returns the tag with the given (short) name.
+    ///
+    /// @param name the name
+    /// @return the tag
+    ///
+    public Optional<Tag> tag(String name) {
+        return Optional.ofNullable(snapshot.get().byName().get(name));
+    }
+
+    /// Checks if a tag with the given (short) name exists in the
+    /// repository but has been ignored because it does not refer
+    /// to a commit.
+    ///
+    /// @param name the name
+    /// @return true, if the tag has been ignored
+    ///
+    public boolean ignored(String name) {
+        return snapshot.get().ignored().contains(name);
+    }
+
+    /// Returns all tags.
+    ///
+    /// @return the tags
+    ///
+    public Stream<Tag> tags() {
+        return snapshot.get().byName().values().stream();
+    }
+
+    /// Returns the tags that point to the given commit.
+    ///
+    /// @param commit the commit
+    /// @return the tags
+    ///
+    public Stream<Tag> tagsAt(AnyObjectId commit) {
+        return snapshot.get().byCommit()
+            .getOrDefault(commit.copy(), List.of()).stream();
+    }
+
+    /// Adds a tag that has been created after the index was built.
+    ///
+    /// @param git the Git API for the repository
+    /// @param name the short name of the tag
+    /// @return the added tag
+    ///
+    @SuppressWarnings("PMD.AvoidSynchronizedStatement")
+    public Optional<Tag> added(Git git, String name) {
+        var repository = git.getRepository();
+        Optional<Tag> tag;
+        synchronized (repository) {
+            try (var walk = new RevWalk(repository)) {
+                var ref = repository.exactRef(Constants.R_TAGS + name);
+                if (ref == null) {
+                    return Optional.empty();
+                }
+                tag = parse(walk, ref);
+            } catch (IOException e) {
+                throw new BuildException().cause(e);
+            }
+        }
+        tag.ifPresent(t -> {
+            snapshot.updateAndGet(s -> s.with(t));
+            versions.clear();
+        });
+        return tag;
+    }
+
+    /// Evaluates the version of the content of the given directories
+    /// from the tags with the given prefix. The directories are
+    /// resolved against the repository's working tree. If no
+    /// directories are given, the complete working tree is evaluated.
+    ///
+    /// The evaluation is delegated to a [VersionEvaluator] with a
+    /// [DefaultTagFilter] for the prefix, so the result (including the
+    /// handling of uncommitted changes) is the same as when using the
+    /// evaluator directly. The result is cached per prefix and set of
+    /// directories, so projects that request the same evaluation share
+    /// it. The cache is cleared when a tag is [added][#added].
+    ///
+    /// @param prefix the prefix of the tags to consider
+    /// @param directories the directories
+    /// @return the version
+    ///
+    public String version(String prefix, Path... directories) {
+        var workTree = repository.getWorkTree().toPath().toAbsolutePath()
+            .normalize();
+        var key = new VersionKey(prefix, Stream.of(directories)
+            .map(d -> workTree.resolve(d).toAbsolutePath().normalize())
+            .collect(Collectors.toUnmodifiableSet()));
+        var version = versions.get(key);
+        if (version != null) {
+            return version;
+        }
+        version = evaluate(key);
+        var previous = versions.putIfAbsent(key, version);
+        return previous == null ? version : previous;
+    }
+
+    @SuppressWarnings("PMD.AvoidSynchronizedStatement")
+    private String evaluate(VersionKey key) {
+        var evaluator = VersionEvaluator.forRepository(repository)
+            .tagFilter(new DefaultTagFilter().prepend(key.prefix()));
+        key.directories().forEach(evaluator::subDirectory);
+        synchronized (repository) {
+            return evaluator.version();
+        }
+    }
+}
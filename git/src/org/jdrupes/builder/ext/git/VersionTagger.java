@@ -35,10 +35,6 @@ import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.ConcurrentRefUpdateException;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.RefAlreadyExistsException;
-import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTag;
-import org.eclipse.jgit.revwalk.RevWalk;
 import org.jdrupes.builder.api.BuildException;
 import org.jdrupes.builder.api.CoreProperties;
 import org.jdrupes.builder.api.Project;
@@ -87,6 +83,11 @@ import org.jdrupes.gitversioning.api.VersionEvaluator;
 /// the build project with the instance using [setGitApi]. Else that
 /// property will be set on first usage of the generator.
 ///
+/// Existing tags are looked up in the build-scoped [GitTagIndex], so
+/// the tags are listed only once per build, regardless of the number of
+/// projects. A tag with the required name that does not refer to a
+/// commit is reported as an error.
+///
 /// This provider is made available as an extension.
 /// [![org.jdrupes:jdbld-ext-git:](
 /// https://img.shields.io/maven-metadata/v?metadataUrl=https%3A%2F%2Fcodeberg.org%2Fapi%2Fpackages%2FJDrupes%2Fmaven%2Forg%2Fjdrupes%2Fjdbld-ext-git%2Fmaven-metadata.xml&strategy=releaseProperty)
@@ -238,15 +239,15 @@ public class VersionTagger extends AbstractGenerator {
         var gitApi = setGitApi(project().rootProject());
 
         // Check for existing tag
-        try {
-            var existing = findTag(gitApi, tag);
-            if (existing.isPresent()) {
-                @SuppressWarnings("unchecked")
-                var result = List.of((R) existing.get());
-                return result;
-            }
-        } catch (GitAPIException e) {
-            throw new BuildException().from(this).cause(e);
+        var existing = findTag(tag);
+        if (existing.isPresent()) {
+            @SuppressWarnings("unchecked")
+            var result = List.of((R) existing.get());
+            return result;
+        }
+        if (GitTagIndex.of(project().rootProject()).ignored(tag)) {
+            throw new BuildException().from(this).message(
+                "Tag %s exists but does not refer to a commit", tag);
         }
 
         // Create new tag
@@ -267,43 +268,9 @@ public class VersionTagger extends AbstractGenerator {
         }
     }
 
-    @SuppressWarnings("PMD.AvoidSynchronizedStatement")
-    private Optional<GitVersionTag> findTag(Git gitApi, String tag)
-            throws GitAPIException {
-        Optional<Ref> existing;
-        synchronized (gitApi.getRepository()) {
-            existing = gitApi.tagList().call().stream().filter(
-                ref -> ref.getName().endsWith("/" + tag)).findFirst();
-        }
-        if (existing.isEmpty()) {
-            return Optional.empty();
-        }
-        return Optional.of(GitVersionTag.of(project(), tag,
-            resolveTagTimestamp(gitApi, existing.get())));
-    }
-
-    @SuppressWarnings("PMD.AvoidSynchronizedStatement")
-    private Instant resolveTagTimestamp(Git gitApi, Ref tagRef) {
-        if (tagRef == null) {
-            return Instant.now();
-        }
-        synchronized (gitApi.getRepository()) {
-            try (var walk = new RevWalk(gitApi.getRepository())) {
-                var obj = walk.parseAny(tagRef.getObjectId());
-                if (obj instanceof RevTag revTag) {
-                    var taggerIdent = revTag.getTaggerIdent();
-                    if (taggerIdent != null) {
-                        return taggerIdent.getWhenAsInstant();
-                    }
-                }
-                if (obj instanceof RevCommit revCommit) {
-                    return revCommit.getCommitterIdent().getWhenAsInstant();
-                }
-                return Instant.now();
-            } catch (IOException e) {
-                throw new BuildException().cause(e);
-            }
-        }
+    private Optional<GitVersionTag> findTag(String tag) {
+        return GitTagIndex.of(project().rootProject()).tag(tag)
+            .map(t -> GitVersionTag.of(project(), tag, t.asOf()));
     }
 
     @SuppressWarnings("PMD.AvoidSynchronizedStatement")
@@ -317,13 +284,16 @@ public class VersionTagger extends AbstractGenerator {
 
         // Create tag unless dry run
         if (!dryRun) {
+            var index = GitTagIndex.of(project().rootProject());
             try {
                 synchronized (gitApi.getRepository()) {
                     gitApi.tag().setName(tag).setMessage(project().context()
                         .property(MESSAGE, "Release tag " + tag)).call();
                 }
+                index.added(gitApi, tag);
             } catch (RefAlreadyExistsException e) {
-                var existing = findTag(gitApi, tag);
+                var existing = index.added(gitApi, tag)
+                    .map(t -> GitVersionTag.of(project(), tag, t.asOf()));
                 if (existing.isEmpty()) {
                     throw new BuildException().from(this).cause(e).message(
                         "Tag %s reported to exist but not found", tag);
@@ -57,6 +57,7 @@ import org.jdrupes.builder.api.ResourceType;
 import static org.jdrupes.builder.api.ResourceType.*;
 import org.jdrupes.builder.api.Resources;
 import org.jdrupes.builder.core.AbstractGenerator;
+import org.jdrupes.builder.core.FileMetadataCache;
 import org.jdrupes.builder.core.ScopedValueContext;
 import org.jdrupes.builder.core.StreamCollector;
 
@@ -352,6 +353,8 @@ public class JarBuilder extends AbstractGenerator {
 
         } catch (IOException e) {
             throw new BuildException().from(this).cause(e);
+        } finally {
+            FileMetadataCache.invalidate(jarResource.path());
         }
     }
 
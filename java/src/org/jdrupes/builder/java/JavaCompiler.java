@@ -45,6 +45,7 @@ import org.jdrupes.builder.api.ResourceType;
 import static org.jdrupes.builder.api.ResourceType.*;
 import org.jdrupes.builder.api.Resources;
 import org.jdrupes.builder.api.UnavailableException;
+import org.jdrupes.builder.core.FileMetadataCache;
 import static org.jdrupes.builder.java.JavaTypes.*;
 
 /// The [JavaCompiler] generator provides two types of resources.
@@ -260,6 +261,7 @@ public class JavaCompiler extends JavaTool {
                     e.getMessage());
             throw new BuildException().from(this).cause(e);
         } finally {
+            FileMetadataCache.invalidateTree(destDir);
             logDiagnostics(diagnostics);
             logger.atFine().log("%s finished compilation", this);
         }
@@ -54,6 +54,7 @@ import org.jdrupes.builder.api.ResourceType;
 import static org.jdrupes.builder.api.ResourceType.*;
 import org.jdrupes.builder.api.Resources;
 import org.jdrupes.builder.core.AbstractProvider;
+import org.jdrupes.builder.core.FileMetadataCache;
 import org.jdrupes.builder.core.StreamCollector;
 import static org.jdrupes.builder.java.JavaTypes.*;
 
@@ -207,6 +208,8 @@ public class JavaExecutor extends AbstractProvider
             copyData(process.getErrorStream(), context().error());
             var execResult
                 = ExecResult.of(this, mainClass, process.waitFor());
+            // The program may have written anything
+            FileMetadataCache.invalidateAll();
             if (execResult.exitValue() != 0) {
                 execResult.setFaulty();
             }
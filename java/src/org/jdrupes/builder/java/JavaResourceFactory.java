@@ -20,6 +20,7 @@ package org.jdrupes.builder.java;
 
 import java.nio.file.Path;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.jdrupes.builder.api.Project;
 import org.jdrupes.builder.api.Resource;
 import org.jdrupes.builder.api.ResourceFactory;
@@ -36,6 +37,13 @@ public class JavaResourceFactory implements ResourceFactory {
         // Make javadoc happy
     }
 
+    @Override
+    public boolean handles(ResourceType<?> type) {
+        return Stream.of(ClassTree.class, JarFile.class,
+            JavaResourceTree.class, ManifestAttributes.class)
+            .anyMatch(c -> c.isAssignableFrom(type.rawType()));
+    }
+
     @SuppressWarnings({ "unchecked" })
     @Override
     public <T extends Resource> Optional<T> newResource(ResourceType<T> type,
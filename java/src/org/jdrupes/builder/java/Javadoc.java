@@ -45,6 +45,7 @@ import org.jdrupes.builder.api.ResourceRequest;
 import static org.jdrupes.builder.api.ResourceType.*;
 import org.jdrupes.builder.api.Resources;
 import org.jdrupes.builder.api.UnavailableException;
+import org.jdrupes.builder.core.FileMetadataCache;
 import org.jdrupes.builder.core.StreamCollector;
 import static org.jdrupes.builder.java.JavaTypes.*;
 
@@ -244,6 +245,7 @@ public class Javadoc extends JavaTool {
                 project().name(), e.getMessage());
             throw new BuildException().from(this).cause(e);
         } finally {
+            FileMetadataCache.invalidateTree(destDir);
             logDiagnostics(diagnostics);
         }
         @SuppressWarnings("unchecked")
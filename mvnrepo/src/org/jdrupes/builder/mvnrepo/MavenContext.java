@@ -77,7 +77,8 @@ public final class MavenContext {
 
     private record SessionData(Settings settings,
             RepositorySystem repositorySystem,
-            RepositorySystemSession repositorySession) {
+            RepositorySystemSession repositorySession,
+            RepositorySystemSession localFirstSession) {
     }
 
     /// Returns the singleton, lazily created session data.
@@ -136,9 +137,18 @@ public final class MavenContext {
                 ConfigurableVersionSelector.CONFIG_PROP_SELECTION_STRATEGY,
                 ConfigurableVersionSelector.HIGHEST_SELECTION_STRATEGY)
             .build();
+        @SuppressWarnings("PMD.CloseResource")
+        var localFirstSession = new SessionBuilderSupplier(repoSystem).get()
+            .withLocalRepositoryBaseDirectories(Path.of(localRepoPath))
+            .setConfigProperty(
+                ConfigurableVersionSelector.CONFIG_PROP_SELECTION_STRATEGY,
+                ConfigurableVersionSelector.HIGHEST_SELECTION_STRATEGY)
+            .setUpdatePolicy(RepositoryPolicy.UPDATE_POLICY_NEVER)
+            .build();
 
         // Combine
-        theSession = new SessionData(settings, repoSystem, session);
+        theSession = new SessionData(settings, repoSystem, session,
+            localFirstSession);
         return theSession;
     }
 
@@ -158,6 +168,17 @@ public final class MavenContext {
         return session().repositorySession();
     }
 
+    /// Repository session that overrides the update policies of all
+    /// repositories with [RepositoryPolicy#UPDATE_POLICY_NEVER]. Artifacts
+    /// and metadata that are available in the local repository are
+    /// therefore used as they are, only missing files are downloaded.
+    ///
+    /// @return the repository system session
+    ///
+    public static RepositorySystemSession localFirstRepositorySession() {
+        return session().localFirstSession();
+    }
+
     /// Looks up the credentials for the specified server in `settings.xml`.
     /// Invokes the consumer with the username and password if found.
     ///
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.aether.AbstractRepositoryListener;
+import org.eclipse.aether.ConfigurationProperties;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositoryEvent;
 import org.eclipse.aether.artifact.Artifact;
@@ -45,11 +46,23 @@ import org.jdrupes.builder.api.BuildException;
 /// to the specified repository URI. It is typically used for publishing
 /// snapshots or deploying to internal Maven repositories.
 ///
+/// The artifacts of a publication (including checksums and signatures)
+/// are uploaded in parallel by the resolver's basic connector, using
+/// up to [maxConnections] concurrent requests. HTTP connections are
+/// reused across requests and publications.
+///
 public class MvnDeployDestination extends MvnPublishingDestination {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    /// Enables the parallel upload of artifacts by the basic connector.
+    private static final String PARALLEL_PUT
+        = "aether.connector.basic.parallelPut";
+    /// The number of threads that the basic connector uses for transfers.
+    private static final String CONNECTOR_THREADS
+        = "aether.connector.basic.threads";
     private String id;
     private URI repositoryUri;
+    private int maxConnections = 5;
 
     /// Initializes a new Maven deploy destination.
     ///
@@ -85,12 +98,39 @@ public class MvnDeployDestination extends MvnPublishingDestination {
         return repositoryUri;
     }
 
+    /// Sets the maximum number of concurrent uploads. Defaults to 5.
+    /// A value of 1 uploads the files one after the other.
+    ///
+    /// @param maxConnections the maximum number of concurrent uploads
+    /// @return this destination
+    ///
+    public MvnDeployDestination maxConnections(int maxConnections) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException(
+                "Maximum number of connections must be at least 1");
+        }
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    /// Returns the maximum number of concurrent uploads.
+    ///
+    /// @return the maximum number of concurrent uploads
+    ///
+    public int maxConnections() {
+        return maxConnections;
+    }
+
     @Override
     /* default */void publish(BuildContext context, MvnPublisher publisher,
             Artifact mainArtifact, List<Artifact> toDeploy) {
         // Now deploy everything
         var session = new DefaultRepositorySystemSession(
             MavenContext.repositorySession());
+        session.setConfigProperty(PARALLEL_PUT, true);
+        session.setConfigProperty(CONNECTOR_THREADS, maxConnections);
+        session.setConfigProperty(
+            ConfigurationProperties.HTTP_REUSE_CONNECTIONS, true);
         session.setRepositoryListener(new UploadListener(
             context, mainArtifact.getGroupId() + ":"
                 + mainArtifact.getArtifactId()
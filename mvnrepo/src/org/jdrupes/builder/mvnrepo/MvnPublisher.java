@@ -19,10 +19,8 @@
 package org.jdrupes.builder.mvnrepo;
 
 import com.google.common.flogger.FluentLogger;
-import java.io.BufferedInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.file.Files;
@@ -70,6 +68,7 @@ import org.jdrupes.builder.api.Project;
 import org.jdrupes.builder.api.Resource;
 import org.jdrupes.builder.api.ResourceRequest;
 import org.jdrupes.builder.core.AbstractGenerator;
+import org.jdrupes.builder.core.FileMetadataCache;
 import static org.jdrupes.builder.java.JavaTypes.*;
 import org.jdrupes.builder.java.JavadocJarFile;
 import org.jdrupes.builder.java.LibraryJarFile;
@@ -106,6 +105,11 @@ import static org.jdrupes.builder.mvnrepo.MvnRepoTypes.*;
 public class MvnPublisher extends AbstractGenerator {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+    @SuppressWarnings("PMD.FieldNamingConventions")
+    private static final List<Checksum> checksums = List.of(
+        new Checksum("MD5", "md5"), new Checksum("SHA-1", "sha1"),
+        new Checksum("SHA-256", "sha256"), new Checksum("SHA-512", "sha512"));
     private String signingKeyRing;
     private String signingKeyId;
     private String signingPassword;
@@ -391,77 +395,109 @@ public class MvnPublisher extends AbstractGenerator {
         if (artifactDirectory() != null) {
             artifactDirectory().toFile().mkdirs();
         }
-        List<Deployable> toDeploy = new ArrayList<>();
         var needChecksums = effectiveDests.stream()
             .filter(MvnPublishingDestination::requiresChecksumArtifacts)
             .findAny().isPresent();
-        addWithGenerated(toDeploy, new SubArtifact(mainArtifact, "", "pom",
-            pomResource.path().toFile()), needChecksums);
-        addWithGenerated(toDeploy, new SubArtifact(mainArtifact, "", "jar",
-            jarResource.path().toFile()), needChecksums);
+        List<Artifact> artifacts = new ArrayList<>();
+        artifacts.add(new SubArtifact(mainArtifact, "", "pom",
+            pomResource.path().toFile()));
+        artifacts.add(new SubArtifact(mainArtifact, "", "jar",
+            jarResource.path().toFile()));
         if (srcsJar != null) {
-            addWithGenerated(toDeploy, new SubArtifact(mainArtifact, "sources",
-                "jar", srcsJar.path().toFile()), needChecksums);
+            artifacts.add(new SubArtifact(mainArtifact, "sources",
+                "jar", srcsJar.path().toFile()));
         }
         if (javadocJar != null) {
-            addWithGenerated(toDeploy, new SubArtifact(mainArtifact, "javadoc",
-                "jar", javadocJar.path().toFile()), needChecksums);
+            artifacts.add(new SubArtifact(mainArtifact, "javadoc",
+                "jar", javadocJar.path().toFile()));
         }
-        return toDeploy;
+
+        // Process the artifacts in parallel, but keep the order
+        try {
+            initSigning();
+        } catch (IOException | PGPException e) {
+            throw new BuildException().from(this).cause(e);
+        }
+        return artifacts.parallelStream()
+            .map(artifact -> withGenerated(artifact, needChecksums))
+            .flatMap(List::stream).toList();
     }
 
-    private void addWithGenerated(List<Deployable> toDeploy,
-            Artifact artifact, boolean withChecksums) {
-        // Add main artifact
-        toDeploy.add(new Deployable(artifact, false, false));
+    /// The checksums that are generated for the artifacts if a destination
+    /// requires checksum artifacts.
+    ///
+    /// @param algorithm the name of the [MessageDigest] algorithm
+    /// @param extension the extension of the checksum file
+    ///
+    private record Checksum(String algorithm, String extension) {
+    }
 
-        // Generate .md5 and .sha1 checksum files
+    /// Returns the artifact followed by the generated checksum files
+    /// (if requested) and its signature. All are computed in a single
+    /// pass over the artifact's file.
+    ///
+    private List<Deployable> withGenerated(Artifact artifact,
+            boolean withChecksums) {
+        List<Deployable> result = new ArrayList<>();
+        result.add(new Deployable(artifact, false, false));
         try {
+            List<MessageDigest> digests = new ArrayList<>();
             if (withChecksums) {
-                generateChecksums(toDeploy, artifact);
+                for (var checksum : checksums) {
+                    digests.add(
+                        MessageDigest.getInstance(checksum.algorithm()));
+                }
+            }
+            PGPSignatureGenerator signatureGenerator
+                = new PGPSignatureGenerator(signerBuilder, publicKey);
+            signatureGenerator.init(PGPSignature.BINARY_DOCUMENT, privateKey);
+            digestAndSign(artifact.getPath(), digests, signatureGenerator);
+
+            // Write .md5, .sha1, .sha256 and .sha512 checksum files
+            var artifactFile = artifact.getPath();
+            var fileName = artifactFile.getFileName().toString();
+            for (int i = 0; i < digests.size(); i++) {
+                var extension = checksums.get(i).extension();
+                var checksumPath
+                    = destinationPath(artifactFile, fileName + "." + extension);
+                Files.writeString(checksumPath, toHex(digests.get(i).digest()));
+                FileMetadataCache.invalidate(checksumPath);
+                result.add(new Deployable(new SubArtifact(artifact, "*",
+                    "*." + extension, checksumPath.toFile()), true, true));
             }
 
             // Add signature as yet another artifact
-            var sigPath = signResource(artifact.getPath());
-            toDeploy.add(new Deployable(new SubArtifact(artifact, "*", "*.asc",
+            var sigPath = destinationPath(artifactFile, fileName + ".asc");
+            try (OutputStream sigOut
+                = new ArmoredOutputStream(Files.newOutputStream(sigPath))) {
+                signatureGenerator.generate().encode(sigOut);
+            }
+            FileMetadataCache.invalidate(sigPath);
+            result.add(new Deployable(new SubArtifact(artifact, "*", "*.asc",
                 sigPath.toFile()), false, true));
         } catch (NoSuchAlgorithmException | IOException | PGPException e) {
             throw new BuildException().from(this).cause(e);
         }
+        return result;
     }
 
-    private void generateChecksums(List<Deployable> toDeploy, Artifact artifact)
-            throws NoSuchAlgorithmException, IOException {
-        var artifactFile = artifact.getPath();
-        MessageDigest md5 = MessageDigest.getInstance("MD5");
-        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
-        try (var fis = Files.newInputStream(artifactFile)) {
-            byte[] buffer = new byte[8192];
-            while (true) {
-                int read = fis.read(buffer);
-                if (read < 0) {
-                    break;
+    /// Feeds the content of the file to the digests and the signature
+    /// generator. The file is read once, each chunk is passed to all
+    /// consumers. As the signature generator only accepts byte arrays,
+    /// the file is read into a buffer rather than mapped.
+    ///
+    private static void digestAndSign(Path file, List<MessageDigest> digests,
+            PGPSignatureGenerator signatureGenerator) throws IOException {
+        byte[] chunk = new byte[READ_BUFFER_SIZE];
+        try (var input = Files.newInputStream(file)) {
+            int length;
+            while ((length = input.read(chunk)) >= 0) {
+                for (var digest : digests) {
+                    digest.update(chunk, 0, length);
                 }
-                md5.update(buffer, 0, read);
-                sha1.update(buffer, 0, read);
+                signatureGenerator.update(chunk, 0, length);
             }
         }
-        var fileName = artifactFile.getFileName().toString();
-
-        // Handle generated md5
-        var md5Path = destinationPath(artifactFile, fileName + ".md5");
-        Files.writeString(md5Path, toHex(md5.digest()));
-        toDeploy
-            .add(new Deployable(new SubArtifact(artifact, "*", "*.md5",
-                md5Path.toFile()), true, true));
-
-        // Handle generated sha1
-        var sha1Path
-            = destinationPath(artifactFile, fileName + ".sha1");
-        Files.writeString(sha1Path, toHex(sha1.digest()));
-        toDeploy
-            .add(new Deployable(new SubArtifact(artifact, "*", "*.sha1",
-                sha1Path.toFile()), true, true));
     }
 
     private Path destinationPath(Path base, String fileName) {
@@ -517,32 +553,6 @@ public class MvnPublisher extends AbstractGenerator {
             publicKey.getAlgorithm(), PGPUtil.SHA256).setProvider("BC");
     }
 
-    private Path signResource(Path resource)
-            throws PGPException, IOException {
-        initSigning();
-        PGPSignatureGenerator signatureGenerator = new PGPSignatureGenerator(
-            signerBuilder, publicKey);
-        signatureGenerator.init(PGPSignature.BINARY_DOCUMENT, privateKey);
-        var sigPath = destinationPath(resource,
-            resource.getFileName() + ".asc");
-        try (InputStream fileInput = new BufferedInputStream(
-            Files.newInputStream(resource));
-                OutputStream sigOut
-                    = new ArmoredOutputStream(Files.newOutputStream(sigPath))) {
-            byte[] buffer = new byte[8192];
-            while (true) {
-                int read = fileInput.read(buffer);
-                if (read < 0) {
-                    break;
-                }
-                signatureGenerator.update(buffer, 0, read);
-            }
-            PGPSignature signature = signatureGenerator.generate();
-            signature.encode(sigOut);
-        }
-        return sigPath;
-    }
-
     private void install(List<Deployable> toDeploy) {
         var session = new DefaultRepositorySystemSession(
             MavenContext.repositorySession());
@@ -20,12 +20,23 @@ package org.jdrupes.builder.mvnrepo;
 
 import com.google.common.flogger.FluentLogger;
 import static com.google.common.flogger.LazyArgs.lazy;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.maven.model.DependencyManagement;
@@ -45,6 +56,8 @@ import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.eclipse.aether.resolution.VersionRequest;
+import org.eclipse.aether.resolution.VersionResolutionException;
 import org.eclipse.aether.util.artifact.SubArtifact;
 import org.eclipse.aether.util.graph.visitor.PreorderDependencyNodeConsumerVisitor;
 import org.jdrupes.builder.api.BuildException;
@@ -78,10 +91,43 @@ import static org.jdrupes.builder.mvnrepo.MvnRepoTypes.*;
 /// Results of the dependency resolution are written to the log with
 /// log level FINE.
 /// 
+/// By default, the metadata of `SNAPSHOT` dependencies is checked for
+/// updates in the remote repositories every time the dependencies are
+/// resolved. The property `jdbld.mvnRepoLookup.snapshots` can be used to
+/// take these network round-trips off the critical path of the build.
+/// If set to [SNAPSHOTS_REVALIDATE], dependencies are resolved from the
+/// metadata that is available in the local repository. The remote
+/// metadata of the `SNAPSHOT` dependencies is revalidated in the
+/// background and newer snapshots are reported at the end of the build.
+/// They will be used by the next build. If set to [SNAPSHOTS_STRICT],
+/// the build fails at the end if a newer snapshot has been found. Use
+/// the `-P` flag to set the mode on the command line, e.g.
+/// `jdbld -Pjdbld.mvnRepoLookup.snapshots=revalidate`.
+/// 
 @SuppressWarnings("PMD.CouplingBetweenObjects")
 public class MvnRepoLookup extends AbstractProvider {
 
+    /// Defines how `SNAPSHOT` dependencies are resolved.
+    public static final String SNAPSHOTS = "jdbld.mvnRepoLookup.snapshots";
+
+    /// Checks the remote metadata of `SNAPSHOT` dependencies before
+    /// resolving them. This is the default behavior.
+    public static final String SNAPSHOTS_UPDATE = "update";
+
+    /// Resolves `SNAPSHOT` dependencies using the metadata from the
+    /// local repository and revalidates the metadata in the background.
+    /// Newer snapshots are reported at the end of the build.
+    public static final String SNAPSHOTS_REVALIDATE = "revalidate";
+
+    /// Like [SNAPSHOTS_REVALIDATE], but fails the build if a newer
+    /// snapshot has been found.
+    public static final String SNAPSHOTS_STRICT = "strict";
+
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final Pattern TIMESTAMPED_SNAPSHOT
+        = Pattern.compile("-(\\d{8}\\.\\d{6})-(\\d+)$");
+    private static final DateTimeFormatter SNAPSHOT_TIMESTAMP
+        = DateTimeFormatter.ofPattern("yyyyMMdd.HHmmss");
     private final List<RemoteRepository> addedRepos = new ArrayList<>();
     private final List<String> coordinates = new ArrayList<>();
     private final List<String> boms = new ArrayList<>();
@@ -246,12 +292,26 @@ public class MvnRepoLookup extends AbstractProvider {
         return Stream.concat(boms, deps).toList();
     }
 
+    private String snapshotMode() {
+        var mode = context().property(SNAPSHOTS, SNAPSHOTS_UPDATE);
+        if (!Set.of(SNAPSHOTS_UPDATE, SNAPSHOTS_REVALIDATE, SNAPSHOTS_STRICT)
+            .contains(mode)) {
+            throw new BuildException().from(this).message("Property "
+                + SNAPSHOTS + " must be \"" + SNAPSHOTS_UPDATE + "\", \""
+                + SNAPSHOTS_REVALIDATE + "\" or \"" + SNAPSHOTS_STRICT + "\"");
+        }
+        return mode;
+    }
+
     @SuppressWarnings("PMD.AvoidSynchronizedStatement")
     private <T extends Resource> Collection<T> provideJars()
             throws DependencyResolutionException, ModelBuildingException {
         @SuppressWarnings("PMD.CloseResource")
         var repoSystem = MavenContext.repositorySystem();
-        var repoSession = MavenContext.repositorySession();
+        var snapshotMode = snapshotMode();
+        var repoSession = SNAPSHOTS_UPDATE.equals(snapshotMode)
+            ? MavenContext.repositorySession()
+            : MavenContext.localFirstRepositorySession();
 
         // Create one synthetic CollectRequest
         var repos = new ArrayList<>(addedRepos);
@@ -283,6 +343,10 @@ public class MvnRepoLookup extends AbstractProvider {
         List<DependencyNode> dependencyNodes = new ArrayList<>();
         rootNode.accept(new PreorderDependencyNodeConsumerVisitor(
             dependencyNodes::add));
+        if (!SNAPSHOTS_UPDATE.equals(snapshotMode)) {
+            revalidateSnapshots(repoSystem, dependencyNodes,
+                SNAPSHOTS_STRICT.equals(snapshotMode));
+        }
         @SuppressWarnings("unchecked")
         var result = (Collection<T>) dependencyNodes.stream()
             .filter(d -> d.getArtifact() != null)
@@ -295,6 +359,119 @@ public class MvnRepoLookup extends AbstractProvider {
         return result;
     }
 
+    /// Checks the remote metadata of the resolved `SNAPSHOT` artifacts
+    /// in the background. This also updates the metadata in the local
+    /// repository, so the next build picks up newer snapshots. The
+    /// outcome is reported when the build context is closed.
+    ///
+    private void revalidateSnapshots(RepositorySystem repoSystem,
+            List<DependencyNode> nodes, boolean strict) {
+        var checks = nodes.stream().filter(d -> d.getArtifact() != null
+            && d.getArtifact().isSnapshot()).map(d -> context().executor()
+                .submit(() -> newerSnapshot(repoSystem, d)))
+            .toList();
+        if (checks.isEmpty()) {
+            return;
+        }
+        context().onClose(() -> reportNewerSnapshots(checks, strict));
+    }
+
+    private Optional<String> newerSnapshot(RepositorySystem repoSystem,
+            DependencyNode node) {
+        var used = node.getArtifact();
+        var request = new VersionRequest(
+            used.setVersion(used.getBaseVersion()), node.getRepositories(),
+            null);
+        try {
+            var latest = repoSystem.resolveVersion(
+                MavenContext.repositorySession(), request).getVersion();
+            if (!isNewerSnapshot(used.getVersion(), lastModified(used),
+                latest)) {
+                return Optional.empty();
+            }
+            return Optional.of(used + " (latest is " + latest + ")");
+        } catch (VersionResolutionException e) {
+            logger.atWarning().withCause(e).log(
+                "Cannot revalidate %s", used);
+            return Optional.empty();
+        }
+    }
+
+    private static Instant lastModified(Artifact artifact) {
+        var path = artifact.getPath();
+        if (path == null) {
+            return null;
+        }
+        try {
+            return Files.getLastModifiedTime(path).toInstant();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /// Checks if the `latest` version of a snapshot is newer than the
+    /// version that has been `used`. Only remote versions with a
+    /// timestamp and build number (e.g. `1.0-20260101.120000-3`) can
+    /// be newer. If the used version also has a timestamp, timestamps
+    /// and build numbers are compared. If the used version has been
+    /// installed locally (i.e. is `1.0-SNAPSHOT`), the remote
+    /// timestamp is compared with the time when the local artifact
+    /// was last modified. If that time is unknown, the remote version
+    /// is not considered to be newer.
+    ///
+    /// @param used the used version
+    /// @param usedModified the time when the used artifact was
+    /// last modified, may be `null`
+    /// @param latest the latest version
+    /// @return true, if the latest version is newer
+    ///
+    /* default */ static boolean isNewerSnapshot(String used,
+            Instant usedModified, String latest) {
+        var latestStamp = TIMESTAMPED_SNAPSHOT.matcher(latest);
+        if (!latestStamp.find()) {
+            return false;
+        }
+        var usedStamp = TIMESTAMPED_SNAPSHOT.matcher(used);
+        if (usedStamp.find()) {
+            int order = usedStamp.group(1).compareTo(latestStamp.group(1));
+            return order < 0 || order == 0
+                && Long.parseLong(usedStamp.group(2))
+                    < Long.parseLong(latestStamp.group(2));
+        }
+        if (usedModified == null) {
+            return false;
+        }
+        return LocalDateTime.parse(latestStamp.group(1), SNAPSHOT_TIMESTAMP)
+            .toInstant(ZoneOffset.UTC).isAfter(usedModified);
+    }
+
+    private void reportNewerSnapshots(
+            List<Future<Optional<String>>> checks, boolean strict) {
+        var outdated = checks.stream().map(check -> {
+            try {
+                return check.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.<String> empty();
+            } catch (ExecutionException e) {
+                logger.atWarning().withCause(e).log(
+                    "Cannot revalidate snapshots");
+                return Optional.<String> empty();
+            }
+        }).flatMap(Optional::stream).toList();
+        if (outdated.isEmpty()) {
+            return;
+        }
+        if (strict) {
+            throw new BuildException().from(this).message(
+                "Build used outdated snapshots: %s",
+                String.join(", ", outdated));
+        }
+        context().out().println(this + ": newer snapshots are available"
+            + " and will be used by the next build: "
+            + String.join(", ", outdated));
+    }
+
     private Stream<Dependency> depsFromEffectiveModel(
             String coordinates, RepositorySystem repoSystem,
             RepositorySystemSession repoSession,
@@ -21,6 +21,7 @@ package org.jdrupes.builder.mvnrepo;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.jdrupes.builder.api.Project;
 import org.jdrupes.builder.api.Resource;
@@ -38,6 +39,12 @@ public class MvnRepoResourceFactory implements ResourceFactory {
         // Make javadoc happy
     }
 
+    @Override
+    public boolean handles(ResourceType<?> type) {
+        return Stream.of(MvnRepoResource.class, MvnRepoJarFile.class)
+            .anyMatch(c -> c.isAssignableFrom(type.rawType()));
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <T extends Resource> Optional<T> newResource(ResourceType<T> type,
@@ -45,6 +45,7 @@ import org.jdrupes.builder.api.Resource;
 import org.jdrupes.builder.api.ResourceRequest;
 import org.jdrupes.builder.api.Resources;
 import org.jdrupes.builder.core.AbstractGenerator;
+import org.jdrupes.builder.core.FileMetadataCache;
 import static org.jdrupes.builder.mvnrepo.MvnProperties.ArtifactId;
 import static org.jdrupes.builder.mvnrepo.MvnProperties.GroupId;
 import static org.jdrupes.builder.mvnrepo.MvnRepoTypes.*;
@@ -200,6 +201,7 @@ public class PomFileGenerator extends AbstractGenerator {
                     lazy(() -> project().rootProject()
                         .directory().relativize(pomPath)));
                 Files.write(pomPath, newPom.toByteArray());
+                FileMetadataCache.invalidate(pomPath);
             }
         } catch (IOException e) {
             throw new BuildException().from(this).cause(e);
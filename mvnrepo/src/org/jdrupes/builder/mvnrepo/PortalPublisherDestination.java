@@ -20,6 +20,10 @@ package org.jdrupes.builder.mvnrepo;
 
 import com.google.common.flogger.FluentLogger;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -36,13 +40,25 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.bouncycastle.util.encoders.Base64;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.resolution.ArtifactRequest;
@@ -50,6 +66,7 @@ import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.jdrupes.builder.api.BuildContext;
 import org.jdrupes.builder.api.BuildException;
 import org.jdrupes.builder.api.ConfigurationException;
+import org.jdrupes.builder.api.ResourceProvider;
 import static org.jdrupes.builder.mvnrepo.MvnProperties.ArtifactId;
 
 /// A Maven publishing destination that publishes releases using the
@@ -60,10 +77,22 @@ import static org.jdrupes.builder.mvnrepo.MvnProperties.ArtifactId;
 /// release bundle and uploads it via a multipart HTTP request. It is the
 /// modern recommended way to publish releases to Maven Central.
 ///
+/// The bundle is streamed directly into the request body while it is
+/// being assembled. The artifacts are compressed in parallel into
+/// memory, as long as the compressed data that has not been sent yet
+/// does not exceed 64 MiB. Artifacts that don't fit are compressed
+/// while being sent. A copy of the complete bundle is only written to
+/// disk if [retries] are enabled. If the bundle cannot be created
+/// (e.g. because an artifact cannot be read), the upload is aborted
+/// and not retried.
+///
 public class PortalPublisherDestination extends MvnPublishingDestination {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final int BUFFER_LIMIT = 64 * 1024 * 1024;
     private boolean publishAutomatically;
+    private int retries;
+    private int bufferLimit = BUFFER_LIMIT;
     private URI uploadUri = URI
         .create("https://central.sonatype.com/api/v1/publisher/upload");
 
@@ -112,74 +141,396 @@ public class PortalPublisherDestination extends MvnPublishingDestination {
         return uploadUri;
     }
 
+    /// Sets the number of times that the upload is retried after an
+    /// I/O error or a server error. Defaults to 0.
+    ///
+    /// The release bundle is normally streamed directly into the upload
+    /// request. If retries are enabled, the bundle is additionally written
+    /// to the publisher's [artifact directory][MvnPublisher#artifactDirectory]
+    /// (or the project's build directory, if the publisher has no
+    /// artifact directory) while being uploaded, so that subsequent
+    /// attempts can send the spooled file.
+    ///
+    /// @param retries the number of retries
+    /// @return this destination
+    ///
+    public PortalPublisherDestination retries(int retries) {
+        this.retries = retries;
+        return this;
+    }
+
+    /// Sets the maximum size of the compressed data that is buffered
+    /// in memory. Used for testing.
+    ///
+    /// @param limit the limit in bytes
+    ///
+    /* default */ void bufferLimit(int limit) {
+        this.bufferLimit = limit;
+    }
+
     @Override
-    @SuppressWarnings("PMD.AvoidLiteralsInIfCondition")
     /* default */void publish(BuildContext context, MvnPublisher publisher,
             Artifact mainArtifact, List<Artifact> toDeploy) {
         var project = publisher.project();
-        // Create zip file with all artifacts for release, see
+        // Create zip with all artifacts for release, see
         // https://central.sonatype.org/publish/publish-portal-upload/
         var zipName = Optional.ofNullable(project.get(ArtifactId))
             .orElse(project.name()) + "-" + mainArtifact.getVersion()
             + "-release.zip";
-        var zipPath = publisher.artifactDirectory().resolve(zipName);
+        var spoolPath = retries > 0
+            ? Optional.ofNullable(publisher.artifactDirectory())
+                .orElse(project.buildDirectory()).resolve(zipName)
+            : null;
+        Path praefix = Path.of(mainArtifact.getGroupId().replace('.', '/'))
+            .resolve(mainArtifact.getArtifactId())
+            .resolve(mainArtifact.getVersion());
+        Map<String, Path> files = new LinkedHashMap<>();
+        for (var artifact : toDeploy) {
+            files.put(praefix.resolve(artifact.getArtifactId() + "-"
+                + artifact.getVersion()
+                + (artifact.getClassifier().isEmpty()
+                    ? ""
+                    : "-" + artifact.getClassifier())
+                + "." + artifact.getExtension()).toString(),
+                artifact.getPath());
+        }
         try {
-            Path praefix = Path.of(mainArtifact.getGroupId().replace('.', '/'))
-                .resolve(mainArtifact.getArtifactId())
-                .resolve(mainArtifact.getVersion());
-            try (ZipOutputStream zos
-                = new ZipOutputStream(Files.newOutputStream(zipPath))) {
-                for (var artifact : toDeploy) {
-                    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
-                    var entry = new ZipEntry(praefix.resolve(
-                        artifact.getArtifactId() + "-" + artifact.getVersion()
-                            + (artifact.getClassifier().isEmpty()
-                                ? ""
-                                : "-" + artifact.getClassifier())
-                            + "." + artifact.getExtension())
-                        .toString());
-                    zos.putNextEntry(entry);
-                    try (var fis = Files.newInputStream(
-                        artifact.getPath())) {
-                        fis.transferTo(zos);
-                    }
-                    zos.closeEntry();
-                }
-            }
-        } catch (IOException e) {
+            uploadBundle(context, publisher, zipName, files, spoolPath);
+        } catch (IOException | InterruptedException e) {
             throw new BuildException().from(publisher).cause(e);
         }
+    }
 
+    /// Creates the release bundle from the given files and uploads it.
+    ///
+    /// @param context the context
+    /// @param origin the provider to report failures for
+    /// @param zipName the name of the bundle
+    /// @param files the files to include, mapped from their entry names
+    /// @param spoolPath the path of the copy of the bundle that is used
+    /// for retries, `null` if retries are disabled
+    /// @throws IOException if the upload fails
+    /// @throws InterruptedException if interrupted
+    ///
+    @SuppressWarnings("PMD.AvoidLiteralsInIfCondition")
+    /* default */ void uploadBundle(BuildContext context,
+            ResourceProvider origin, String zipName, Map<String, Path> files,
+            Path spoolPath) throws IOException, InterruptedException {
+        if (spoolPath != null) {
+            Files.createDirectories(spoolPath.getParent());
+        }
         try (var client = HttpClient.newBuilder()
             .connectTimeout(Duration.ofMinutes(1)).build()) {
-            var boundary = "===" + System.currentTimeMillis() + "===";
-            var user = repositoryUser(context);
-            var password = repositoryPassword(context);
-            var token = new String(Base64.encode((user + ":" + password)
-                .getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
-            var effectiveUri = uploadUri;
-            if (publishAutomatically) {
-                effectiveUri = addQueryParameter(
-                    uploadUri, "publishingType", "AUTOMATIC");
+            var spooled = new AtomicBoolean();
+            for (int attempt = 0;; attempt++) {
+                BundleWriter bundle = spooled.get()
+                    ? out -> {
+                        InputStream spool;
+                        try {
+                            spool = Files.newInputStream(spoolPath);
+                        } catch (IOException e) {
+                            throw new BundleException(e);
+                        }
+                        try (spool) {
+                            spool.transferTo(out);
+                        }
+                    }
+                    : out -> {
+                        try (var bundleEntries = new BundleEntries(files,
+                            bufferLimit)) {
+                            bundleEntries.writeTo(out, spoolPath, spooled);
+                        }
+                    };
+                var bundleFailure = new AtomicReference<BundleException>();
+                HttpResponse<String> response;
+                try {
+                    response = upload(context, client, zipName, bundle,
+                        bundleFailure);
+                } catch (IOException e) {
+                    checkBundle(origin, bundleFailure);
+                    if (attempt >= retries) {
+                        throw e;
+                    }
+                    logger.atWarning().withCause(e)
+                        .log("Upload of release bundle failed, retrying...");
+                    continue;
+                }
+                checkBundle(origin, bundleFailure);
+                if (response.statusCode() / 100 == 2) {
+                    break;
+                }
+                if (response.statusCode() / 100 != 5 || attempt >= retries) {
+                    throw new ConfigurationException().from(origin)
+                        .message("Failed to upload release bundle: "
+                            + response.body());
+                }
+                logger.atWarning().log("Upload of release bundle failed"
+                    + " (%d), retrying...", response.statusCode());
             }
-            HttpRequest request = HttpRequest.newBuilder().uri(effectiveUri)
-                .timeout(Duration.ofMinutes(10))
-                .header("Authorization", "Bearer " + token)
-                .header("Content-Type",
-                    "multipart/form-data; boundary=" + boundary)
-                .POST(HttpRequest.BodyPublishers
-                    .ofInputStream(() -> getAsMultipart(zipPath, boundary)))
-                .build();
-            logger.atInfo().log("Uploading release bundle...");
-            HttpResponse<String> response = client.send(request,
-                HttpResponse.BodyHandlers.ofString());
-            logger.atFinest().log("Upload response: %s", response.body());
-            if (response.statusCode() / 100 != 2) {
-                throw new ConfigurationException().from(publisher).message(
-                    "Failed to upload release bundle: " + response.body());
+        }
+    }
+
+    /// Creating the bundle failed. This is not an upload problem, so
+    /// retrying does not help.
+    ///
+    private static void checkBundle(ResourceProvider origin,
+            AtomicReference<BundleException> bundleFailure) {
+        if (bundleFailure.get() != null) {
+            throw new BuildException().from(origin)
+                .message("Cannot create release bundle")
+                .cause(bundleFailure.get().getCause());
+        }
+    }
+
+    private HttpResponse<String> upload(BuildContext context,
+            HttpClient client, String zipName, BundleWriter bundle,
+            AtomicReference<BundleException> bundleFailure)
+            throws IOException, InterruptedException {
+        var boundary = "===" + System.currentTimeMillis() + "===";
+        var user = repositoryUser(context);
+        var password = repositoryPassword(context);
+        var token = new String(Base64.encode((user + ":" + password)
+            .getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        var effectiveUri = uploadUri;
+        if (publishAutomatically) {
+            effectiveUri = addQueryParameter(
+                uploadUri, "publishingType", "AUTOMATIC");
+        }
+        HttpRequest request = HttpRequest.newBuilder().uri(effectiveUri)
+            .timeout(Duration.ofMinutes(10))
+            .header("Authorization", "Bearer " + token)
+            .header("Content-Type",
+                "multipart/form-data; boundary=" + boundary)
+            .POST(HttpRequest.BodyPublishers.ofInputStream(
+                () -> getAsMultipart(zipName, boundary, bundle,
+                    bundleFailure)))
+            .build();
+        logger.atInfo().log("Uploading release bundle...");
+        HttpResponse<String> response = client.send(request,
+            HttpResponse.BodyHandlers.ofString());
+        logger.atFinest().log("Upload response: %s", response.body());
+        return response;
+    }
+
+    /// Writes the content of the release bundle to an output stream.
+    ///
+    @FunctionalInterface
+    private interface BundleWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /// Signals that the content of the release bundle could not be
+    /// provided, as opposed to a failure to write the bundle to the
+    /// request.
+    ///
+    @SuppressWarnings("serial")
+    private static final class BundleException extends IOException {
+        private BundleException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /// An artifact that has been compressed into memory for inclusion
+    /// in the release bundle.
+    ///
+    /// @param size the uncompressed size
+    /// @param crc the CRC-32 of the uncompressed data
+    /// @param data the deflated data
+    /// @param reserved the part of the buffer limit held by the entry
+    ///
+    private record CompressedEntry(long size, long crc, byte[] data,
+            int reserved) {
+    }
+
+    /// The entries of the release bundle for one attempt to write it.
+    ///
+    /// The artifacts are compressed in parallel into memory. The buffer
+    /// limit is reserved in the order of the entries in the bundle,
+    /// so the entry that is to be written next can always obtain its
+    /// reservation. A reservation is returned when the entry has been
+    /// written. Artifacts that are larger than the limit are compressed
+    /// while being written.
+    ///
+    private static final class BundleEntries implements AutoCloseable {
+        private final List<Map.Entry<String, Path>> files;
+        private final List<CompletableFuture<Optional<CompressedEntry>>> entries
+            = new ArrayList<>();
+        private final int limit;
+        private final Semaphore buffers;
+        private final ExecutorService executor
+            = Executors.newVirtualThreadPerTaskExecutor();
+
+        private BundleEntries(Map<String, Path> files, int limit) {
+            this.files = List.copyOf(files.entrySet());
+            this.limit = limit;
+            buffers = new Semaphore(limit, true);
+            this.files.forEach(_ -> entries.add(new CompletableFuture<>()));
+            executor.execute(this::schedule);
+        }
+
+        /// Reserves the buffers for the entries in order and starts
+        /// their compression.
+        ///
+        private void schedule() {
+            for (int i = 0; i < files.size(); i++) {
+                var path = files.get(i).getValue();
+                var entry = entries.get(i);
+                try {
+                    // Deflating incompressible data adds a few bytes
+                    long bound = Files.size(path) * 1001 / 1000 + 64;
+                    if (bound > limit) {
+                        entry.complete(Optional.empty());
+                        continue;
+                    }
+                    buffers.acquire((int) bound);
+                    executor.execute(() -> {
+                        try {
+                            entry.complete(
+                                Optional.of(compress(path, (int) bound)));
+                        } catch (IOException | RuntimeException e) {
+                            buffers.release((int) bound);
+                            entry.completeExceptionally(e);
+                        }
+                    });
+                } catch (IOException | InterruptedException e) {
+                    entry.completeExceptionally(e);
+                    return;
+                }
             }
-        } catch (IOException | InterruptedException e) {
-            throw new BuildException().from(publisher).cause(e);
+        }
+
+        private CompressedEntry compress(Path path, int bound)
+                throws IOException {
+            var crc = new CRC32();
+            var deflated = new ByteArrayOutputStream();
+            var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            long size = 0;
+            try (var input = Files.newInputStream(path);
+                    var output = new DeflaterOutputStream(deflated, deflater)) {
+                byte[] buffer = new byte[8192];
+                while (true) {
+                    int read = input.read(buffer);
+                    if (read < 0) {
+                        break;
+                    }
+                    crc.update(buffer, 0, read);
+                    output.write(buffer, 0, read);
+                    size += read;
+                }
+            } finally {
+                deflater.end();
+            }
+            var data = deflated.toByteArray();
+            int reserved = Math.min(bound, data.length);
+            buffers.release(bound - reserved);
+            return new CompressedEntry(size, crc.getValue(), data, reserved);
+        }
+
+        /// Writes the release bundle, using the entries in their
+        /// original order as soon as they become available. If a spool
+        /// path is given, the bundle is also written to this file and
+        /// `spooled` is set once the file is complete.
+        ///
+        @SuppressWarnings({ "PMD.CloseResource",
+            "PMD.AvoidInstantiatingObjectsInLoops" })
+        private void writeTo(OutputStream out, Path spoolPath,
+                AtomicBoolean spooled) throws IOException {
+            OutputStream spool = spoolPath == null ? null
+                : new BufferedOutputStream(Files.newOutputStream(spoolPath));
+            try {
+                var target = spool == null ? out : new FilterOutputStream(out) {
+                    @Override
+                    public void write(int value) throws IOException {
+                        out.write(value);
+                        spool.write(value);
+                    }
+
+                    @Override
+                    public void write(byte[] data, int offset, int length)
+                            throws IOException {
+                        out.write(data, offset, length);
+                        spool.write(data, offset, length);
+                    }
+                };
+                // Must not be closed, as this would close the multipart
+                // stream
+                var zos = new ZipArchiveOutputStream(target);
+                for (int i = 0; i < files.size(); i++) {
+                    var name = files.get(i).getKey();
+                    var compressed = awaitEntry(i);
+                    if (compressed.isEmpty()) {
+                        writeDeflating(zos, name, files.get(i).getValue());
+                        continue;
+                    }
+                    var entry = new ZipArchiveEntry(name);
+                    entry.setMethod(ZipEntry.DEFLATED);
+                    entry.setSize(compressed.get().size());
+                    entry.setCompressedSize(compressed.get().data().length);
+                    entry.setCrc(compressed.get().crc());
+                    zos.addRawArchiveEntry(entry,
+                        new ByteArrayInputStream(compressed.get().data()));
+                    // Written, no need to keep the data
+                    entries.set(i, null);
+                    buffers.release(compressed.get().reserved());
+                }
+                zos.finish();
+                zos.flush();
+            } finally {
+                if (spool != null) {
+                    spool.close();
+                }
+            }
+            spooled.set(spool != null);
+        }
+
+        private Optional<CompressedEntry> awaitEntry(int index)
+                throws BundleException {
+            try {
+                return entries.get(index).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BundleException(e);
+            } catch (ExecutionException e) {
+                throw new BundleException(e.getCause());
+            }
+        }
+
+        /// Compresses the file while writing it to the bundle. Failures
+        /// to read the file are reported as [BundleException]s.
+        ///
+        private static void writeDeflating(ZipArchiveOutputStream zos,
+                String name, Path path) throws IOException {
+            InputStream input;
+            try {
+                input = Files.newInputStream(path);
+            } catch (IOException e) {
+                throw new BundleException(e);
+            }
+            try (input) {
+                var entry = new ZipArchiveEntry(name);
+                entry.setMethod(ZipEntry.DEFLATED);
+                zos.putArchiveEntry(entry);
+                byte[] buffer = new byte[8192];
+                while (true) {
+                    int read;
+                    try {
+                        read = input.read(buffer);
+                    } catch (IOException e) {
+                        throw new BundleException(e);
+                    }
+                    if (read < 0) {
+                        break;
+                    }
+                    zos.write(buffer, 0, read);
+                }
+                zos.closeArchiveEntry();
+            }
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+            executor.close();
         }
     }
 
@@ -220,42 +571,100 @@ public class PortalPublisherDestination extends MvnPublishingDestination {
         }
     }
 
-    @SuppressWarnings("PMD.UseTryWithResources")
-    private InputStream getAsMultipart(Path zipPath, String boundary) {
+    /// The body of the multipart request. It is written by a thread of
+    /// its own. If the content of the bundle cannot be provided, the
+    /// failure is reported to the reader when it reaches the end of the
+    /// pipe. A truncated body is thus not sent as if it was complete.
+    ///
+    private static final class MultipartBody extends FilterInputStream {
+        private volatile BundleException failure;
+
+        private MultipartBody(PipedInputStream pipe) {
+            super(pipe);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value < 0) {
+                checkFailure();
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] data, int offset, int length)
+                throws IOException {
+            int count = super.read(data, offset, length);
+            if (count < 0) {
+                checkFailure();
+            }
+            return count;
+        }
+
+        private void checkFailure() throws IOException {
+            if (failure != null) {
+                throw new IOException("Cannot create release bundle",
+                    failure.getCause());
+            }
+        }
+    }
+
+    @SuppressWarnings({ "PMD.CloseResource",
+        "PMD.AvoidCatchingGenericException" })
+    private InputStream getAsMultipart(String fileName, String boundary,
+            BundleWriter bundle,
+            AtomicReference<BundleException> bundleFailure) {
         // Use Piped streams for streaming multipart content
         var fromPipe = new PipedInputStream();
-
-        // Write multipart content to pipe
-        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        var body = new MultipartBody(fromPipe);
         OutputStream toPipe;
         try {
             toPipe = new PipedOutputStream(fromPipe);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-        executor.submit(() -> {
-            try (var mpOut = new BufferedOutputStream(toPipe)) {
+
+        // Write multipart content to pipe
+        Thread.ofVirtual().start(() -> {
+            var mpOut = new BufferedOutputStream(toPipe);
+            try {
                 final String lineFeed = "\r\n";
                 @SuppressWarnings("PMD.InefficientStringBuffering")
                 StringBuilder intro = new StringBuilder(100)
                     .append("--").append(boundary).append(lineFeed)
                     .append("Content-Disposition: form-data; name=\"bundle\";"
-                        + " filename=\"%s\"".formatted(zipPath.getFileName()))
+                        + " filename=\"%s\"".formatted(fileName))
                     .append(lineFeed)
                     .append("Content-Type: application/octet-stream")
                     .append(lineFeed).append(lineFeed);
                 mpOut.write(
                     intro.toString().getBytes(StandardCharsets.US_ASCII));
-                Files.newInputStream(zipPath).transferTo(mpOut);
+                bundle.writeTo(mpOut);
                 mpOut.write((lineFeed + "--" + boundary + "--")
                     .getBytes(StandardCharsets.US_ASCII));
+            } catch (BundleException e) {
+                // Must be visible before the pipe is closed
+                bundleFailure.set(e);
+                body.failure = e;
+            } catch (RuntimeException | Error e) {
+                var failure = new BundleException(e);
+                bundleFailure.set(failure);
+                body.failure = failure;
             } catch (IOException e) {
-                throw new UncheckedIOException(e);
+                // Reader has closed the pipe, reported by the client
+                logger.atFine().withCause(e).log(
+                    "Writing release bundle aborted");
             } finally {
-                executor.close();
+                try {
+                    mpOut.close();
+                } catch (IOException e) {
+                    logger.atFine().withCause(e).log(
+                        "Cannot close multipart stream");
+                }
             }
         });
-        return fromPipe;
+        return body;
     }
 
 }
@@ -0,0 +1,34 @@
+package org.jdrupes.builder.mvnrepo;
+
+import java.time.Instant;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class MvnRepoLookupTests {
+
+    @Test
+    void testTimestampedSnapshots() {
+        assertFalse(MvnRepoLookup.isNewerSnapshot("1.0-20260101.120000-3",
+            null, "1.0-20260101.120000-3"));
+        assertTrue(MvnRepoLookup.isNewerSnapshot("1.0-20260101.120000-3",
+            null, "1.0-20260102.080000-4"));
+        assertTrue(MvnRepoLookup.isNewerSnapshot("1.0-20260101.120000-3",
+            null, "1.0-20260101.120000-4"));
+        // Remote is older than the version used
+        assertFalse(MvnRepoLookup.isNewerSnapshot("1.0-20260102.080000-4",
+            null, "1.0-20260101.120000-3"));
+    }
+
+    @Test
+    void testLocallyInstalledSnapshot() {
+        var installed = Instant.parse("2026-01-01T12:00:00Z");
+        assertFalse(MvnRepoLookup.isNewerSnapshot("1.0-SNAPSHOT", installed,
+            "1.0-SNAPSHOT"));
+        assertFalse(MvnRepoLookup.isNewerSnapshot("1.0-SNAPSHOT", installed,
+            "1.0-20251231.120000-7"));
+        assertTrue(MvnRepoLookup.isNewerSnapshot("1.0-SNAPSHOT", installed,
+            "1.0-20260101.130000-8"));
+        assertFalse(MvnRepoLookup.isNewerSnapshot("1.0-SNAPSHOT", null,
+            "1.0-20260101.130000-8"));
+    }
+}
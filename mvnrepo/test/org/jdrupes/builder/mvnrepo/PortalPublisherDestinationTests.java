@@ -0,0 +1,160 @@
+package org.jdrupes.builder.mvnrepo;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipInputStream;
+import org.jdrupes.builder.api.BuildException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PortalPublisherDestinationTests {
+
+    @TempDir
+    Path tempDir;
+    private HttpServer server;
+    private final List<byte[]> bodies
+        = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> statusCodes = new ArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/upload", exchange -> {
+            int index = requests.getAndIncrement();
+            try (InputStream input = exchange.getRequestBody()) {
+                bodies.add(input.readAllBytes());
+            } catch (IOException e) {
+                // Aborted by client
+                exchange.close();
+                return;
+            }
+            int status = index < statusCodes.size() ? statusCodes.get(index)
+                : 201;
+            var response = "id".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private PortalPublisherDestination destination() {
+        var destination = new PortalPublisherDestination()
+            .uploadUri(URI.create("http://localhost:"
+                + server.getAddress().getPort() + "/upload"));
+        destination.credentials("user", "secret");
+        return destination;
+    }
+
+    private Map<String, Path> files() throws IOException {
+        Map<String, Path> files = new LinkedHashMap<>();
+        for (var name : List.of("test-1.0.jar", "test-1.0.pom")) {
+            var file = tempDir.resolve(name);
+            Files.writeString(file, ("Content of " + name + "\n").repeat(100));
+            files.put("org/example/test/1.0/" + name, file);
+        }
+        return files;
+    }
+
+    private static Map<String, String> unzip(byte[] body) throws IOException {
+        var text = new String(body, StandardCharsets.ISO_8859_1);
+        int start = text.indexOf("\r\n\r\n") + 4;
+        int end = text.lastIndexOf("\r\n--");
+        assertTrue(text.endsWith("--"));
+        Map<String, String> entries = new HashMap<>();
+        try (var zip = new ZipInputStream(new ByteArrayInputStream(
+            body, start, end - start))) {
+            for (var entry = zip.getNextEntry(); entry != null;
+                    entry = zip.getNextEntry()) {
+                entries.put(entry.getName(),
+                    new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void testUpload() throws Exception {
+        var files = files();
+        destination().uploadBundle(null, null, "test-1.0-release.zip",
+            files, null);
+        assertEquals(1, bodies.size());
+        var entries = unzip(bodies.get(0));
+        assertEquals(files.keySet(), entries.keySet());
+        for (var file : files.entrySet()) {
+            assertEquals(Files.readString(file.getValue()),
+                entries.get(file.getKey()));
+        }
+    }
+
+    @Test
+    void testUploadWithLimitedBuffers() throws Exception {
+        var files = files();
+        var size = Files.size(files.values().iterator().next());
+        // Compressed while sending, one at a time and all buffered
+        for (long limit : new long[] { 1, size * 3 / 2, size * 4 }) {
+            bodies.clear();
+            var destination = destination();
+            destination.bufferLimit((int) limit);
+            destination.uploadBundle(null, null, "test-1.0-release.zip",
+                files, null);
+            assertEquals(1, bodies.size());
+            var entries = unzip(bodies.get(0));
+            assertEquals(files.keySet(), entries.keySet());
+            for (var file : files.entrySet()) {
+                assertEquals(Files.readString(file.getValue()),
+                    entries.get(file.getKey()));
+            }
+        }
+    }
+
+    @Test
+    void testRetryWithSpooledBundle() throws Exception {
+        statusCodes.add(503);
+        var destination = destination();
+        destination.retries(1);
+        destination.uploadBundle(null, null, "test-1.0-release.zip",
+            files(), tempDir.resolve("test-1.0-release.zip"));
+        assertEquals(2, bodies.size());
+        assertEquals(unzip(bodies.get(0)), unzip(bodies.get(1)));
+    }
+
+    @Test
+    void testBundleFailureIsReportedAndNotRetried() throws Exception {
+        var files = files();
+        files.put("org/example/test/1.0/test-1.0-sources.jar",
+            tempDir.resolve("missing.jar"));
+        var destination = destination();
+        destination.retries(2);
+        var thrown = assertThrows(BuildException.class,
+            () -> destination.uploadBundle(null, null,
+                "test-1.0-release.zip", files,
+                tempDir.resolve("test-1.0-release.zip")));
+        assertInstanceOf(NoSuchFileException.class, thrown.getCause());
+        assertTrue(requests.get() <= 1);
+    }
+}
@@ -19,16 +19,22 @@
 package org.jdrupes.builder.ext.nodejs;
 
 import com.google.common.flogger.FluentLogger;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -40,15 +46,22 @@ import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.jdrupes.builder.api.BuildException;
 import org.jdrupes.builder.api.ResourceProvider;
 
-/// Manages cached node js downloads.
+/// Manages cached node js downloads. The archive is extracted while
+/// it is being downloaded and verified against the SHA-256 published
+/// in the distribution's `SHASUMS256.txt`. Extraction happens in a
+/// temporary directory that is moved into place only after successful
+/// verification. Interrupted downloads are resumed where possible.
 ///
 public class NodeJsDownloader {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-    private static Map<Path, Object> installLocks = new ConcurrentHashMap<>();
+    private static final int MAX_RESUMES = 3;
+    private static final Map<Path, Object> installLocks
+        = new ConcurrentHashMap<>();
     private final ResourceProvider provider;
     private final Path baseDir;
     private final Platform platform;
+    private String distributionUrl = "https://nodejs.org/dist";
 
     /// Initializes a new node js downloader.
     ///
@@ -62,6 +75,19 @@ public class NodeJsDownloader {
         logger.atFine().log("%s uses NodeJs Platform: %s", provider, platform);
     }
 
+    /// Sets the base URL of the distribution, defaults to
+    /// `https://nodejs.org/dist`. Use this to download from a mirror.
+    ///
+    /// @param url the url
+    /// @return the node js downloader
+    ///
+    public NodeJsDownloader distributionUrl(String url) {
+        distributionUrl = url.endsWith("/")
+            ? url.substring(0, url.length() - 1)
+            : url;
+        return this;
+    }
+
     private Platform detectPlatform() {
         String opSys = System.getProperty("os.name").toLowerCase(Locale.ROOT);
         String arch
@@ -98,8 +124,8 @@ public class NodeJsDownloader {
 
     @SuppressWarnings("PMD.AvoidSynchronizedStatement")
     private Path downloadAndInstall(String version) {
-        Path unpackedIn = baseDir
-            .resolve(String.format("node-v%s-%s", version, platform.name));
+        String dirName = String.format("node-v%s-%s", version, platform.name);
+        Path unpackedIn = baseDir.resolve(dirName);
         var lock = installLocks.computeIfAbsent(unpackedIn, _ -> new Object());
         synchronized (lock) {
             if (Files.exists(unpackedIn)) {
@@ -107,56 +133,112 @@ public class NodeJsDownloader {
                     "Using NodeJs %s at %s", version, unpackedIn);
                 return unpackedIn;
             }
-            try {
+            Path tmpDir = null;
+            try (var client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL).build()) {
                 Files.createDirectories(baseDir);
-                var archive = download(baseDir, version);
-                if (archive.toString().endsWith(".zip")) {
-                    unzip(baseDir, archive);
-                } else if (archive.toString().endsWith(".tar.gz")) {
-                    untarGz(baseDir, archive);
+                tmpDir = Files.createTempDirectory(baseDir, dirName + ".tmp-");
+                String archiveName = dirName + "." + platform.extension;
+                String expected = expectedChecksum(client, version,
+                    archiveName);
+                downloadAndExtract(client, version, archiveName, tmpDir,
+                    expected);
+                executable(tmpDir.resolve(dirName)).toFile()
+                    .setExecutable(true, false);
+                try {
+                    Files.move(tmpDir.resolve(dirName), unpackedIn,
+                        StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    // Renaming onto an existing, non-empty directory
+                    // fails with ENOTEMPTY, which is reported as plain
+                    // FileSystemException. So check if it has been
+                    // installed concurrently by another build.
+                    if (!Files.isDirectory(unpackedIn)) {
+                        throw e;
+                    }
+                    logger.atFine().log("NodeJs %s installed concurrently",
+                        version);
                 }
-                executable(unpackedIn).toFile().setExecutable(true, false);
-                Files.deleteIfExists(archive);
                 logger.atFine().log(
                     "Installed NodeJs %s to %s", version, unpackedIn);
                 return unpackedIn;
-            } catch (IOException | InterruptedException e) {
+            } catch (IOException e) {
                 throw new BuildException().from(provider).cause(e);
+            } finally {
+                deleteTree(tmpDir);
             }
         }
     }
 
-    @SuppressWarnings("PMD.AvoidLiteralsInIfCondition")
-    private Path download(Path targetDir, String version)
-            throws IOException, InterruptedException {
-        try (var client = HttpClient.newHttpClient()) {
-            String archiveName = String.format("node-v%s-%s.%s", version,
-                platform.name, platform.extension);
-            String downloadUrl = String.format("https://nodejs.org/dist/v%s/%s",
-                version, archiveName);
-            logger.atFine().log("Downloading %s", downloadUrl);
-            var request = HttpRequest.newBuilder().GET()
-                .uri(URI.create(downloadUrl)).build();
-            var target = targetDir.resolve(archiveName);
-            var response = client.send(request, BodyHandlers.ofFile(target));
-            if (response.statusCode() / 100 != 2) {
-                throw new BuildException().from(provider).message(
-                    "Attempt to download %s failed with %d", downloadUrl,
-                    response.statusCode());
+    /// Retrieves the expected SHA-256 of the archive from the
+    /// `SHASUMS256.txt` published with the distribution.
+    ///
+    private String expectedChecksum(HttpClient client, String version,
+            String archiveName) throws IOException {
+        var uri = URI.create(String.format("%s/v%s/SHASUMS256.txt",
+            distributionUrl, version));
+        try (var sums = new ResumableDownload(client, uri, MAX_RESUMES)) {
+            return new String(sums.readAllBytes(), StandardCharsets.UTF_8)
+                .lines().map(l -> l.trim().split("\\s+"))
+                .filter(f -> f.length == 2 && f[1].equals(archiveName))
+                .map(f -> f[0].toLowerCase(Locale.ROOT)).findFirst()
+                .orElseThrow(() -> new BuildException().from(provider)
+                    .message("No checksum for %s in %s", archiveName, uri));
+        }
+    }
+
+    /// Streams the archive through the decompressor into `targetDir`
+    /// while computing its SHA-256. Any remaining bytes are drained
+    /// after extraction so that the checksum covers the complete
+    /// download.
+    ///
+    private void downloadAndExtract(HttpClient client, String version,
+            String archiveName, Path targetDir, String expected)
+            throws IOException {
+        var uri = URI.create(String.format("%s/v%s/%s", distributionUrl,
+            version, archiveName));
+        logger.atFine().log("Downloading %s", uri);
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        // The decompressors use mark/reset, so the digest must be
+        // computed below the buffer to see every byte exactly once
+        try (var download = new ResumableDownload(client, uri, MAX_RESUMES);
+                var digested = new BufferedInputStream(
+                    new DigestInputStream(download, digest))) {
+            // Keep the stream open for draining after extraction
+            var archive = new FilterInputStream(digested) {
+                @Override
+                public void close() {
+                    // Closed by outer try
+                }
+            };
+            if (archiveName.endsWith(".zip")) {
+                unzip(targetDir, archive);
+            } else {
+                untarGz(targetDir, archive);
             }
-            return target;
+            digested.transferTo(OutputStream.nullOutputStream());
+        }
+        var actual = HexFormat.of().formatHex(digest.digest());
+        if (!actual.equals(expected)) {
+            throw new BuildException().from(provider).message(
+                "Checksum mismatch for %s: expected %s, got %s", uri,
+                expected, actual);
         }
     }
 
-    private void unzip(Path targetDir, Path zipFile) throws IOException {
-        try (ZipInputStream zis
-            = new ZipInputStream(Files.newInputStream(zipFile))) {
+    private void unzip(Path targetDir, InputStream source) throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(source)) {
             while (true) {
                 ZipEntry entry = zis.getNextEntry();
                 if (entry == null) {
                     break;
                 }
-                Path newPath = targetDir.resolve(entry.getName());
+                Path newPath = entryPath(targetDir, entry.getName());
                 if (entry.isDirectory()) {
                     Files.createDirectories(newPath);
                 } else {
@@ -168,9 +250,9 @@ public class NodeJsDownloader {
         }
     }
 
-    private void untarGz(Path targetDir, Path tarGz) throws IOException {
-        try (InputStream tarGzIn = Files.newInputStream(tarGz);
-                InputStream tarIn = new GzipCompressorInputStream(tarGzIn);
+    private void untarGz(Path targetDir, InputStream source)
+            throws IOException {
+        try (InputStream tarIn = new GzipCompressorInputStream(source);
                 TarArchiveInputStream tar = new TarArchiveInputStream(tarIn)) {
 
             while (true) {
@@ -178,13 +260,13 @@ public class NodeJsDownloader {
                 if (entry == null) {
                     break;
                 }
-                Path newPath = targetDir.resolve(entry.getName());
+                Path newPath = entryPath(targetDir, entry.getName());
                 if (entry.isDirectory()) {
                     Files.createDirectories(newPath);
                 } else if (entry.isSymbolicLink()) {
                     Files.createDirectories(newPath.getParent());
-                    Path target = Paths.get(entry.getLinkName());
-                    Files.createSymbolicLink(newPath, target);
+                    Files.createSymbolicLink(newPath,
+                        linkTarget(targetDir, newPath, entry.getLinkName()));
                 } else {
                     Files.createDirectories(newPath.getParent());
                     Files.copy(tar, newPath,
@@ -194,6 +276,49 @@ public class NodeJsDownloader {
         }
     }
 
+    private Path entryPath(Path targetDir, String name) {
+        Path result = targetDir.resolve(name).normalize();
+        if (!result.startsWith(targetDir)) {
+            throw new BuildException().from(provider)
+                .message("Archive entry %s outside target directory", name);
+        }
+        return result;
+    }
+
+    /// Returns the target for a symbolic link from the archive. The
+    /// target must be relative and must not point outside the target
+    /// directory, else later entries could be written through the link
+    /// to arbitrary locations.
+    ///
+    private Path linkTarget(Path targetDir, Path link, String name) {
+        Path target = Path.of(name);
+        if (target.isAbsolute() || target.getRoot() != null
+            || !link.getParent().resolve(target).normalize()
+                .startsWith(targetDir)) {
+            throw new BuildException().from(provider).message(
+                "Archive entry %s links to %s outside target directory",
+                link, name);
+        }
+        return target;
+    }
+
+    private static void deleteTree(Path root) {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        try (var paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    logger.atFine().withCause(e).log("Cannot delete %s", p);
+                }
+            });
+        } catch (IOException e) {
+            logger.atFine().withCause(e).log("Cannot delete %s", root);
+        }
+    }
+
     private record Platform(String name, boolean isWindows,
             String extension) {
     }
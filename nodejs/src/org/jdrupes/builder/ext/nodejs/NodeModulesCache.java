@@ -0,0 +1,236 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.ext.nodejs;
+
+import com.google.common.flogger.FluentLogger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// A content addressed cache for `node_modules` directories. Entries
+/// are keyed by the SHA-256 of `package-lock.json` combined with the
+/// node.js version. An entry is created by linking the files of a freshly
+/// installed `node_modules` directory into the cache and is materialized
+/// in other projects by linking the files back. Where hard links are not
+/// supported (e.g. because the cache is on a different file store) the
+/// files are copied.
+///
+/// Entries are created in a temporary directory and moved into place
+/// atomically, so concurrent builds never see a partial entry. Tool
+/// caches in `node_modules/.cache` are never shared.
+///
+class NodeModulesCache {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    /// The marker file that records the key of a materialized entry.
+    private static final String MARKER = ".jdbld-cache-key";
+    private static final String TOOL_CACHE = ".cache";
+    private static final Map<Path, Object> entryLocks
+        = new ConcurrentHashMap<>();
+    private final Path baseDir;
+
+    /// Initializes a new cache in the given directory.
+    ///
+    /// @param baseDir the base directory
+    ///
+    /* default */ NodeModulesCache(Path baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    /// Returns the key for the given lock file and node.js version.
+    ///
+    /// @param packageLock the `package-lock.json`
+    /// @param nodeJsVersion the node.js version
+    /// @return the key
+    /// @throws IOException Signals that an I/O exception has occurred.
+    ///
+    /* default */ static String key(Path packageLock, String nodeJsVersion)
+            throws IOException {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(nodeJsVersion.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(packageLock));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /// Checks if the given `node_modules` directory has been
+    /// materialized from (or stored as) the entry with the given key.
+    ///
+    /// @param nodeModules the `node_modules` directory
+    /// @param key the key
+    /// @return true, if successful
+    ///
+    /* default */ static boolean isInstalled(Path nodeModules, String key) {
+        var marker = nodeModules.resolve(MARKER);
+        try {
+            return Files.exists(nodeModules.resolve(".package-lock.json"))
+                && Files.exists(marker)
+                && key.equals(Files.readString(marker).strip());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /// Returns the marker file in the given `node_modules` directory.
+    /// Its modification time is the time of the last (re-)installation.
+    ///
+    /// @param nodeModules the `node_modules` directory
+    /// @return the path
+    ///
+    /* default */ static Path marker(Path nodeModules) {
+        return nodeModules.resolve(MARKER);
+    }
+
+    /// Replaces the content of `nodeModules` with the entry for the
+    /// given key, if it exists.
+    ///
+    /// @param key the key
+    /// @param nodeModules the `node_modules` directory
+    /// @return true, if the entry existed and has been materialized
+    /// @throws IOException Signals that an I/O exception has occurred.
+    ///
+    /* default */ boolean materialize(String key, Path nodeModules)
+            throws IOException {
+        var entry = baseDir.resolve(key);
+        if (!Files.isDirectory(entry)) {
+            return false;
+        }
+        logger.atFine().log("Materializing %s from %s", nodeModules, entry);
+        deleteTree(nodeModules);
+        linkTree(entry, nodeModules);
+        writeMarker(nodeModules, key);
+        return true;
+    }
+
+    /// Adds the content of `nodeModules` as entry with the given key,
+    /// unless such an entry exists already, and marks `nodeModules`
+    /// as installed from this entry.
+    ///
+    /// @param key the key
+    /// @param nodeModules the `node_modules` directory
+    /// @throws IOException Signals that an I/O exception has occurred.
+    ///
+    @SuppressWarnings("PMD.AvoidSynchronizedStatement")
+    /* default */ void store(String key, Path nodeModules) throws IOException {
+        var entry = baseDir.resolve(key);
+        var lock = entryLocks.computeIfAbsent(entry, _ -> new Object());
+        synchronized (lock) {
+            if (!Files.isDirectory(entry)) {
+                Files.createDirectories(baseDir);
+                var tmp = baseDir.resolve(key + ".tmp-" + UUID.randomUUID());
+                try {
+                    linkTree(nodeModules, tmp);
+                    Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+                    logger.atFine().log("Stored %s as %s", nodeModules, entry);
+                } catch (IOException e) {
+                    // Renaming onto an existing, non-empty directory
+                    // fails with ENOTEMPTY, which is not reported as
+                    // FileAlreadyExistsException. So check if the entry
+                    // has been stored concurrently by another build.
+                    if (!Files.isDirectory(entry)) {
+                        throw e;
+                    }
+                } finally {
+                    deleteTree(tmp);
+                }
+            }
+        }
+        writeMarker(nodeModules, key);
+    }
+
+    private static void writeMarker(Path nodeModules, String key)
+            throws IOException {
+        Files.writeString(nodeModules.resolve(MARKER), key);
+    }
+
+    /// Recreates the tree at `source` in `target`, hard linking regular
+    /// files and copying symbolic links as such.
+    ///
+    private static void linkTree(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir,
+                    BasicFileAttributes attrs) throws IOException {
+                if (dir.equals(source.resolve(TOOL_CACHE))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                var dest = target.resolve(source.relativize(file));
+                if (attrs.isSymbolicLink()) {
+                    Files.createSymbolicLink(dest,
+                        Files.readSymbolicLink(file));
+                } else if (!file.getFileName().toString().equals(MARKER)) {
+                    try {
+                        Files.createLink(dest, file);
+                    } catch (UnsupportedOperationException | IOException e) {
+                        Files.copy(file, dest,
+                            StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir,
+                    IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ProcessBuilder.Redirect;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -50,6 +51,7 @@ import org.jdrupes.builder.api.ResourceType;
 import static org.jdrupes.builder.api.ResourceType.*;
 import org.jdrupes.builder.api.Resources;
 import org.jdrupes.builder.core.AbstractProvider;
+import org.jdrupes.builder.core.FileMetadataCache;
 import org.jdrupes.builder.core.StreamCollector;
 
 /// A provider for [execution results][ExecResult] from invoking npm.
@@ -60,8 +62,18 @@ import org.jdrupes.builder.core.StreamCollector;
 ///   * The working directory is the project directory.
 /// 
 ///   * The provider first checks if a file `package.json` exists, else it
-///     fails. If no directory `node_modules` exists or `package.json`
-///     is newer than `node_modules/.package-lock.json` it invokes `npm init`.
+///     fails. If no `package-lock.json` exists or `package.json` is newer
+///     than `package-lock.json`, it invokes `npm install` if no directory
+///     `node_modules` exists or `package.json` is newer than
+///     `node_modules/.package-lock.json`.
+/// 
+///   * Else, `node_modules` is taken from a cache in the
+///     [common cache directory][org.jdrupes.builder.api.BuildContext#commonCacheDirectory()]
+///     that is keyed by the content of `package-lock.json` and the
+///     node.js version. Cached files are hard linked into the project.
+///     Only if no cache entry exists, `npm ci` is invoked and the result
+///     is added to the cache. Caching can be disabled with
+///     [#cacheNodeModules(boolean)].
 /// 
 ///   * Then, the provider retrieves all resources added by [#required]. While
 ///     the provider itself does not process these resources, it is assumed
@@ -70,7 +82,7 @@ import org.jdrupes.builder.core.StreamCollector;
 /// 
 ///   * If no arguments were specified, the provider returns an [ExecResult]
 ///     that indicates successful invocation. The date of the result is set
-///     to the date of `node_modules/.package-lock.json`.
+///     to the date of the last (re-)installation of `node_modules`.
 /// 
 ///   * The provider invokes the function configured with [#output] and
 ///     collects all resources. If the generated resources exist and no
@@ -109,6 +121,7 @@ public class NpmExecutor extends AbstractProvider
     private String nodeJsVersion;
     private NodeJsDownloader nodeJsDownloader;
     private ResourceRequest<?> requestForGenerated;
+    private boolean cacheNodeModules = true;
 
     /// Initializes a new NPM executor.
     ///
@@ -143,6 +156,18 @@ public class NpmExecutor extends AbstractProvider
         return this;
     }
 
+    /// Sets whether `node_modules` is shared with other projects
+    /// through the cache described in the class documentation.
+    /// Defaults to `true`.
+    ///
+    /// @param enable whether to use the cache
+    /// @return the npm executor
+    ///
+    public NpmExecutor cacheNodeModules(boolean enable) {
+        cacheNodeModules = enable;
+        return this;
+    }
+
     /// Add the given arguments.
     ///
     /// @param args the arguments
@@ -245,15 +270,7 @@ public class NpmExecutor extends AbstractProvider
             throw new BuildException().from(this)
                 .message("No package.json in %s", project);
         }
-        File dotPackageLock = project.directory()
-            .resolve("node_modules/.package-lock.json").toFile();
-        if (!project.directory().resolve("node_modules").toFile().exists()
-            || !dotPackageLock.exists()
-            || packageJson.lastModified() > dotPackageLock.lastModified()) {
-            logger.atConfig().log("Updating node_modules in %s", project);
-            runNpm(project, List.of("install"));
-        }
-
+        var installedAsOf = installNodeModules(packageJson.toPath());
         // Make sure that the required resources are retrieved and exist
         var required = Resources.of(new ResourceType<Resources<Resource>>() {});
         required.addAll(requiredResources.stream());
@@ -261,7 +278,7 @@ public class NpmExecutor extends AbstractProvider
             @SuppressWarnings("unchecked")
             var result = (T) ExecResult
                 .of(this, "npm install", 0, Stream.empty())
-                .asOf(Instant.ofEpochMilli(dotPackageLock.lastModified()));
+                .asOf(installedAsOf);
             return List.of(result);
         }
 
@@ -281,6 +298,48 @@ public class NpmExecutor extends AbstractProvider
         return runNpm(project, arguments);
     }
 
+    /// Makes sure that `node_modules` is up-to-date and returns the
+    /// time of its last (re-)installation.
+    ///
+    private Instant installNodeModules(Path packageJson) {
+        Path nodeModules = project.directory().resolve("node_modules");
+        Path packageLock = project.directory().resolve("package-lock.json");
+        Path dotPackageLock = nodeModules.resolve(".package-lock.json");
+        try {
+            if (!cacheNodeModules || !Files.exists(packageLock)
+                || Files.getLastModifiedTime(packageJson)
+                    .compareTo(Files.getLastModifiedTime(packageLock)) > 0) {
+                // No usable lock file, npm install creates or updates it
+                if (!Files.exists(nodeModules) || !Files.exists(dotPackageLock)
+                    || Files.getLastModifiedTime(packageJson).compareTo(
+                        Files.getLastModifiedTime(dotPackageLock)) > 0) {
+                    logger.atConfig().log("Updating node_modules in %s",
+                        project);
+                    runNpm(project, List.of("install"));
+                }
+                return Files.getLastModifiedTime(dotPackageLock).toInstant();
+            }
+
+            // Use cache
+            var cache = new NodeModulesCache(context().commonCacheDirectory()
+                .resolve(getClass().getPackageName()).resolve("node_modules"));
+            var key = NodeModulesCache.key(packageLock, nodeJsVersion);
+            if (!NodeModulesCache.isInstalled(nodeModules, key)) {
+                if (!cache.materialize(key, nodeModules)) {
+                    logger.atConfig().log("Installing node_modules in %s",
+                        project);
+                    runNpm(project, List.of("ci"));
+                    cache.store(key, nodeModules);
+                }
+                FileMetadataCache.invalidateTree(nodeModules);
+            }
+            return Files.getLastModifiedTime(
+                NodeModulesCache.marker(nodeModules)).toInstant();
+        } catch (IOException e) {
+            throw new BuildException().from(this).cause(e);
+        }
+    }
+
     private <T extends Resource> Collection<T> runNpm(
             Project project, List<String> arguments) {
         var nodeJsExecutable = nodeJsDownloader.npmExecutable(nodeJsVersion);
@@ -298,6 +357,8 @@ public class NpmExecutor extends AbstractProvider
             // want to marked as error.
             copyData(process.getErrorStream(), context().out());
             int exitValue = process.waitFor();
+            // Npm (i.e. the scripts run by npm) may have written anything
+            FileMetadataCache.invalidateAll();
             if (exitValue != 0) {
                 throw new BuildException().from(this)
                     .message("Npm exited with %d", exitValue);
@@ -0,0 +1,141 @@
+/*
+ * JDrupes Builder
+ * Copyright (C) 2026 Michael N. Lipp
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.jdrupes.builder.ext.nodejs;
+
+import com.google.common.flogger.FluentLogger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+
+/// An [InputStream] that provides the body of an HTTP GET request.
+/// If reading the body fails, the request is re-issued with a `Range`
+/// header that asks for the remaining bytes only. Consumers therefore
+/// see a single uninterrupted stream, which allows the body to be
+/// processed while it is being downloaded.
+///
+class ResumableDownload extends InputStream {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private final HttpClient client;
+    private final URI uri;
+    private final int maxResumes;
+    private InputStream body;
+    private long received;
+    private int resumes;
+
+    /// Starts the download.
+    ///
+    /// @param client the client
+    /// @param uri the URI
+    /// @param maxResumes the maximum number of resume attempts
+    /// @throws IOException if the initial request fails
+    ///
+    /* default */ ResumableDownload(HttpClient client, URI uri,
+            int maxResumes) throws IOException {
+        this.client = client;
+        this.uri = uri;
+        this.maxResumes = maxResumes;
+        body = open();
+    }
+
+    @SuppressWarnings("PMD.AvoidLiteralsInIfCondition")
+    private InputStream open() throws IOException {
+        var builder = HttpRequest.newBuilder().GET().uri(uri);
+        if (received > 0) {
+            builder.header("Range", "bytes=" + received + "-");
+        }
+        try {
+            var response
+                = client.send(builder.build(), BodyHandlers.ofInputStream());
+            int status = response.statusCode();
+            if (status / 100 != 2) {
+                response.body().close();
+                throw new IOException(String.format(
+                    "Attempt to download %s failed with %d", uri, status));
+            }
+            var stream = response.body();
+            if (received > 0 && status != 206) {
+                // Server ignored the range, skip what we already have
+                stream.skipNBytes(received);
+            }
+            return stream;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    private void resume(IOException cause) throws IOException {
+        if (resumes >= maxResumes) {
+            throw cause;
+        }
+        resumes += 1;
+        logger.atFine().withCause(cause).log(
+            "Resuming download of %s at byte %d", uri, received);
+        try {
+            body.close();
+        } catch (IOException e) { // NOPMD
+            // Broken anyway
+        }
+        body = open();
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (true) {
+            try {
+                int result = body.read();
+                if (result >= 0) {
+                    received += 1;
+                }
+                return result;
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+        while (true) {
+            try {
+                int count = body.read(buf, off, len);
+                if (count > 0) {
+                    received += count;
+                }
+                return count;
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
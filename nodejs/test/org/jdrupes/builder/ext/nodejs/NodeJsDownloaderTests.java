@@ -0,0 +1,188 @@
+package org.jdrupes.builder.ext.nodejs;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.jdrupes.builder.api.BuildException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisabledOnOs(OS.WINDOWS)
+class NodeJsDownloaderTests {
+
+    private static final List<String> PLATFORMS = List.of("linux-x64",
+        "linux-x86", "darwin-x64", "darwin-x86");
+
+    @TempDir
+    Path tempDir;
+    private HttpServer server;
+    private final Map<String, byte[]> content = new ConcurrentHashMap<>();
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private volatile boolean truncateOnce;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            var data = content.get(exchange.getRequestURI().getPath());
+            if (data == null) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            var range = exchange.getRequestHeaders().getFirst("Range");
+            try (exchange) {
+                if (range != null) {
+                    ranges.add(range);
+                    int from = Integer.parseInt(range.substring(
+                        "bytes=".length(), range.length() - 1));
+                    exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + from + "-" + (data.length - 1) + "/"
+                            + data.length);
+                    exchange.sendResponseHeaders(206, data.length - from);
+                    exchange.getResponseBody().write(data, from,
+                        data.length - from);
+                    return;
+                }
+                exchange.sendResponseHeaders(200, data.length);
+                if (truncateOnce && data.length > 1000) {
+                    truncateOnce = false;
+                    // Closing before all bytes have been written breaks
+                    // the connection
+                    exchange.getResponseBody().write(data, 0,
+                        data.length / 2);
+                    exchange.getResponseBody().flush();
+                    return;
+                }
+                exchange.getResponseBody().write(data);
+            } catch (IOException e) { // NOPMD
+                // Expected when truncating
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private NodeJsDownloader downloader() {
+        return new NodeJsDownloader(null, tempDir.resolve("nodejs"))
+            .distributionUrl("http://localhost:"
+                + server.getAddress().getPort() + "/");
+    }
+
+    private static byte[] archive(String dirName, String linkTarget)
+            throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var tar = new TarArchiveOutputStream(
+            new GzipCompressorOutputStream(bytes))) {
+            // Incompressible content for a download of some size
+            var npm = new byte[64 * 1024];
+            new Random(42).nextBytes(npm);
+            var entry = new TarArchiveEntry(dirName + "/lib/npm-cli.js");
+            entry.setSize(npm.length);
+            tar.putArchiveEntry(entry);
+            tar.write(npm);
+            tar.closeArchiveEntry();
+            var link = new TarArchiveEntry(dirName + "/bin/npm",
+                TarArchiveEntry.LF_SYMLINK);
+            link.setLinkName(linkTarget);
+            tar.putArchiveEntry(link);
+            tar.closeArchiveEntry();
+        }
+        return bytes.toByteArray();
+    }
+
+    private void publish(String version, String linkTarget, boolean valid)
+            throws IOException {
+        var sums = new StringBuilder();
+        for (var platform : PLATFORMS) {
+            var dirName = "node-v" + version + "-" + platform;
+            var data = archive(dirName, linkTarget);
+            content.put("/v" + version + "/" + dirName + ".tar.gz", data);
+            sums.append(valid ? sha256(data) : sha256(new byte[0]))
+                .append("  ").append(dirName).append(".tar.gz\n");
+        }
+        content.put("/v" + version + "/SHASUMS256.txt",
+            sums.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Path> installed() throws IOException {
+        try (var dirs = Files.list(tempDir.resolve("nodejs"))) {
+            return dirs.toList();
+        }
+    }
+
+    @Test
+    void testInstall() throws IOException {
+        publish("1.0.0", "../lib/npm-cli.js", true);
+        var npm = downloader().npmExecutable("1.0.0");
+        assertTrue(Files.isSymbolicLink(npm));
+        assertTrue(Files.isRegularFile(npm));
+        assertTrue(ranges.isEmpty());
+        // Installed once
+        content.clear();
+        assertEquals(npm, downloader().npmExecutable("1.0.0"));
+    }
+
+    @Test
+    void testResumedDownload() throws IOException {
+        publish("1.0.0", "../lib/npm-cli.js", true);
+        truncateOnce = true;
+        var npm = downloader().npmExecutable("1.0.0");
+        assertEquals(1, ranges.size());
+        assertTrue(Files.isRegularFile(npm));
+    }
+
+    @Test
+    void testChecksumMismatch() throws IOException {
+        publish("1.0.0", "../lib/npm-cli.js", false);
+        var thrown = assertThrows(BuildException.class,
+            () -> downloader().npmExecutable("1.0.0"));
+        assertTrue(thrown.getMessage().contains("Checksum mismatch"));
+        // Neither installed nor left behind
+        assertEquals(List.of(), installed());
+    }
+
+    @Test
+    void testLinksOutsideRejected() throws IOException {
+        publish("1.0.0", "../../../outside", true);
+        assertThrows(BuildException.class,
+            () -> downloader().npmExecutable("1.0.0"));
+        publish("2.0.0", "/etc/passwd", true);
+        assertThrows(BuildException.class,
+            () -> downloader().npmExecutable("2.0.0"));
+        assertEquals(List.of(), installed());
+    }
+}
@@ -0,0 +1,78 @@
+package org.jdrupes.builder.ext.nodejs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NodeModulesCacheTests {
+
+    @TempDir
+    Path tempDir;
+
+    private Path install(Path project) throws IOException {
+        var nodeModules = project.resolve("node_modules");
+        Files.createDirectories(nodeModules.resolve("lib/dist"));
+        Files.createDirectories(nodeModules.resolve(".cache/tool"));
+        Files.writeString(nodeModules.resolve(".package-lock.json"), "{}");
+        Files.writeString(nodeModules.resolve("lib/dist/index.js"), "// lib");
+        Files.writeString(nodeModules.resolve(".cache/tool/data"), "cached");
+        return nodeModules;
+    }
+
+    @Test
+    void testKey() throws IOException {
+        var lock = tempDir.resolve("package-lock.json");
+        Files.writeString(lock, "{ \"lockfileVersion\": 3 }");
+        var key = NodeModulesCache.key(lock, "v22.0.0");
+        assertEquals(64, key.length());
+        assertEquals(key, NodeModulesCache.key(lock, "v22.0.0"));
+        assertNotEquals(key, NodeModulesCache.key(lock, "v24.0.0"));
+        Files.writeString(lock, "{ \"lockfileVersion\": 2 }");
+        assertNotEquals(key, NodeModulesCache.key(lock, "v22.0.0"));
+    }
+
+    @Test
+    void testStoreAndMaterialize() throws IOException {
+        var cache = new NodeModulesCache(tempDir.resolve("cache"));
+        var installed = install(tempDir.resolve("a"));
+        assertFalse(cache.materialize("key1", installed));
+        cache.store("key1", installed);
+        assertTrue(NodeModulesCache.isInstalled(installed, "key1"));
+
+        var target = tempDir.resolve("b/node_modules");
+        Files.createDirectories(target);
+        Files.writeString(target.resolve("stale.js"), "// stale");
+        assertTrue(cache.materialize("key1", target));
+        assertFalse(Files.exists(target.resolve("stale.js")));
+        assertTrue(Files.isSameFile(installed.resolve("lib/dist/index.js"),
+            target.resolve("lib/dist/index.js")));
+        // Tool caches are not shared
+        assertFalse(Files.exists(target.resolve(".cache")));
+
+        // Storing an existing entry again is a no-op
+        cache.store("key1", install(tempDir.resolve("c")));
+        assertTrue(Files.isSameFile(installed.resolve("lib/dist/index.js"),
+            tempDir.resolve("cache/key1/lib/dist/index.js")));
+    }
+
+    @Test
+    void testMarker() throws IOException {
+        var cache = new NodeModulesCache(tempDir.resolve("cache"));
+        var nodeModules = install(tempDir.resolve("a"));
+        assertFalse(NodeModulesCache.isInstalled(nodeModules, "key1"));
+        cache.store("key1", nodeModules);
+        assertTrue(Files.exists(NodeModulesCache.marker(nodeModules)));
+        assertTrue(NodeModulesCache.isInstalled(nodeModules, "key1"));
+        assertFalse(NodeModulesCache.isInstalled(nodeModules, "key2"));
+        // The marker is not part of the entry
+        assertFalse(Files.exists(tempDir.resolve("cache/key1")
+            .resolve(NodeModulesCache.marker(nodeModules).getFileName())));
+
+        // An installation without npm's lock file is incomplete
+        Files.delete(nodeModules.resolve(".package-lock.json"));
+        assertFalse(NodeModulesCache.isInstalled(nodeModules, "key1"));
+    }
+}
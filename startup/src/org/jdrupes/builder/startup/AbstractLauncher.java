@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.LogManager;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -152,6 +153,10 @@ public abstract class AbstractLauncher extends LauncherBase
             .desc("Property in form key=value").get());
         options.addOption(Option.builder("h").longOpt("help")
             .desc("Show available commands").get());
+        options.addOption(Option.builder("k")
+            .longOpt(DefaultBuildContext.KEEP_GOING)
+            .desc("Continue with independent projects after a failure")
+            .get());
         return options;
     }
 
@@ -244,11 +249,26 @@ public abstract class AbstractLauncher extends LauncherBase
         var snapshot = ScopedValueContext.snapshot();
         @SuppressWarnings("PMD.CloseResource")
         var context = (DefaultBuildContext) rootProject().context();
+        var failures = new ConcurrentLinkedQueue<RuntimeException>();
         var result = reportBuildException(() -> projects.parallel()
-            .map(p -> snapshot.where(context::startRequestChain)
-                .where(scopedBuildContext, context)
-                .call(() -> context.resources(p, request)))
-            .flatMap(r -> r).toList().stream());
+            .map(p -> {
+                var resources = snapshot.where(context::startRequestChain)
+                    .where(scopedBuildContext, context)
+                    .call(() -> context.resources(p, request));
+                if (!context.keepGoing()) {
+                    return resources;
+                }
+                // Evaluate now, so failures don't affect other projects
+                try {
+                    return resources.toList().stream();
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                    return Stream.<T> empty();
+                }
+            }).flatMap(r -> r).toList().stream());
+        if (!failures.isEmpty()) {
+            throw buildException(failures, formatter());
+        }
         if (request.isFor(CleanlinessType)) {
             regenerateRootProject();
         }
@@ -273,18 +293,7 @@ public abstract class AbstractLauncher extends LauncherBase
         try {
             return todo.call();
         } catch (Throwable thrown) {
-            Throwable checking = thrown;
-            BuildException foundBldEx = null;
-            while (checking != null) {
-                if (checking instanceof BuildException exc) {
-                    foundBldEx = exc;
-                }
-                checking = checking.getCause();
-            }
-            if (foundBldEx != null) {
-                throw foundBldEx;
-            }
-            throw new BuildException().cause(thrown);
+            throw buildException(thrown);
         }
     }
 
@@ -186,6 +186,7 @@ public class BuildProjectLauncher extends AbstractLauncher {
                 }
             }
         }
+        rootProject.context().succeeded();
         return true;
     }
 
@@ -35,6 +35,7 @@ import org.jdrupes.builder.api.Resource;
 import org.jdrupes.builder.api.ResourceRequest;
 import static org.jdrupes.builder.api.ResourceType.resourceType;
 import org.jdrupes.builder.core.AbstractGenerator;
+import org.jdrupes.builder.core.FileMetadataCache;
 
 /// The [VscodeConfigurator] provides the resource [VscodeConfiguration].
 /// The configuration consists of the configuration files:
@@ -113,6 +114,7 @@ public class VscodeConfigurator extends AbstractGenerator {
 
         // General overrides
         configurationAdaptor.run();
+        FileMetadataCache.invalidateTree(vscodeDir);
 
         // Return a result
         @SuppressWarnings({ "unchecked" })